@@ -39,6 +39,7 @@ import com.icesoft.faces.context.DOMResponseWriter;
 import com.icesoft.faces.webapp.http.servlet.ServletExternalContext;
 import com.icesoft.faces.webapp.parser.ImplementationUtil;
 import com.icesoft.faces.webapp.parser.JspPageToDocument;
+import com.icesoft.faces.webapp.parser.PageTemplate;
 import com.icesoft.faces.webapp.parser.Parser;
 import com.icesoft.util.SeamUtilities;
 import org.apache.commons.logging.Log;
@@ -61,11 +62,12 @@ import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <B>D2DViewHandler</B> is the ICEfaces ViewHandler implementation
@@ -87,6 +89,8 @@ public class D2DViewHandler extends ViewHandler {
     private final static String RELOAD_INTERVAL =
             "com.icesoft.faces.reloadInterval";
 
+    private final static String PRECOMPILE_VIEWS =
+            "com.icesoft.faces.precompileViews";
     private final static String LAST_LOADED_KEY = "_lastLoaded";
     private final static String LAST_CHECKED_KEY = "_lastChecked";
     public static final String CHAR_ENCODING = "UTF-8";
@@ -103,6 +107,8 @@ public class D2DViewHandler extends ViewHandler {
 
     protected Parser parser;
     protected ViewHandler delegate;
+    //compiled pages shared by all the views, keyed by view id
+    private final Map viewTemplates = new ConcurrentHashMap();
 
     public D2DViewHandler() {
         try {
@@ -361,7 +367,7 @@ public class D2DViewHandler extends ViewHandler {
         ResponseWriter responseWriter = context.createAndSetResponseWriter();
 
         boolean reloadView = false;
-        URLConnection viewConnection = null;
+        ViewTemplate viewTemplate = null;
         URL viewURL = null;
 
         if ((root.getChildCount() == 0) || (reloadInterval > -1)) {
@@ -406,16 +412,14 @@ public class D2DViewHandler extends ViewHandler {
                 long currentTime = System.currentTimeMillis();
                 long lastLoaded = getTimeAttribute(root, LAST_LOADED_KEY);
                 long lastChecked = getTimeAttribute(root, LAST_CHECKED_KEY);
-                long lastModified = 0;
 
                 //newly instantiated viewRoot will have lastChecked of 0
                 //and lastLoaded of 0
                 if (currentTime > lastChecked + reloadInterval) {
-                    viewConnection = viewURL.openConnection();
-                    lastModified = viewConnection.getLastModified();
+                    viewTemplate = checkViewTemplate(viewId, viewURL, currentTime);
                     root.getAttributes().put(LAST_CHECKED_KEY,
                             new Long(currentTime));
-                    if (lastModified > lastLoaded) {
+                    if (viewTemplate.lastModified > lastLoaded) {
                         reloadView = true;
                         if (log.isDebugEnabled()) {
                             log.debug("View is modified, reloading " +
@@ -430,38 +434,15 @@ public class D2DViewHandler extends ViewHandler {
         }
 
         if (reloadView) {
-            Reader viewInput = null;
+            PageTemplate template = compileViewTemplate(viewId, viewURL, viewTemplate);
 
+            // Build the component tree;
             try {
-                viewInput = new InputStreamReader(
-                        viewConnection.getInputStream(), CHAR_ENCODING);
-                if (viewId.endsWith(".jsp")) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("JspPageToDocument transforming JSP page " +
-                                String.valueOf(viewURL));
-                    }
-                    viewInput = JspPageToDocument.transform(viewInput);
-                } else if (viewId.endsWith(".jspx")) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("JspPageToDocument preprocessing JSP doc " +
-                                String.valueOf(viewURL));
-                    }
-                    viewInput =
-                            JspPageToDocument.preprocessJspDocument(viewInput);
-                }
-            } catch (Throwable e) {
-                throw new FacesException("Can't read stream for " + viewId, e);
-            }
-
-            // Parse the page;
-            try {
-                //TODO: pass viewInput as an InputStream in order to give to the XML parser a chance to
-                //TODO: read the encoding type declared in the xml processing instruction (<?xml version="1.0" charset="..."?>)
                 if (log.isDebugEnabled()) {
-                    log.debug("Parsing " +
+                    log.debug("Building component tree of " +
                             String.valueOf(viewURL));
                 }
-                parser.parse(viewInput, context);
+                parser.parse(template, context);
                 root.getAttributes().put(LAST_LOADED_KEY,
                         new Long(System.currentTimeMillis()));
 
@@ -499,6 +480,126 @@ public class D2DViewHandler extends ViewHandler {
 
     }
 
+    /**
+     * Looks up the compiled page of the view, checking first whether the
+     * page was modified when it was not checked in the last reload
+     * interval (or never when reloading is disabled).
+     */
+    private ViewTemplate checkViewTemplate(String viewId, URL viewURL, long currentTime)
+            throws IOException {
+        ViewTemplate viewTemplate = (ViewTemplate) viewTemplates.get(viewId);
+        if (viewTemplate == null || (reloadInterval > -1 &&
+                currentTime > viewTemplate.lastChecked + reloadInterval)) {
+            long lastModified = viewURL.openConnection().getLastModified();
+            PageTemplate template = null;
+            if (viewTemplate != null && viewTemplate.lastModified == lastModified) {
+                template = viewTemplate.template;
+            }
+            viewTemplate = new ViewTemplate(lastModified, currentTime, template);
+            viewTemplates.put(viewId, viewTemplate);
+        }
+        return viewTemplate;
+    }
+
+    /**
+     * Reads and digests the page, unless it was already compiled.
+     */
+    private PageTemplate compileViewTemplate(String viewId, URL viewURL, ViewTemplate viewTemplate) {
+        PageTemplate template = viewTemplate.template;
+        if (template != null) {
+            return template;
+        }
+
+        Reader viewInput = null;
+        try {
+            viewInput = new InputStreamReader(viewURL.openStream(), CHAR_ENCODING);
+            if (viewId.endsWith(".jsp")) {
+                if (log.isDebugEnabled()) {
+                    log.debug("JspPageToDocument transforming JSP page " +
+                            String.valueOf(viewURL));
+                }
+                viewInput = JspPageToDocument.transform(viewInput);
+            } else if (viewId.endsWith(".jspx")) {
+                if (log.isDebugEnabled()) {
+                    log.debug("JspPageToDocument preprocessing JSP doc " +
+                            String.valueOf(viewURL));
+                }
+                viewInput =
+                        JspPageToDocument.preprocessJspDocument(viewInput);
+            }
+        } catch (Throwable e) {
+            close(viewInput);
+            throw new FacesException("Can't read stream for " + viewId, e);
+        }
+
+        // Parse the page;
+        try {
+            //TODO: pass viewInput as an InputStream in order to give to the XML parser a chance to
+            //TODO: read the encoding type declared in the xml processing instruction (<?xml version="1.0" charset="..."?>)
+            if (log.isDebugEnabled()) {
+                log.debug("Parsing " +
+                        String.valueOf(viewURL));
+            }
+            //concurrent compilations of the same page are harmless, the last one is kept
+            template = parser.compile(viewInput);
+            viewTemplate.template = template;
+            return template;
+        } catch (Throwable e) {
+            throw new FacesException("Can't parse stream for " + viewId +
+                    " " + e.getMessage(), e);
+        } finally {
+            close(viewInput);
+        }
+    }
+
+    private void precompileViews(FacesContext context, String path) {
+        ExternalContext externalContext = context.getExternalContext();
+        Set paths = externalContext.getResourcePaths(path);
+        if (paths == null) {
+            return;
+        }
+        Iterator i = paths.iterator();
+        while (i.hasNext()) {
+            String viewId = (String) i.next();
+            if (viewId.endsWith("/")) {
+                precompileViews(context, viewId);
+            } else if (viewId.endsWith(".jspx") || viewId.endsWith(".jsp")) {
+                try {
+                    URL viewURL = externalContext.getResource(viewId);
+                    compileViewTemplate(viewId, viewURL,
+                            checkViewTemplate(viewId, viewURL, System.currentTimeMillis()));
+                    if (log.isDebugEnabled()) {
+                        log.debug("Precompiled " + viewId);
+                    }
+                } catch (Exception e) {
+                    log.warn("Cannot precompile " + viewId, e);
+                }
+            }
+        }
+    }
+
+    private static void close(Reader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                //ignore
+            }
+        }
+    }
+
+    private static class ViewTemplate {
+        private final long lastModified;
+        private final long lastChecked;
+        private volatile PageTemplate template;
+
+        private ViewTemplate(long lastModified, long lastChecked, PageTemplate template) {
+            this.lastModified = lastModified;
+            this.lastChecked = lastChecked;
+            this.template = template;
+        }
+    }
+
     protected void renderResponse(FacesContext context, UIComponent component)
             throws IOException {
 
@@ -911,6 +1012,18 @@ public class D2DViewHandler extends ViewHandler {
             log.debug("JSF State Management enabled - server side state saving");
         }
         parametersInitialized = true;
+
+        //the pages are digested from within the first request, as the parser needs a FacesContext
+        String precompileViews = ec.getInitParameter(PRECOMPILE_VIEWS);
+        if (precompileViews != null && parser != null) {
+            String[] paths = precompileViews.split(",");
+            for (int i = 0; i < paths.length; i++) {
+                String path = paths[i].trim();
+                if (path.length() > 0) {
+                    precompileViews(context, path.endsWith("/") ? path : path + "/");
+                }
+            }
+        }
     }
 
     /**
@@ -33,6 +33,7 @@
 
 package com.icesoft.faces.async.render;
 
+import com.icesoft.util.metrics.PushMetrics;
 import edu.emory.mathcs.backport.java.util.concurrent.RejectedExecutionHandler;
 import edu.emory.mathcs.backport.java.util.concurrent.ThreadPoolExecutor;
 import org.apache.commons.logging.Log;
@@ -53,6 +54,7 @@ class RejectionHandler implements RejectedExecutionHandler {
 
     public void rejectedExecution(Runnable runnable,
                                   ThreadPoolExecutor threadPoolExecutor) {
+        PushMetrics.increment(PushMetrics.RenderRejections);
 
         //If we start seeing rejections then the work queue capacity or
         //thread numbers may need to be adjusted.
@@ -34,6 +34,7 @@
 package com.icesoft.faces.async.render;
 
 import com.icesoft.faces.webapp.http.common.Configuration;
+import com.icesoft.util.metrics.PushMetrics;
 import edu.emory.mathcs.backport.java.util.concurrent.ScheduledThreadPoolExecutor;
 import edu.emory.mathcs.backport.java.util.concurrent.ThreadPoolExecutor;
 import edu.emory.mathcs.backport.java.util.concurrent.TimeUnit;
@@ -214,6 +215,7 @@ public class RenderHub {
         if (renderService == null) {
             createCoreService();
         }
+        PushMetrics.increment(PushMetrics.RenderRequests);
         renderService.execute(new RunnableRender(renderable));
     }
 
@@ -224,6 +226,7 @@ public class RenderHub {
     private synchronized void createCoreService() {
 
         SingleEntryQueue queue = new SingleEntryQueue(renderQueueCapacity);
+        PushMetrics.monitorRenderQueue(queue);
 
         renderService = new ThreadPoolExecutor(corePoolSize,
                 maxPoolSize,
@@ -59,15 +59,28 @@ class RunnableRender implements Runnable {
     private static Log log = LogFactory.getLog(RenderHub.class);
 
     private Renderable renderable;
+    private PersistentFacesState queuedState;
 
     public RunnableRender(Renderable renderable) {
         this.renderable = renderable;
+        this.queuedState = renderable == null ? null : renderable.getState();
     }
 
     public Renderable getRenderable() {
         return renderable;
     }
 
+    /**
+     * The {@link com.icesoft.faces.webapp.xmlhttp.PersistentFacesState
+     * PersistentFacesState} of the Renderable at the time the render was
+     * requested.  Used by the {@link SingleEntryQueue} to index pending renders.
+     *
+     * @return The PersistentFacesState captured on creation, possibly null.
+     */
+    PersistentFacesState getQueuedState() {
+        return queuedState;
+    }
+
     /**
      * Using the supplied {@link Renderable}, extract its {@link
      * com.icesoft.faces.webapp.xmlhttp.PersistentFacesState
@@ -33,10 +33,16 @@
 
 package com.icesoft.faces.async.render;
 
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
 import edu.emory.mathcs.backport.java.util.concurrent.LinkedBlockingQueue;
+import edu.emory.mathcs.backport.java.util.concurrent.TimeUnit;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+
 /**
  * The SingleEntryQueue is used by the {@link RenderHub} to queue up {@link
  * Renderable}s for render calls.  The queue is a specialized version of a
@@ -57,6 +63,13 @@ import org.apache.commons.logging.LogFactory;
  * Renderable is already on the queue and any subsequent render calls should
  * take care of all changes to the underlying DOM.  This is how the render calls
  * for a given Renderable are efficiently coalesced.
+ * <p/>
+ * Rather than scanning the queue on every offer, the PersistentFacesStates of
+ * the queued renders are kept in a concurrent index, making the duplicate
+ * check a constant time operation that does not contend on the queue locks.
+ * The underlying LinkedBlockingQueue keeps separate locks for its head and
+ * tail so enqueuing threads do not block the render threads taking work off
+ * the queue.
  *
  * @author ICEsoft Technologies, Inc.
  */
@@ -64,12 +77,23 @@ class SingleEntryQueue extends LinkedBlockingQueue {
 
     private static Log log = LogFactory.getLog(SingleEntryQueue.class);
 
+    /**
+     * Maps the PersistentFacesState of each queued render to the queued
+     * RunnableRender.  PersistentFacesState does not override equals so the
+     * map effectively acts as an identity set.
+     */
+    private final ConcurrentHashMap pending = new ConcurrentHashMap();
+
     public SingleEntryQueue(int capacity) {
         super(capacity);
     }
 
     public boolean offer(Object objectToOffer) {
-        if (this.contains(objectToOffer)) {
+        Object key = keyOf(objectToOffer);
+        if (key == null) {
+            return super.offer(objectToOffer);
+        }
+        if (pending.putIfAbsent(key, objectToOffer) != null) {
             if (log.isTraceEnabled()) {
                 log.trace("object is already in work queue: " + objectToOffer);
             }
@@ -80,6 +104,66 @@ class SingleEntryQueue extends LinkedBlockingQueue {
             //concerned - a successful coalescing of the render calls.
             return true;
         }
-        return super.offer(objectToOffer);
+        if (super.offer(objectToOffer)) {
+            return true;
+        }
+        //queue is full, the render will be rejected
+        pending.remove(key, objectToOffer);
+        return false;
+    }
+
+    public Object take() throws InterruptedException {
+        return dequeued(super.take());
+    }
+
+    public Object poll() {
+        return dequeued(super.poll());
+    }
+
+    public Object poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return dequeued(super.poll(timeout, unit));
+    }
+
+    public boolean remove(Object o) {
+        if (super.remove(o)) {
+            Object key = keyOf(o);
+            if (key != null) {
+                pending.remove(key);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public int drainTo(Collection c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    public int drainTo(Collection c, int maxElements) {
+        Collection drained = new ArrayList();
+        int count = super.drainTo(drained, maxElements);
+        Iterator i = drained.iterator();
+        while (i.hasNext()) {
+            c.add(dequeued(i.next()));
+        }
+        return count;
+    }
+
+    public void clear() {
+        super.clear();
+        pending.clear();
+    }
+
+    private Object dequeued(Object object) {
+        Object key = keyOf(object);
+        if (key != null) {
+            pending.remove(key, object);
+        }
+        return object;
+    }
+
+    private static Object keyOf(Object object) {
+        return object instanceof RunnableRender ?
+                ((RunnableRender) object).getQueuedState() : null;
     }
 }
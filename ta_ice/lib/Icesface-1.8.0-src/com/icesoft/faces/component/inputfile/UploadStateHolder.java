@@ -17,6 +17,7 @@ public class UploadStateHolder implements Runnable {
     private FileInfo fileInfo;
     private boolean asyncLifecycle;
     private String iframeContent;
+    private boolean lifecycleDone;
     
     public UploadStateHolder(UploadConfig uploadConfig, FileInfo fileInfo) {
         this.uploadConfig = uploadConfig;
@@ -39,12 +40,47 @@ public class UploadStateHolder implements Runnable {
         this.asyncLifecycle = asyncLifecycle;
     }
         
-    public String getIframeContent() {
+    public synchronized String getIframeContent() {
         return iframeContent;
     }
     
-    public void setIframeContent(String iframeContent) {
+    public synchronized void setIframeContent(String iframeContent) {
         this.iframeContent = iframeContent;
+        notifyAll();
+    }
+
+    /**
+     * Mark the end of the lifecycle started for this state, whether it
+     * rendered the IFRAME content or not
+     */
+    public synchronized void lifecycleDone() {
+        lifecycleDone = true;
+        notifyAll();
+    }
+
+    public synchronized boolean isLifecycleDone() {
+        return lifecycleDone;
+    }
+
+    /**
+     * Wait for the lifecycle, possibly running on another thread, to render
+     * the IFRAME content
+     *
+     * @param timeout maximum time to wait, in milliseconds
+     * @return the IFRAME content, or null if the lifecycle ended without 
+     * rendering it or if the timeout elapsed
+     */
+    public synchronized String waitForIframeContent(long timeout)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (iframeContent == null && !lifecycleDone) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            wait(remaining);
+        }
+        return iframeContent;
     }
 
     /**
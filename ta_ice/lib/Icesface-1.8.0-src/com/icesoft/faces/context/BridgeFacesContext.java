@@ -45,11 +45,8 @@ import com.icesoft.faces.webapp.http.servlet.ServletExternalContext;
 import com.icesoft.faces.webapp.http.servlet.SessionDispatcher;
 import com.icesoft.faces.webapp.parser.ImplementationUtil;
 import com.icesoft.jasper.Constants;
-import com.sun.xml.fastinfoset.dom.DOMDocumentParser;
-import com.sun.xml.fastinfoset.dom.DOMDocumentSerializer;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.jvnet.fastinfoset.FastInfosetException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.Element;
@@ -72,8 +69,6 @@ import javax.faces.render.RenderKit;
 import javax.faces.render.RenderKitFactory;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
@@ -108,6 +103,9 @@ public class BridgeFacesContext extends FacesContext implements ResourceRegistry
     private String blockingRequestHandlerContext;
     private ELContext elContext;
     private DocumentStore documentStore;
+    //form elements of the rendered document, when the store keeps it as is
+    private FormElementIndex formElementIndex;
+    private boolean keyedDOMDiff;
     private String lastViewID;
     boolean retainViewRoot;
 
@@ -147,7 +145,9 @@ public class BridgeFacesContext extends FacesContext implements ResourceRegistry
         this.application = ((ApplicationFactory) FactoryFinder.getFactory(FactoryFinder.APPLICATION_FACTORY)).getApplication();
         this.resourceDispatcher = resourceDispatcher;
         this.blockingRequestHandlerContext = blockingRequestHandlerContext;
-        this.documentStore = configuration.getAttributeAsBoolean("compressDOM", false) ? new FastInfosetDocumentStore() : (DocumentStore) new ReferenceDocumentStore();
+        this.documentStore = newDocumentStore(configuration);
+        //the keyed diff is opt-in, the positional diff stays the default
+        this.keyedDOMDiff = configuration.getAttributeAsBoolean("keyedDOMDiff", false);
         this.switchToNormalMode();
     }
 
@@ -294,7 +294,7 @@ public class BridgeFacesContext extends FacesContext implements ResourceRegistry
         //collect bundles put by Tag components when the page is parsed
         bundles = externalContext.collectBundles();
         externalContext.switchToPushMode();
-        domSerializer = new SaveCurrentDocument(new PushModeSerializer(documentStore, view, this, viewNumber));
+        domSerializer = new SaveCurrentDocument(new PushModeSerializer(documentStore, view, this, viewNumber, keyedDOMDiff));
     }
 
     public UIViewRoot getViewRoot() {
@@ -424,123 +424,141 @@ public class BridgeFacesContext extends FacesContext implements ResourceRegistry
 
     public void dispose() {
         externalContext.dispose();
+        documentStore.dispose();
     }
 
     public void applyBrowserDOMChanges() throws IOException {
         Document document = documentStore.load();
         if (document == null) return;
-        Map parameters = externalContext.getRequestParameterValuesMap();
-
-        NodeList inputElements = document.getElementsByTagName("input");
-        int inputElementsLength = inputElements.getLength();
-        for (int i = 0; i < inputElementsLength; i++) {
-            Element inputElement = (Element) inputElements.item(i);
-            String id = inputElement.getAttribute("id");
-            if (!"".equals(id)) {
-                String name = null;
-                if (parameters.containsKey(id)) {
-                    String value = ((String[]) parameters.get(id))[0];
-                    //empty string is implied (default) when 'value' attribute is missing
-                    if (!"".equals(value)) {
-                        if (inputElement.hasAttribute("value")) {
-                            inputElement.setAttribute("value", value);
+
+        //stores that do not keep the rendered document decode a new one on load
+        FormElementIndex index = formElementIndex;
+        if (index == null || !index.indexes(document)) {
+            index = new FormElementIndex(document);
+        }
+        applyBrowserDOMChanges(document, externalContext.getRequestParameterValuesMap(), index);
+        documentStore.cache(document);
+    }
+
+    /**
+     * Apply the submitted parameters to the form elements of the document.
+     *
+     * @param index the index of the form elements of the document
+     */
+    static void applyBrowserDOMChanges(Document document, Map parameters, FormElementIndex index) {
+        //only the elements named by the submitted parameters can change, and
+        //the checkboxes since these are not submitted when unchecked
+        Set inputElements = new HashSet(index.getCheckboxes());
+        Iterator names = parameters.keySet().iterator();
+        while (names.hasNext()) {
+            String name = (String) names.next();
+            String[] values = (String[]) parameters.get(name);
+            inputElements.addAll(index.getInputsById(name));
+            inputElements.addAll(index.getInputsByName(name));
+
+            Iterator textareaElements = index.getTextareasById(name).iterator();
+            while (textareaElements.hasNext()) {
+                applyTextareaChange(document, (Element) textareaElements.next(), values[0]);
+            }
+            Iterator selectElements = index.getSelectsById(name).iterator();
+            while (selectElements.hasNext()) {
+                applySelectChange((Element) selectElements.next(), Arrays.asList(values));
+            }
+        }
+
+        Iterator i = inputElements.iterator();
+        while (i.hasNext()) {
+            applyInputChange((Element) i.next(), parameters);
+        }
+    }
+
+    private static void applyInputChange(Element inputElement, Map parameters) {
+        String id = inputElement.getAttribute("id");
+        String name = null;
+        if (parameters.containsKey(id)) {
+            String value = ((String[]) parameters.get(id))[0];
+            //empty string is implied (default) when 'value' attribute is missing
+            if (!"".equals(value)) {
+                if (inputElement.hasAttribute("value")) {
+                    inputElement.setAttribute("value", value);
+                }
+                else if (inputElement.getAttribute("type").equals("checkbox")) {
+                    inputElement.setAttribute("checked", "checked");
+                }
+            }
+            else {
+                inputElement.setAttribute("value", "");
+            }
+        }
+        else if (!"".equals(name = inputElement.getAttribute("name")) && parameters.containsKey(name)) {
+            String type = inputElement.getAttribute("type");
+            if (type != null && type.equals("checkbox") || type.equals("radio")) {
+                String currValue = inputElement.getAttribute("value");
+                if (!"".equals(currValue)) {
+                    boolean found = false;
+                    // For multiple checkboxes, values can have length > 1,
+                    // but for multiple radios, values would have at most length=1
+                    String[] values = (String[]) parameters.get(name);
+                    if (values != null) {
+                        for(int v = 0; v < values.length; v++) {
+                            if (currValue.equals(values[v])) {
+                                found = true;
+                                break;
+                            }
                         }
-                        else if (inputElement.getAttribute("type").equals("checkbox")) {
+                    }
+                    if (found) {
+                        // For some reason, our multiple checkbox 
+                        // components use checked="true", while
+                        // our single checkbox components use
+                        // checked="checked". The latter complying
+                        // with the HTML specification.
+                        // Also, radios use checked="checked"
+                        if (type.equals("checkbox")) {
+                            inputElement.setAttribute("checked", "true");
+                        }
+                        else if (type.equals("radio")) {
                             inputElement.setAttribute("checked", "checked");
                         }
                     }
                     else {
-                        inputElement.setAttribute("value", "");
-                    }
-                }
-                else if (!"".equals(name = inputElement.getAttribute("name")) && parameters.containsKey(name)) {
-                    String type = inputElement.getAttribute("type");
-                    if (type != null && type.equals("checkbox") || type.equals("radio")) {
-                        String currValue = inputElement.getAttribute("value");
-                        if (!"".equals(currValue)) {
-                            boolean found = false;
-                            // For multiple checkboxes, values can have length > 1,
-                            // but for multiple radios, values would have at most length=1
-                            String[] values = (String[]) parameters.get(name);
-                            if (values != null) {
-                                for(int v = 0; v < values.length; v++) {
-                                    if (currValue.equals(values[v])) {
-                                        found = true;
-                                        break;
-                                    }
-                                }
-                            }
-                            if (found) {
-                                // For some reason, our multiple checkbox 
-                                // components use checked="true", while
-                                // our single checkbox components use
-                                // checked="checked". The latter complying
-                                // with the HTML specification.
-                                // Also, radios use checked="checked"
-                                if (type.equals("checkbox")) {
-                                    inputElement.setAttribute("checked", "true");
-                                }
-                                else if (type.equals("radio")) {
-                                    inputElement.setAttribute("checked", "checked");
-                                }
-                            }
-                            else {
-                                inputElement.removeAttribute("checked");
-                            }
-                        }
-                    }
-                }
-                else {
-                    if (inputElement.getAttribute("type").equals("checkbox")) {
-                        ////inputElement.setAttribute("checked", "");
                         inputElement.removeAttribute("checked");
                     }
                 }
             }
         }
-
-        NodeList textareaElements = document.getElementsByTagName("textarea");
-        int textareaElementsLength = textareaElements.getLength();
-        for (int i = 0; i < textareaElementsLength; i++) {
-            Element textareaElement = (Element) textareaElements.item(i);
-            String id = textareaElement.getAttribute("id");
-            if (!"".equals(id) && parameters.containsKey(id)) {
-                String value = ((String[]) parameters.get(id))[0];
-                Node firstChild = textareaElement.getFirstChild();
-                if (null != firstChild)  {
-                    //set value on the Text node
-                    firstChild.setNodeValue(value);
-                } else {
-                    //DOM brought back from compression may have no
-                    //child for empty TextArea
-                    textareaElement.appendChild(document.createTextNode(value));
-                }
-                
+        else {
+            if (inputElement.getAttribute("type").equals("checkbox")) {
+                ////inputElement.setAttribute("checked", "");
+                inputElement.removeAttribute("checked");
             }
         }
+    }
 
-        NodeList selectElements = document.getElementsByTagName("select");
-        int selectElementsLength = selectElements.getLength();
-        for (int i = 0; i < selectElementsLength; i++) {
-            Element selectElement = (Element) selectElements.item(i);
-            String id = selectElement.getAttribute("id");
-            if (!"".equals(id) && parameters.containsKey(id)) {
-                List values = Arrays.asList((String[]) parameters.get(id));
-
-                NodeList optionElements =
-                        selectElement.getElementsByTagName("option");
-                int optionElementsLength = optionElements.getLength();
-                for (int j = 0; j < optionElementsLength; j++) {
-                    Element optionElement = (Element) optionElements.item(j);
-                    if (values.contains(optionElement.getAttribute("value"))) {
-                        optionElement.setAttribute("selected", "selected");
-                    } else {
-                        optionElement.removeAttribute("selected");
-                    }
-                }
+    private static void applyTextareaChange(Document document, Element textareaElement, String value) {
+        Node firstChild = textareaElement.getFirstChild();
+        if (null != firstChild)  {
+            //set value on the Text node
+            firstChild.setNodeValue(value);
+        } else {
+            //DOM brought back from compression may have no
+            //child for empty TextArea
+            textareaElement.appendChild(document.createTextNode(value));
+        }
+    }
+
+    private static void applySelectChange(Element selectElement, List values) {
+        NodeList optionElements =
+                selectElement.getElementsByTagName("option");
+        int optionElementsLength = optionElements.getLength();
+        for (int j = 0; j < optionElementsLength; j++) {
+            Element optionElement = (Element) optionElements.item(j);
+            if (values.contains(optionElement.getAttribute("value"))) {
+                optionElement.setAttribute("selected", "selected");
+            } else {
+                optionElement.removeAttribute("selected");
             }
         }
-        documentStore.cache(document);
     }
 
     public URI loadJavascriptCode(final Resource resource) {
@@ -792,6 +810,33 @@ public class BridgeFacesContext extends FacesContext implements ResourceRegistry
         }
     }
 
+    /**
+     * Select the store keeping the last rendered document of the view. A
+     * custom implementation can be plugged in by naming its class with the
+     * 'documentStore' parameter.
+     */
+    private static DocumentStore newDocumentStore(Configuration configuration) {
+        String storeClass = configuration.getAttribute("documentStore", null);
+        if (storeClass != null) {
+            try {
+                return (DocumentStore) Class.forName(storeClass).newInstance();
+            } catch (Exception e) {
+                log.error("Cannot instantiate document store " + storeClass + ", keeping the documents in memory", e);
+                return new ReferenceDocumentStore();
+            }
+        }
+
+        boolean offHeap = configuration.getAttributeAsBoolean("compressDOMOffHeap", false);
+        int liveDocuments = configuration.getAttributeAsInteger("compressIdleDOMs", 0);
+        if (liveDocuments > 0) {
+            return new SpillingDocumentStore(liveDocuments, offHeap);
+        } else if (configuration.getAttributeAsBoolean("compressDOM", false)) {
+            return new CompressedDocumentStore(offHeap);
+        } else {
+            return new ReferenceDocumentStore();
+        }
+    }
+
     public static interface DocumentStore {
         void save(Document document) throws IOException;
 
@@ -801,6 +846,10 @@ public class BridgeFacesContext extends FacesContext implements ResourceRegistry
         void cache(Document document) throws IOException;
 
         Document load() throws IOException;
+
+        /* Release the kept document, the view is not rendered anymore
+        */
+        void dispose();
     }
 
     private static class ReferenceDocumentStore implements DocumentStore {
@@ -817,42 +866,10 @@ public class BridgeFacesContext extends FacesContext implements ResourceRegistry
         public Document load() {
             return document;
         }
-    }
-
-    private static class FastInfosetDocumentStore implements DocumentStore {
-        private byte[] data = new byte[0];
-        private Document document = null;
 
-        public void save(Document document) throws IOException {
-            DOMDocumentSerializer serializer = new DOMDocumentSerializer();
-            ByteArrayOutputStream out = new ByteArrayOutputStream(10000);
-            serializer.setOutputStream(out);
-            serializer.serialize(document);
-            data = out.toByteArray();
+        public void dispose() {
             this.document = null;
         }
-
-        public void cache(Document document)  {
-            this.document = document;
-        }
-
-        public Document load() throws IOException {
-            if (null != document)  {
-                return document;
-            }
-            if (data.length == 0) return null;
-
-            Document document = DOMResponseWriter.DOCUMENT_BUILDER.newDocument();
-            try {
-                DOMDocumentParser parser = new DOMDocumentParser();
-                ByteArrayInputStream in = new ByteArrayInputStream(data);
-                parser.parse(document, in);
-            } catch (FastInfosetException e) {
-                throw new IOException(e.getMessage());
-            }
-
-            return document;
-        }
     }
 
     private class SaveCurrentDocument implements DOMSerializer {
@@ -865,6 +882,9 @@ public class BridgeFacesContext extends FacesContext implements ResourceRegistry
         public void serialize(Document document) throws IOException {
             serializer.serialize(document);
             documentStore.save(document);
+            //the other stores give back a new document, indexing it now would also keep it in memory
+            formElementIndex = documentStore instanceof ReferenceDocumentStore ?
+                    new FormElementIndex(document) : null;
         }
     }
 
@@ -0,0 +1,104 @@
+package com.icesoft.faces.context;
+
+import com.sun.xml.fastinfoset.dom.DOMDocumentParser;
+import com.sun.xml.fastinfoset.dom.DOMDocumentSerializer;
+import org.jvnet.fastinfoset.FastInfosetException;
+import org.w3c.dom.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Keeps the last rendered document encoded as Fast Infoset and deflated,
+ * optionally outside of the Java heap. The document is decoded again when
+ * the next render needs to be compared against it.
+ */
+public class CompressedDocumentStore implements BridgeFacesContext.DocumentStore {
+    private final boolean offHeap;
+    private byte[] data;
+    private ByteBuffer offHeapData;
+    private Document document;
+
+    public CompressedDocumentStore(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    public synchronized void save(Document document) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(10000);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out, deflater);
+            DOMDocumentSerializer serializer = new DOMDocumentSerializer();
+            serializer.setOutputStream(deflaterOut);
+            serializer.serialize(document);
+            deflaterOut.finish();
+        } finally {
+            deflater.end();
+        }
+
+        if (offHeap) {
+            byte[] bytes = out.toByteArray();
+            if (offHeapData == null || offHeapData.capacity() < bytes.length) {
+                offHeapData = ByteBuffer.allocateDirect(bytes.length);
+            }
+            offHeapData.clear();
+            offHeapData.put(bytes);
+            offHeapData.flip();
+        } else {
+            data = out.toByteArray();
+        }
+        this.document = null;
+    }
+
+    public synchronized void cache(Document document) {
+        this.document = document;
+    }
+
+    public synchronized Document load() throws IOException {
+        if (null != document) {
+            return document;
+        }
+        byte[] bytes = encodedDocument();
+        if (bytes == null) {
+            return null;
+        }
+
+        Document document = DOMResponseWriter.DOCUMENT_BUILDER.newDocument();
+        Inflater inflater = new Inflater();
+        try {
+            DOMDocumentParser parser = new DOMDocumentParser();
+            parser.parse(document, new InflaterInputStream(new ByteArrayInputStream(bytes), inflater));
+        } catch (FastInfosetException e) {
+            throw new IOException(e.getMessage());
+        } finally {
+            inflater.end();
+        }
+
+        return document;
+    }
+
+    public synchronized void dispose() {
+        data = null;
+        offHeapData = null;
+        document = null;
+    }
+
+    private byte[] encodedDocument() {
+        if (offHeap) {
+            if (offHeapData == null) {
+                return null;
+            }
+            byte[] bytes = new byte[offHeapData.remaining()];
+            offHeapData.duplicate().get(bytes);
+            return bytes;
+        } else {
+            return data;
+        }
+    }
+}
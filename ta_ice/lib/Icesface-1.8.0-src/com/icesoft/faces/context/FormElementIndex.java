@@ -0,0 +1,106 @@
+package com.icesoft.faces.context;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the form elements of a rendered document, so that the submitted
+ * values can be applied to the document by looking up the submitted
+ * parameters instead of visiting every form element of the page.
+ * <p/>
+ * Only the elements having an id are indexed, the others never receive
+ * submitted values.
+ */
+class FormElementIndex {
+    private final Document document;
+    private final Map inputsById = new HashMap();
+    private final Map inputsByName = new HashMap();
+    private final List checkboxes = new ArrayList();
+    private final Map textareasById = new HashMap();
+    private final Map selectsById = new HashMap();
+
+    FormElementIndex(Document document) {
+        this.document = document;
+
+        NodeList inputElements = document.getElementsByTagName("input");
+        int inputElementsLength = inputElements.getLength();
+        for (int i = 0; i < inputElementsLength; i++) {
+            Element inputElement = (Element) inputElements.item(i);
+            String id = inputElement.getAttribute("id");
+            if (!"".equals(id)) {
+                add(inputsById, id, inputElement);
+                String name = inputElement.getAttribute("name");
+                if (!"".equals(name)) {
+                    add(inputsByName, name, inputElement);
+                }
+                //unchecked checkboxes are not submitted at all
+                if ("checkbox".equals(inputElement.getAttribute("type"))) {
+                    checkboxes.add(inputElement);
+                }
+            }
+        }
+        index(document, "textarea", textareasById);
+        index(document, "select", selectsById);
+    }
+
+    /**
+     * @return true if this index was built for the given document instance
+     */
+    boolean indexes(Document document) {
+        return this.document == document;
+    }
+
+    List getInputsById(String id) {
+        return get(inputsById, id);
+    }
+
+    List getInputsByName(String name) {
+        return get(inputsByName, name);
+    }
+
+    List getCheckboxes() {
+        return checkboxes;
+    }
+
+    List getTextareasById(String id) {
+        return get(textareasById, id);
+    }
+
+    List getSelectsById(String id) {
+        return get(selectsById, id);
+    }
+
+    private static void index(Document document, String tagName, Map elementsById) {
+        NodeList elements = document.getElementsByTagName(tagName);
+        int elementsLength = elements.getLength();
+        for (int i = 0; i < elementsLength; i++) {
+            Element element = (Element) elements.item(i);
+            String id = element.getAttribute("id");
+            if (!"".equals(id)) {
+                add(elementsById, id, element);
+            }
+        }
+    }
+
+    private static void add(Map elements, String key, Element element) {
+        List list = (List) elements.get(key);
+        if (list == null) {
+            //ids are expected to be unique
+            list = new ArrayList(1);
+            elements.put(key, list);
+        }
+        list.add(element);
+    }
+
+    private static List get(Map elements, String key) {
+        List list = (List) elements.get(key);
+        return list == null ? Collections.EMPTY_LIST : list;
+    }
+}
@@ -1,10 +1,12 @@
 package com.icesoft.faces.context;
 
 import com.icesoft.faces.util.DOMUtils;
+import com.icesoft.faces.util.KeyedDOMDiff;
 import com.icesoft.faces.webapp.command.Reload;
 import com.icesoft.faces.webapp.command.UpdateElements;
 import com.icesoft.faces.webapp.http.common.Response;
 import com.icesoft.faces.webapp.http.common.standard.NoCacheContentHandler;
+import com.icesoft.util.metrics.PushMetrics;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -22,16 +24,46 @@ public class PushModeSerializer implements DOMSerializer {
     private View view;
     private BridgeFacesContext context;
     private String viewNumber;
+    private boolean keyedDiff;
 
     public PushModeSerializer(BridgeFacesContext.DocumentStore store, View view, BridgeFacesContext context, String viewNumber) {
+        this(store, view, context, viewNumber, false);
+    }
+
+    public PushModeSerializer(BridgeFacesContext.DocumentStore store, View view, BridgeFacesContext context, String viewNumber, boolean keyedDiff) {
         this.store = store;
         this.view = view;
         this.context = context;
         this.viewNumber = viewNumber;
+        this.keyedDiff = keyedDiff;
     }
 
     public void serialize(final Document document) throws IOException {
-        Node[] changed = DOMUtils.domDiff(store.load(), document);
+        long start = PushMetrics.start();
+        Element[] elements = keyedDiff ?
+                KeyedDOMDiff.diff(store.load(), document) :
+                diff(store.load(), document);
+        PushMetrics.record(PushMetrics.DOMDiff, start);
+
+        if (elements.length > 0) {
+            boolean reload = false;
+            for (int i = 0; i < elements.length; i++) {
+                String tag = elements[i].getTagName();
+                //send reload command if 'html', 'body', or 'head' elements need to be updated (see: ICE-3063)
+                reload = reload || "html".equalsIgnoreCase(tag) || "head".equalsIgnoreCase(tag);
+            }
+            if (reload) {
+                //reload document instead of applying an update for the entire page (see: ICE-2189)
+                view.preparePage(new PreparedPage(document));
+                view.put(new Reload(viewNumber));
+            } else {
+                view.put(new UpdateElements(elements));
+            }
+        }
+    }
+
+    private Element[] diff(Document oldDocument, Document newDocument) {
+        Node[] changed = DOMUtils.domDiff(oldDocument, newDocument);
         HashMap depthMaps = new HashMap();
         for (int i = 0; i < changed.length; i++) {
             Element changeRoot =
@@ -68,33 +100,20 @@ public class PushModeSerializer implements DOMSerializer {
             topElements.addAll((HashSet) allDepthMaps.next());
         }
 
-        if (!topElements.isEmpty()) {
-            boolean reload = false;
-            int j = 0;
-            Element[] elements = new Element[topElements.size()];
-            HashSet dupCheck = new HashSet();
-            //copy the succsessful changed elements and check for change
-            //to head or body
-            for (int i = 0; i < changed.length; i++) {
-                Element element = (Element) changed[i];
-                String tag = element.getTagName();
-                //send reload command if 'html', 'body', or 'head' elements need to be updated (see: ICE-3063)
-                reload = reload || "html".equalsIgnoreCase(tag) || "head".equalsIgnoreCase(tag);
-                if (topElements.contains(element)) {
-                    if (!dupCheck.contains(element)) {
-                        dupCheck.add(element);
-                        elements[j++] = element;
-                    }
+        int j = 0;
+        Element[] elements = new Element[topElements.size()];
+        HashSet dupCheck = new HashSet();
+        //copy the succsessful changed elements preserving document order
+        for (int i = 0; i < changed.length; i++) {
+            Element element = (Element) changed[i];
+            if (topElements.contains(element)) {
+                if (!dupCheck.contains(element)) {
+                    dupCheck.add(element);
+                    elements[j++] = element;
                 }
             }
-            if (reload) {
-                //reload document instead of applying an update for the entire page (see: ICE-2189)
-                view.preparePage(new PreparedPage(document));
-                view.put(new Reload(viewNumber));
-            } else {
-                view.put(new UpdateElements(elements));
-            }
         }
+        return elements;
     }
 
     //prune the children by looking for ancestors in the parents collection 
@@ -0,0 +1,134 @@
+package com.icesoft.faces.context;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.w3c.dom.Document;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Keeps the documents of the most recently used views as they are, and
+ * spills the documents of the idle views into a {@link CompressedDocumentStore}.
+ * The limit on the number of documents kept as they are applies to all the
+ * views of the application.
+ * <p/>
+ * A document handed out by {@link #load()} is in use by the thread of its
+ * view until it is saved or cached again, and is not spilled in between since
+ * the DOM cannot be encoded while being diffed or modified. The encoded copy
+ * is released once it is decoded, the document is encoded again when spilled.
+ */
+public class SpillingDocumentStore implements BridgeFacesContext.DocumentStore {
+    private static final Log log = LogFactory.getLog(SpillingDocumentStore.class);
+    //stores holding a document, in access order
+    private static final LinkedHashMap LiveStores = new LinkedHashMap(16, 0.75f, true);
+    private final int maxLiveDocuments;
+    private final CompressedDocumentStore spilled;
+    private Document document;
+    private volatile boolean checkedOut;
+
+    public SpillingDocumentStore(int maxLiveDocuments, boolean offHeap) {
+        this.maxLiveDocuments = maxLiveDocuments;
+        this.spilled = new CompressedDocumentStore(offHeap);
+    }
+
+    public void save(Document document) {
+        synchronized (this) {
+            this.document = document;
+            checkedOut = false;
+        }
+        touch();
+    }
+
+    public void cache(Document document) {
+        save(document);
+    }
+
+    public Document load() throws IOException {
+        Document loadedDocument;
+        synchronized (this) {
+            if (document == null) {
+                document = spilled.load();
+                if (document != null) {
+                    spilled.dispose();
+                }
+            }
+            loadedDocument = document;
+            checkedOut = loadedDocument != null;
+        }
+        if (loadedDocument != null) {
+            touch();
+        }
+        return loadedDocument;
+    }
+
+    /**
+     * Forget the view's document, including the slot it takes among the live
+     * documents, whether it is checked out or not.
+     */
+    public void dispose() {
+        synchronized (LiveStores) {
+            LiveStores.remove(this);
+        }
+        synchronized (this) {
+            document = null;
+            checkedOut = false;
+            spilled.dispose();
+        }
+    }
+
+    /**
+     * @return false if the document is in use and was not spilled
+     */
+    private synchronized boolean spill() throws IOException {
+        if (checkedOut) {
+            return false;
+        }
+        if (document != null) {
+            spilled.save(document);
+            document = null;
+        }
+        return true;
+    }
+
+    private void touch() {
+        List idleStores = new ArrayList();
+        synchronized (LiveStores) {
+            LiveStores.put(this, this);
+            int liveStores = LiveStores.size();
+            Iterator i = LiveStores.keySet().iterator();
+            while (liveStores > maxLiveDocuments && i.hasNext()) {
+                SpillingDocumentStore store = (SpillingDocumentStore) i.next();
+                //the documents in use stay live, they are spilled once saved again and idle
+                //checkedOut is volatile, the store's lock is not taken while holding LiveStores
+                if (!store.checkedOut) {
+                    idleStores.add(store);
+                    i.remove();
+                    liveStores--;
+                }
+            }
+        }
+        //spill outside the lock, encoding can take a while for large documents
+        Iterator i = idleStores.iterator();
+        while (i.hasNext()) {
+            SpillingDocumentStore store = (SpillingDocumentStore) i.next();
+            boolean spilled = false;
+            try {
+                spilled = store.spill();
+            } catch (IOException e) {
+                log.warn("Failed to spill idle document", e);
+            } catch (RuntimeException e) {
+                log.warn("Failed to spill idle document", e);
+            }
+            if (!spilled) {
+                //checked out meanwhile, or not encodable, keep it live
+                synchronized (LiveStores) {
+                    LiveStores.put(store, store);
+                }
+            }
+        }
+    }
+}
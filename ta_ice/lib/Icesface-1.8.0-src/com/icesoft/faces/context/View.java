@@ -17,6 +17,7 @@ import com.icesoft.faces.webapp.http.servlet.SessionDispatcher;
 import com.icesoft.faces.webapp.parser.ImplementationUtil;
 import com.icesoft.faces.webapp.xmlhttp.PersistentFacesState;
 import com.icesoft.util.SeamUtilities;
+import com.icesoft.util.metrics.PushMetrics;
 import edu.emory.mathcs.backport.java.util.concurrent.locks.ReentrantLock;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -27,6 +28,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class View implements CommandQueue {
 
@@ -73,7 +77,12 @@ public class View implements CommandQueue {
         }
     };
     private Page page = lifecycleExecutedPage;
-    private final ReentrantLock queueLock = new ReentrantLock();
+    //commands put since the last coalescing, newest first
+    private final AtomicReference queuedCommands = new AtomicReference();
+    //held by the thread coalescing the queued commands into currentCommand
+    private final AtomicBoolean coalescing = new AtomicBoolean(false);
+    //when the first of the commands not yet taken was put, for measuring the render to client latency
+    private final AtomicLong firstPut = new AtomicLong(0);
     private final ReentrantLock lifecycleLock = new ReentrantLock();
     private BridgeFacesContext facesContext;
     private PersistentFacesState persistentFacesState;
@@ -138,11 +147,20 @@ public class View implements CommandQueue {
     }
 
     public void put(Command command) {
-        queueLock.lock();
-        try {
-            currentCommand = currentCommand.coalesceWithNext(command);
-        } finally {
-            queueLock.unlock();
+        QueuedCommand head;
+        do {
+            head = (QueuedCommand) queuedCommands.get();
+        } while (!queuedCommands.compareAndSet(head, new QueuedCommand(command, head)));
+        if (firstPut.get() == 0) {
+            firstPut.compareAndSet(0, PushMetrics.start());
+        }
+        //coalesce right away unless another thread is already doing it, in which case that thread picks up the command
+        while (queuedCommands.get() != null && coalescing.compareAndSet(false, true)) {
+            try {
+                coalesceQueuedCommands();
+            } finally {
+                coalescing.set(false);
+            }
         }
         try {
             allServedViews.put(viewIdentifier);
@@ -152,15 +170,34 @@ public class View implements CommandQueue {
     }
 
     public Command take() {
-        Command command = null;
-        queueLock.lock();
+        //wait only for a coalescing step that is already in progress
+        while (!coalescing.compareAndSet(false, true)) {
+            Thread.yield();
+        }
         try {
-            command = currentCommand;
+            coalesceQueuedCommands();
+            Command command = currentCommand;
             currentCommand = NOOP;
+            PushMetrics.record(PushMetrics.RenderToClient, firstPut.getAndSet(0));
+            return command;
         } finally {
-            queueLock.unlock();
+            coalescing.set(false);
+        }
+    }
+
+    private void coalesceQueuedCommands() {
+        QueuedCommand queued = (QueuedCommand) queuedCommands.getAndSet(null);
+        //restore the order in which the commands were put
+        QueuedCommand first = null;
+        while (queued != null) {
+            QueuedCommand next = queued.next;
+            queued.next = first;
+            first = queued;
+            queued = next;
+        }
+        for (QueuedCommand i = first; i != null; i = i.next) {
+            currentCommand = currentCommand.coalesceWithNext(i.command);
         }
-        return command;
     }
 
     public void release() {
@@ -274,4 +311,14 @@ public class View implements CommandQueue {
     private interface Page {
         void serve(Request request) throws Exception;
     }
+
+    private static class QueuedCommand {
+        private final Command command;
+        private QueuedCommand next;
+
+        private QueuedCommand(Command command, QueuedCommand next) {
+            this.command = command;
+            this.next = next;
+        }
+    }
 }
@@ -134,7 +134,7 @@ public class DOMUtils {
                     writer.write(" ");
                     writer.write(current.getNodeName());
                     writer.write("=\"");
-                    writer.write(escapeAnsi(current.getNodeValue()));
+                    escapeAnsi(current.getNodeValue(), writer);
                     writer.write("\"");
                 }
 
@@ -423,38 +423,75 @@ public class DOMUtils {
         if (null == text) {
             return "";
         }
-        char[] chars = text.toCharArray();
-        StringBuffer buffer = new StringBuffer(chars.length);
-        for (int index = 0; index < chars.length; index++) {
-            char ch = chars[index];
+        StringWriter writer = new StringWriter(text.length());
+        try {
+            escapeAnsi(text, writer);
+        } catch (IOException e) {
+            //StringWriter does not throw
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Write the text escaped like {@link #escapeAnsi(String)} does, without
+     * creating an intermediary copy. The runs of characters that need no
+     * escaping are written in one go.
+     *
+     * @param text
+     * @param writer
+     * @throws IOException
+     */
+    public static void escapeAnsi(String text, Writer writer) throws IOException {
+        if (null == text) {
+            return;
+        }
+        int length = text.length();
+        int start = 0;
+        for (int index = 0; index < length; index++) {
+            char ch = text.charAt(index);
+            String replacement;
             //see: http://www.w3schools.com/tags/ref_ascii.asp
             if (ch <= 31) {
                 if (ch == '\t' || ch == '\n' || ch == '\r') {
-                    buffer.append(ch);
+                    continue;
                 }
                 //skip any other control character
+                replacement = "";
             } else if (ch == 127) {
                 //skip 'escape' character
+                replacement = "";
             } else if (ch == '>') {
-                buffer.append("&gt;");
+                replacement = "&gt;";
             } else if (ch == '<') {
-                buffer.append("&lt;");
+                replacement = "&lt;";
             } else if (ch == '&') {
-                buffer.append("&amp;");
+                replacement = "&amp;";
             } else if (ch == '\'') {
-                buffer.append("&#39;");
+                replacement = "&#39;";
             } else if (ch == '"') {
-                buffer.append("&quot;");
+                replacement = "&quot;";
             } else if (ch >= 0xA0 && ch <= 0xff) {
-                buffer.append("&").append(escapeAnsi(ch)).append(";");
+                replacement = null;
             } else if (ch == 0x20AC) {//special case for euro symbol
-                buffer.append("&euro;");
+                replacement = "&euro;";
             } else {
-                buffer.append(ch);
+                continue;
             }
+            if (index > start) {
+                writer.write(text, start, index - start);
+            }
+            if (replacement == null) {
+                writer.write('&');
+                writer.write(escapeAnsi(ch));
+                writer.write(';');
+            } else {
+                writer.write(replacement);
+            }
+            start = index + 1;
+        }
+        if (length > start) {
+            writer.write(text, start, length - start);
         }
-
-        return buffer.toString();
     }
 
     /**
@@ -0,0 +1,118 @@
+package com.icesoft.faces.util;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single pass alternative to {@link DOMUtils#domDiff(Document, Document)}.
+ * <p/>
+ * Both documents are walked once, in document order, while tracking the
+ * closest element carrying an <code>id</code> attribute. A difference is
+ * immediately attributed to that element, which becomes an update root; the
+ * rest of its subtree is then skipped since the whole element is going to be
+ * re-rendered anyway. Roots are collected in document order so when an
+ * element is claimed as root the roots found inside it are always the last
+ * ones collected and can be dropped on the spot, thus no ancestor pruning is
+ * required afterwards.
+ * <p/>
+ * The comparison rules are the same as the ones used by
+ * {@link DOMUtils#compareNodes(List, Node, Node)}, so the set of updated
+ * elements is identical to the one obtained by ascending each difference to
+ * its closest element with an id and pruning nested results.
+ */
+public class KeyedDOMDiff {
+
+    /**
+     * Determine the top-most elements with an id in newDOM that contain all
+     * the differences from oldDOM.
+     *
+     * @param oldDOM original dom Document
+     * @param newDOM changed dom Document
+     * @return the update roots, in document order
+     */
+    public static Element[] diff(Document oldDOM, Document newDOM) {
+        List roots = new ArrayList();
+        Element documentElement = newDOM.getDocumentElement();
+        //differences not enclosed by an element with an id update the whole document
+        Element pending = compare(roots, oldDOM.getDocumentElement(), documentElement, documentElement);
+        if (pending != null) {
+            roots.clear();
+            roots.add(pending);
+        }
+        return (Element[]) roots.toArray(new Element[roots.size()]);
+    }
+
+    /**
+     * @param roots     collects the update roots
+     * @param oldNode
+     * @param newNode
+     * @param idAncestor closest ancestor of newNode that has an id
+     * @return the root that still needs to be claimed by one of the ancestors of
+     *         newNode, or null when no difference is pending
+     */
+    private static Element compare(List roots, Node oldNode, Node newNode, Element idAncestor) {
+        if (!oldNode.getNodeName().equals(newNode.getNodeName())) {
+            //parent node needs to fix this
+            return idAncestor;
+        }
+
+        String newID = null;
+        if (newNode.getNodeType() == Node.ELEMENT_NODE) {
+            newID = ((Element) newNode).getAttribute("id");
+            if (!newID.equals(((Element) oldNode).getAttribute("id"))) {
+                //parent node needs to fix this
+                return idAncestor;
+            }
+        }
+        Element self = newID == null || "".equals(newID) ? null : (Element) newNode;
+        Element candidate = self == null ? idAncestor : self;
+        int mark = roots.size();
+
+        if (!DOMUtils.compareAttributes(oldNode, newNode) ||
+                !equal(oldNode.getNodeValue(), newNode.getNodeValue()) ||
+                countChildren(oldNode) != countChildren(newNode)) {
+            return claim(roots, mark, candidate, self);
+        }
+
+        Node oldChild = oldNode.getFirstChild();
+        Node newChild = newNode.getFirstChild();
+        while (newChild != null) {
+            Element pending = compare(roots, oldChild, newChild, candidate);
+            if (pending != null) {
+                return claim(roots, mark, pending, self);
+            }
+            oldChild = oldChild.getNextSibling();
+            newChild = newChild.getNextSibling();
+        }
+
+        return null;
+    }
+
+    private static Element claim(List roots, int mark, Element root, Element self) {
+        if (root == self) {
+            //drop the roots found earlier inside this element
+            roots.subList(mark, roots.size()).clear();
+            roots.add(root);
+            return null;
+        } else {
+            //defer to the ancestor owning the id
+            return root;
+        }
+    }
+
+    private static int countChildren(Node node) {
+        int count = 0;
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
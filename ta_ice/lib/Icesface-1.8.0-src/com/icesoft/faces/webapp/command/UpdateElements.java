@@ -7,41 +7,40 @@ import org.w3c.dom.NamedNodeMap;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.regex.Pattern;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class UpdateElements extends AbstractCommand {
-    private final static Pattern START_CDATA = Pattern.compile("<\\!\\[CDATA\\[");
-    private final static Pattern END_CDATA = Pattern.compile("\\]\\]>");
-    private Element[] updates;
+    //updates indexed by the id of the updated element, in the order they were issued
+    private LinkedHashMap updates = new LinkedHashMap();
 
     public UpdateElements(Element[] updates) {
-        this.updates = updates;
+        for (int i = 0; i < updates.length; i++) {
+            Element update = updates[i];
+            if (update != null) {
+                this.updates.put(update.getAttribute("id"), update);
+            }
+        }
     }
 
+    /**
+     * The updates of this command are merged into the previous command, the
+     * previous command should not be used afterwards. This keeps the cost of
+     * coalescing proportional to the number of new updates, no matter how
+     * many updates accumulated in the previous command.
+     */
     public Command coalesceWithPrevious(UpdateElements updateElementsCommand) {
-        ArrayList coallescedUpdates = new ArrayList();
-        Element[] previousUpdates = updateElementsCommand.updates;
-
-        for (int i = 0; i < previousUpdates.length; i++) {
-            Element previousUpdate = previousUpdates[i];
-            boolean overriden = false;
-            //test if any of the new updates is replacing the same element
-            for (int j = 0; j < updates.length; j++) {
-                Element update = updates[j];
-                if (update.getAttribute("id").equals(previousUpdate.getAttribute("id"))) {
-                    overriden = true; break;
-                }
-            }
-            //drop overriden updates
-            if (!overriden) {
-                coallescedUpdates.add(previousUpdate);
-            }
+        LinkedHashMap coallescedUpdates = updateElementsCommand.updates;
+        Iterator i = updates.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry entry = (Map.Entry) i.next();
+            //drop overriden update and append the new one
+            coallescedUpdates.remove(entry.getKey());
+            coallescedUpdates.put(entry.getKey(), entry.getValue());
         }
-        coallescedUpdates.addAll(Arrays.asList(updates));
 
-        return new UpdateElements((Element[]) coallescedUpdates.toArray(new Element[coallescedUpdates.size()]));
+        return updateElementsCommand;
     }
 
     public Command coalesceWithNext(Command command) {
@@ -84,13 +83,16 @@ public class UpdateElements extends AbstractCommand {
     }
 
     public void serializeTo(Writer writer) throws IOException {
+        ContentWriter contentWriter = new ContentWriter(writer);
         writer.write("<updates>");
-        for (int i = 0; i < updates.length; i++) {
-            Element update = updates[i];
-            if (update == null) continue;
+        Iterator i = updates.values().iterator();
+        while (i.hasNext()) {
+            Element update = (Element) i.next();
             writer.write("<update address=\"");
             writer.write(update.getAttribute("id"));
-            writer.write("\" tag=\"" + update.getTagName() + "\">");
+            writer.write("\" tag=\"");
+            writer.write(update.getTagName());
+            writer.write("\">");
 
             NamedNodeMap attributes = update.getAttributes();
             for (int j = 0; j < attributes.getLength(); j++) {
@@ -102,23 +104,139 @@ public class UpdateElements extends AbstractCommand {
                     writer.write("\"/>");
                 } else {
                     writer.write("\"><![CDATA[");
-                    writer.write(DOMUtils.escapeAnsi(value));
+                    DOMUtils.escapeAnsi(value, writer);
                     writer.write("]]></attribute>");
                 }
             }
 
-            String content = DOMUtils.childrenToString(update);
-            if ("".equals(content)) {
+            DOMUtils.printChildNodes(update, contentWriter);
+            contentWriter.finish();
+            writer.write("</update>");
+        }
+        writer.write("</updates>");
+    }
+
+    /**
+     * Writes the content of an update wrapped into a CDATA section, replacing
+     * on the fly the CDATA delimiters found in the content with
+     * <code>&lt;!#cdata#</code> and <code>##&gt;</code>. The section is opened
+     * when the first character is written so that empty content is still
+     * serialized as <code>&lt;content/&gt;</code>.
+     */
+    private static class ContentWriter extends Writer {
+        private static final String START_CDATA = "<![CDATA[";
+        private final Writer writer;
+        private final char[] buffer = new char[1024];
+        private int position = 0;
+        //number of characters of START_CDATA matched so far
+        private int startMatch = 0;
+        //consecutive ']' characters held back until the next character is known
+        private int brackets = 0;
+        private boolean empty = true;
+
+        private ContentWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        public void write(int c) throws IOException {
+            matchStart((char) c);
+        }
+
+        public void write(char[] chars, int offset, int length) throws IOException {
+            for (int i = offset, end = offset + length; i < end; i++) {
+                matchStart(chars[i]);
+            }
+        }
+
+        public void write(String string, int offset, int length) throws IOException {
+            for (int i = offset, end = offset + length; i < end; i++) {
+                matchStart(string.charAt(i));
+            }
+        }
+
+        public void flush() throws IOException {
+            flushBuffer();
+            writer.flush();
+        }
+
+        public void close() throws IOException {
+            //the underlying writer is owned by the caller
+        }
+
+        /**
+         * Close the content of the current update and prepare for the next one.
+         */
+        private void finish() throws IOException {
+            if (empty) {
                 writer.write("<content/>");
             } else {
-                writer.write("<content><![CDATA[");
-                content = START_CDATA.matcher(content).replaceAll("<!#cdata#");
-                content = END_CDATA.matcher(content).replaceAll("##>");
-                writer.write(content);
+                release(START_CDATA, startMatch);
+                startMatch = 0;
+                append(']', brackets);
+                brackets = 0;
+                flushBuffer();
                 writer.write("]]></content>");
+                empty = true;
+            }
+        }
+
+        private void matchStart(char c) throws IOException {
+            if (empty) {
+                writer.write("<content><![CDATA[");
+                empty = false;
+            }
+            if (c == START_CDATA.charAt(startMatch)) {
+                if (++startMatch == START_CDATA.length()) {
+                    startMatch = 0;
+                    release("<!#cdata#", 9);
+                }
+            } else {
+                //the delimiter does not overlap with itself, the held back characters cannot start another match
+                release(START_CDATA, startMatch);
+                startMatch = 0;
+                if (c == '<') {
+                    startMatch = 1;
+                } else {
+                    matchEnd(c);
+                }
+            }
+        }
+
+        private void release(String string, int length) throws IOException {
+            for (int i = 0; i < length; i++) {
+                matchEnd(string.charAt(i));
+            }
+        }
+
+        private void matchEnd(char c) throws IOException {
+            if (c == ']') {
+                brackets++;
+            } else if (c == '>' && brackets >= 2) {
+                append(']', brackets - 2);
+                brackets = 0;
+                append('#', 2);
+                append('>', 1);
+            } else {
+                append(']', brackets);
+                brackets = 0;
+                append(c, 1);
+            }
+        }
+
+        private void append(char c, int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                if (position == buffer.length) {
+                    flushBuffer();
+                }
+                buffer[position++] = c;
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            if (position > 0) {
+                writer.write(buffer, 0, position);
+                position = 0;
             }
-            writer.write("</update>");
         }
-        writer.write("</updates>");
     }
 }
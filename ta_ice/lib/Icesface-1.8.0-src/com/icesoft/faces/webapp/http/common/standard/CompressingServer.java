@@ -64,7 +64,7 @@ public class CompressingServer implements Server {
         }
     }
 
-    private class CompressingResponse extends ResponseProxy {
+    static class CompressingResponse extends ResponseProxy {
         private GZIPOutputStream output;
 
         public CompressingResponse(Response response) {
@@ -84,6 +84,14 @@ public class CompressingServer implements Server {
             }
         }
 
+        /**
+         * Write content that is already compressed, bypassing the compression stream.
+         */
+        void writeCompressedBody(byte[] compressedContent) throws IOException {
+            response.setHeader("Content-Length", compressedContent.length);
+            response.writeBody().write(compressedContent);
+        }
+
         public void finishCompression() throws IOException {
             if (output != null) {
                 output.finish();
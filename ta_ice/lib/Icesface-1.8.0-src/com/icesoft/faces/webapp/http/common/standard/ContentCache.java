@@ -0,0 +1,194 @@
+package com.icesoft.faces.webapp.http.common.standard;
+
+import com.icesoft.faces.webapp.http.common.Configuration;
+import com.icesoft.faces.webapp.http.common.Response;
+import com.icesoft.faces.webapp.http.common.ResponseHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the content of static resources in memory so that they are read, and
+ * compressed, only once.
+ * <p/>
+ * Entries are identified by a key and a version (usually the last modification
+ * time); looking up an entry with a different version drops the stale one.
+ * The compressed form is created the first time a client that accepts gzip
+ * encoding requests the content and then served to all the other such
+ * clients. The cache is bounded in size, the least recently used entries
+ * being evicted first, and content larger than the configured limit is not
+ * cached at all.
+ */
+public class ContentCache {
+    private static final char[] HexDigits = "0123456789abcdef".toCharArray();
+    private final Map entries = new LinkedHashMap(16, 0.75f, true);
+    private final long maxSize;
+    private final int maxEntrySize;
+    private long size = 0;
+
+    public ContentCache(Configuration configuration) {
+        this(configuration.getAttributeAsLong("resourceCacheSize", 8 * 1024 * 1024),
+                configuration.getAttributeAsInteger("resourceCacheMaxEntrySize", 512 * 1024));
+    }
+
+    public ContentCache(long maxSize, int maxEntrySize) {
+        this.maxSize = maxSize;
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * @return the cached content, or null when missing or when cached with a different version
+     */
+    public synchronized Entry lookup(String key, long version) {
+        Entry entry = (Entry) entries.get(key);
+        if (entry == null) {
+            return null;
+        } else if (entry.version == version) {
+            return entry;
+        } else {
+            discard(key);
+            return null;
+        }
+    }
+
+    /**
+     * Read and cache the content. The stream is always closed.
+     *
+     * @return the cached content, or null when the content is larger than
+     *         the entry size limit in which case it needs to be streamed from
+     *         its source
+     */
+    public Entry store(String key, long version, InputStream in) throws IOException {
+        byte[] content;
+        try {
+            content = read(in);
+        } finally {
+            in.close();
+        }
+        if (content == null) {
+            return null;
+        }
+
+        Entry entry = new Entry(version, content);
+        synchronized (this) {
+            discard(key);
+            entries.put(key, entry);
+            size += entry.size();
+            Iterator i = entries.values().iterator();
+            while (size > maxSize && i.hasNext()) {
+                Entry eldest = (Entry) i.next();
+                i.remove();
+                size -= eldest.size();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * @return true if content of the given length can be cached
+     */
+    public boolean accepts(long length) {
+        return length <= maxEntrySize;
+    }
+
+    public synchronized void remove(String key) {
+        discard(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    private void discard(String key) {
+        Entry entry = (Entry) entries.remove(key);
+        if (entry != null) {
+            size -= entry.size();
+        }
+    }
+
+    private byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int length;
+        while ((length = in.read(buffer)) > -1) {
+            if (out.size() + length > maxEntrySize) {
+                return null;
+            }
+            out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+    }
+
+    public static class Entry implements ResponseHandler {
+        private final long version;
+        private final byte[] content;
+        private final String eTag;
+        private byte[] compressedContent;
+
+        private Entry(long version, byte[] content) {
+            this.version = version;
+            this.content = content;
+            this.eTag = "\"" + digest(content) + "\"";
+        }
+
+        /**
+         * @return strong entity tag, calculated from the content
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * Write the content, or its compressed form when the response is
+         * being compressed by {@link CompressingServer}.
+         */
+        public void respond(Response response) throws Exception {
+            if (response instanceof CompressingServer.CompressingResponse) {
+                ((CompressingServer.CompressingResponse) response).writeCompressedBody(getCompressedContent());
+            } else {
+                response.setHeader("Content-Length", content.length);
+                OutputStream output = response.writeBody();
+                output.write(content);
+            }
+        }
+
+        private synchronized byte[] getCompressedContent() throws IOException {
+            if (compressedContent == null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2);
+                GZIPOutputStream gzip = new GZIPOutputStream(out);
+                gzip.write(content);
+                gzip.finish();
+                compressedContent = out.toByteArray();
+            }
+            return compressedContent;
+        }
+
+        private long size() {
+            //account for the compressed form as well
+            return content.length + content.length / 2;
+        }
+
+        private static String digest(byte[] content) {
+            try {
+                byte[] digest = MessageDigest.getInstance("MD5").digest(content);
+                char[] hex = new char[digest.length * 2];
+                for (int i = 0; i < digest.length; i++) {
+                    hex[i * 2] = HexDigits[(digest[i] >> 4) & 0xf];
+                    hex[i * 2 + 1] = HexDigits[digest[i] & 0xf];
+                }
+                return new String(hex);
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
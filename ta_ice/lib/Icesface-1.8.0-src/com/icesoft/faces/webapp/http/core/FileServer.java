@@ -6,6 +6,7 @@ import com.icesoft.faces.webapp.http.common.Request;
 import com.icesoft.faces.webapp.http.common.Response;
 import com.icesoft.faces.webapp.http.common.ResponseHandler;
 import com.icesoft.faces.webapp.http.common.Server;
+import com.icesoft.faces.webapp.http.common.standard.ContentCache;
 import com.icesoft.faces.webapp.http.common.standard.NotFoundHandler;
 
 import java.io.File;
@@ -15,31 +16,58 @@ import java.util.Date;
 public class FileServer implements Server {
     private FileLocator locator;
     private MimeTypeMatcher mimeTypeMatcher;
+    private ContentCache cache;
 
-    public FileServer(FileLocator locator, MimeTypeMatcher mimeTypeMatcher) {
+    public FileServer(FileLocator locator, MimeTypeMatcher mimeTypeMatcher, ContentCache cache) {
         this.locator = locator;
         this.mimeTypeMatcher = mimeTypeMatcher;
+        this.cache = cache;
     }
 
     public void service(Request request) throws Exception {
         final String path = request.getURI().getPath();
         final File file = locator.locate(path);
         if (file.exists()) {
-            request.respondWith(new ResponseHandler() {
-                public void respond(Response response) throws Exception {
-                    String mimeType = mimeTypeMatcher.mimeTypeFor(path);
-                    Date lastModified = new Date(file.lastModified());
-
-                    response.setHeader("Content-Type", mimeType);
-                    response.setHeader("Last-Modified", lastModified);
-                    response.writeBodyFrom(new FileInputStream(file));
-                }
-            });
+            final String mimeType = mimeTypeMatcher.mimeTypeFor(path);
+            final Date lastModified = new Date(file.lastModified());
+            //the file is read again when it changes
+            ContentCache.Entry cachedEntry = cache.lookup(file.getPath(), file.lastModified());
+            if (cachedEntry == null && cache.accepts(file.length())) {
+                cachedEntry = cache.store(file.getPath(), file.lastModified(), new FileInputStream(file));
+            }
+            final ContentCache.Entry entry = cachedEntry;
+            if (entry == null) {
+                request.respondWith(new ResponseHandler() {
+                    public void respond(Response response) throws Exception {
+                        response.setHeader("Content-Type", mimeType);
+                        response.setHeader("Last-Modified", lastModified);
+                        response.writeBodyFrom(new FileInputStream(file));
+                    }
+                });
+            } else if (entry.getETag().equals(request.getHeader("If-None-Match"))) {
+                request.respondWith(new ResponseHandler() {
+                    public void respond(Response response) throws Exception {
+                        response.setStatus(304);
+                        response.setHeader("ETag", entry.getETag());
+                        response.setHeader("Content-Length", 0);
+                    }
+                });
+            } else {
+                request.respondWith(new ResponseHandler() {
+                    public void respond(Response response) throws Exception {
+                        response.setHeader("Content-Type", mimeType);
+                        response.setHeader("Last-Modified", lastModified);
+                        response.setHeader("ETag", entry.getETag());
+                        entry.respond(response);
+                    }
+                });
+            }
         } else {
             request.respondWith(new NotFoundHandler("Cannot find file " + file));
         }
     }
 
     public void shutdown() {
+        cache.clear();
     }
 }
@@ -6,6 +6,7 @@ import com.icesoft.faces.webapp.http.common.Response;
 import com.icesoft.faces.webapp.http.common.ResponseHandler;
 import com.icesoft.faces.webapp.http.common.Server;
 import com.icesoft.faces.webapp.http.servlet.SessionDispatcher;
+import com.icesoft.util.metrics.PushMetrics;
 import com.icesoft.util.pooling.CSSNamePool;
 import com.icesoft.util.pooling.ClientIdPool;
 import com.icesoft.util.pooling.ELPool;
@@ -111,6 +112,8 @@ public class ReceiveSendUpdates implements Server {
 
     private void renderCycle(FacesContext context) {
         com.icesoft.util.SeamUtilities.removeSeamDebugPhaseListener(lifecycle);
+        long start = PushMetrics.start();
         LifecycleExecutor.getLifecycleExecutor(context).apply(context);
+        PushMetrics.record(PushMetrics.Lifecycle, start);
     }
 }
@@ -4,6 +4,7 @@ import com.icesoft.faces.context.Resource;
 import com.icesoft.faces.context.ResourceLinker;
 import com.icesoft.faces.webapp.http.common.*;
 import com.icesoft.faces.webapp.http.common.standard.CompressingServer;
+import com.icesoft.faces.webapp.http.common.standard.ContentCache;
 import com.icesoft.faces.webapp.http.common.standard.PathDispatcherServer;
 import com.icesoft.faces.webapp.http.servlet.SessionDispatcher;
 import com.icesoft.util.encoding.Base64;
@@ -14,6 +15,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 
 public class ResourceDispatcher implements Server {
     private static final Log log = LogFactory.getLog(ResourceDispatcher.class);
@@ -22,16 +24,20 @@ public class ResourceDispatcher implements Server {
             //do nothing!
         }
     };
+    private static long resourceCount = 0;
     private PathDispatcherServer dispatcher = new PathDispatcherServer();
     private Server compressResource;
     private MimeTypeMatcher mimeTypeMatcher;
     private String prefix;
     private ArrayList registered = new ArrayList();
+    private ArrayList servers = new ArrayList();
+    private ContentCache cache;
     private SessionDispatcher.Monitor monitor;
 
-    public ResourceDispatcher(String prefix, MimeTypeMatcher mimeTypeMatcher, SessionDispatcher.Monitor monitor, Configuration configuration) {
+    public ResourceDispatcher(String prefix, MimeTypeMatcher mimeTypeMatcher, ContentCache cache, SessionDispatcher.Monitor monitor, Configuration configuration) {
         this.prefix = prefix;
         this.mimeTypeMatcher = mimeTypeMatcher;
+        this.cache = cache;
         this.monitor = monitor;
         this.compressResource = new CompressingServer(dispatcher, mimeTypeMatcher, configuration);
     }
@@ -74,7 +80,7 @@ public class ResourceDispatcher implements Server {
         final String name = prefix + encode(resource) + "/";
         if (!registered.contains(name)) {
             registered.add(name);
-            dispatcher.dispatchOn(".*" + name.replaceAll("\\/", "\\/") + dispatchFilename + "$", new ResourceServer(resource));
+            dispatcher.dispatchOn(".*" + name.replaceAll("\\/", "\\/") + dispatchFilename + "$", newResourceServer(resource));
             if (handler != NOOPHandler) {
                 handler.linkWith(new RelativeResourceLinker(name));
             }
@@ -86,6 +92,26 @@ public class ResourceDispatcher implements Server {
     public void shutdown() {
         compressResource.shutdown();
         registered.clear();
+        synchronized (servers) {
+            Iterator i = servers.iterator();
+            while (i.hasNext()) {
+                cache.remove(((ResourceServer) i.next()).cacheKey);
+            }
+            servers.clear();
+        }
+    }
+
+    private ResourceServer newResourceServer(Resource resource) {
+        ResourceServer server = new ResourceServer(resource);
+        synchronized (servers) {
+            servers.add(server);
+        }
+        return server;
+    }
+
+    private static synchronized String newCacheKey() {
+        //digests are not guaranteed to be unique across sessions (see ByteArrayResource)
+        return "resource-" + (++resourceCount);
     }
 
     private class ResourceServer implements Server, ResponseHandler {
@@ -100,6 +126,8 @@ public class ResourceDispatcher implements Server {
             }
         };
         private final Resource resource;
+        private final String cacheKey = newCacheKey();
+        private boolean tooLargeToCache = false;
 
         public ResourceServer(Resource resource) {
             this.resource = resource;
@@ -132,7 +160,22 @@ public class ResourceDispatcher implements Server {
             if (options.attachement) {
                 response.setHeader("Content-Disposition", "attachment; filename=\"" + options.fileName + "\"");
             }
-            response.writeBodyFrom(resource.open());
+            //the content is read once, unless the resource declares a new modification date
+            //without a modification date a change cannot be detected, the content is read every time
+            ContentCache.Entry entry = null;
+            if (options.lastModifiedDeclared && !tooLargeToCache) {
+                long version = options.lastModified.getTime();
+                entry = cache.lookup(cacheKey, version);
+                if (entry == null) {
+                    entry = cache.store(cacheKey, version, resource.open());
+                    tooLargeToCache = entry == null;
+                }
+            }
+            if (entry == null) {
+                response.writeBodyFrom(resource.open());
+            } else {
+                entry.respond(response);
+            }
         }
 
         public void shutdown() {
@@ -140,6 +183,7 @@ public class ResourceDispatcher implements Server {
 
         private class ResourceOptions implements Resource.Options {
             private Date lastModified = new Date();
+            private boolean lastModifiedDeclared;
             private Date expiresBy = monitor.expiresBy();
             private String mimeType;
             private String fileName;
@@ -151,6 +195,7 @@ public class ResourceDispatcher implements Server {
 
             public void setLastModified(Date date) {
                 lastModified = date;
+                lastModifiedDeclared = true;
             }
 
             public void setFileName(String name) {
@@ -180,7 +225,7 @@ public class ResourceDispatcher implements Server {
 
         public void registerRelativeResource(String path, Resource relativeResource) {
             String pathExpression = (name + path).replaceAll("\\/", "\\/").replaceAll("\\.", "\\.");
-            dispatcher.dispatchOn(".*" + pathExpression + "$", new ResourceServer(relativeResource));
+            dispatcher.dispatchOn(".*" + pathExpression + "$", newResourceServer(relativeResource));
         }
     }
 
@@ -7,6 +7,7 @@ import com.icesoft.faces.webapp.http.common.Request;
 import com.icesoft.faces.webapp.http.common.Server;
 import com.icesoft.faces.webapp.http.common.standard.CacheControlledServer;
 import com.icesoft.faces.webapp.http.common.standard.CompressingServer;
+import com.icesoft.faces.webapp.http.common.standard.ContentCache;
 import com.icesoft.faces.webapp.http.common.standard.PathDispatcherServer;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -17,15 +18,15 @@ public class ResourceServer implements Server {
     private static final Log log = LogFactory.getLog(ResourceServer.class);
     private Server dispatcher;
 
-    public ResourceServer(Configuration configuration, MimeTypeMatcher mimeTypeMatcher, FileLocator fileLocator) {
+    public ResourceServer(Configuration configuration, MimeTypeMatcher mimeTypeMatcher, FileLocator fileLocator, ContentCache cache) {
         PathDispatcherServer pathDispatcher = new PathDispatcherServer();
         pathDispatcher.dispatchOn(".*xmlhttp\\/javascript-blocked$", new RedirectOnJSBlocked(configuration));
-        pathDispatcher.dispatchOn(".*xmlhttp\\/.*\\/.*\\.js$", new CacheControlledServer(new ServeJSCode()));
-        pathDispatcher.dispatchOn(".*xmlhttp\\/css\\/.*", new CacheControlledServer(new ServeCSSResource(mimeTypeMatcher)));
+        pathDispatcher.dispatchOn(".*xmlhttp\\/.*\\/.*\\.js$", new CacheControlledServer(new ServeJSCode(cache)));
+        pathDispatcher.dispatchOn(".*xmlhttp\\/css\\/.*", new CacheControlledServer(new ServeCSSResource(mimeTypeMatcher, cache)));
         pathDispatcher.dispatchOn(".*xmlhttp\\/blank$", new CacheControlledServer(new ServeBlankPage()));
         pathDispatcher.dispatchOn(".*xmlhttp\\/wait\\-cursor$", new CacheControlledServer(new WaitCursorPage()));
         //match any path that does not point to WEB-INF directory
-        pathDispatcher.dispatchOn("^(?!.*WEB\\-INF.*).*$", new FileServer(fileLocator, mimeTypeMatcher));
+        pathDispatcher.dispatchOn("^(?!.*WEB\\-INF.*).*$", new FileServer(fileLocator, mimeTypeMatcher, cache));
         dispatcher = new CompressingServer(pathDispatcher, mimeTypeMatcher, configuration);
     }
 
@@ -4,6 +4,8 @@ import com.icesoft.faces.webapp.http.common.*;
 import com.icesoft.faces.webapp.http.common.standard.FixedXMLContentHandler;
 import com.icesoft.faces.webapp.http.common.standard.ResponseHandlerServer;
 import com.icesoft.util.MonitorRunner;
+import com.icesoft.util.TimingWheel;
+import com.icesoft.util.metrics.PushMetrics;
 import edu.emory.mathcs.backport.java.util.concurrent.BlockingQueue;
 import edu.emory.mathcs.backport.java.util.concurrent.LinkedBlockingQueue;
 
@@ -13,7 +15,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 
-public class SendUpdatedViews implements Server, Runnable {
+public class SendUpdatedViews implements Server {
     private static final Runnable NOOP = new Runnable() {
         public void run() {
         }
@@ -35,7 +37,6 @@ public class SendUpdatedViews implements Server, Runnable {
     private final String sessionID;
     private final long timeoutInterval;
     private final MonitorRunner monitorRunner;
-    private long responseTimeoutTime;
     private Server activeServer;
 
     public SendUpdatedViews(String sessionID, final Collection synchronouslyUpdatedViews, final ViewQueue allUpdatedViews, final MonitorRunner monitorRunner, Configuration configuration, final PageTest pageTest) {
@@ -50,15 +51,11 @@ public class SendUpdatedViews implements Server, Runnable {
                 respondIfViewsAvailable();
             }
         });
-        //add monitor
-        monitorRunner.registerMonitor(this);
-
         //define blocking server
         final Server blockingServer = new Server() {
             public void service(final Request request) throws Exception {
-                responseTimeoutTime = System.currentTimeMillis() + timeoutInterval;
                 respondIfPendingRequest(CloseResponse);
-                pendingRequest.put(request);
+                pendingRequest.put(new PendingRequest(request));
                 respondIfViewsAvailable();
             }
 
@@ -93,26 +90,18 @@ public class SendUpdatedViews implements Server, Runnable {
     }
 
     public void shutdown() {
-        //remove monitor
-        monitorRunner.unregisterMonitor(this);
         allUpdatedViews.onPut(NOOP);
         activeServer.shutdown();
     }
 
-    public void run() {
-        if ((System.currentTimeMillis() > responseTimeoutTime) && (!pendingRequest.isEmpty())) {
-            respondIfPendingRequest(NoopHandler);
-        }
-    }
-
     private void respondIfViewsAvailable() {
         try {
             allUpdatedViews.removeAll(synchronouslyUpdatedViews);
             synchronouslyUpdatedViews.clear();
             if (!allUpdatedViews.isEmpty()) {
-                Request request = (Request) pendingRequest.poll();
-                if (request != null) {
-                    request.respondWith(new FixedXMLContentHandler() {
+                PendingRequest pending = (PendingRequest) pendingRequest.poll();
+                if (pending != null) {
+                    pending.respondWith(new FixedXMLContentHandler() {
                         public void writeTo(Writer writer) throws IOException {
                             writer.write("<updated-views>");
                             Iterator i = new HashSet(allUpdatedViews).iterator();
@@ -134,7 +123,7 @@ public class SendUpdatedViews implements Server, Runnable {
     }
 
     private void respondIfPendingRequest(ResponseHandler handler) {
-        Request previousRequest = (Request) pendingRequest.poll();
+        PendingRequest previousRequest = (PendingRequest) pendingRequest.poll();
         if (previousRequest != null) {
             try {
                 previousRequest.respondWith(handler);
@@ -143,4 +132,38 @@ public class SendUpdatedViews implements Server, Runnable {
             }
         }
     }
+
+    /**
+     * A held blocking connection, together with the timeout that answers it
+     * when no view is updated in time. Each request cancels only its own
+     * timeout, a newer request can be put on hold meanwhile.
+     */
+    private class PendingRequest {
+        private final Request request;
+        //when the request started to be held
+        private final long holdStart = PushMetrics.start();
+        private final TimingWheel.Timeout timeout;
+
+        private PendingRequest(final Request request) {
+            this.request = request;
+            //respond to the blocking connection only if it is still pending when the timeout expires
+            this.timeout = monitorRunner.schedule(new Runnable() {
+                public void run() {
+                    if (pendingRequest.remove(PendingRequest.this)) {
+                        try {
+                            respondWith(NoopHandler);
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }
+            }, timeoutInterval);
+        }
+
+        private void respondWith(ResponseHandler handler) throws Exception {
+            timeout.cancel();
+            PushMetrics.record(PushMetrics.BlockingConnectionHold, holdStart);
+            request.respondWith(handler);
+        }
+    }
 }
@@ -10,6 +10,7 @@ import com.icesoft.faces.webapp.command.NOOP;
 import com.icesoft.faces.webapp.http.common.Request;
 import com.icesoft.faces.webapp.http.common.Server;
 import com.icesoft.faces.webapp.http.common.standard.FixedXMLContentHandler;
+import com.icesoft.util.metrics.PushMetrics;
 
 import java.io.IOException;
 import java.io.Writer;
@@ -57,7 +58,9 @@ public class SendUpdates implements Server {
                 if (log.isTraceEnabled())  {
                     log.trace(command);
                 }
+                long start = PushMetrics.start();
                 command.serializeTo(writer);
+                PushMetrics.record(PushMetrics.Serialization, start);
             } else {
                 NOOP.serializeTo(writer);
             }
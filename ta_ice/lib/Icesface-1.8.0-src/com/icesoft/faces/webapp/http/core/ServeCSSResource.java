@@ -5,6 +5,7 @@ import com.icesoft.faces.webapp.http.common.Request;
 import com.icesoft.faces.webapp.http.common.Response;
 import com.icesoft.faces.webapp.http.common.ResponseHandler;
 import com.icesoft.faces.webapp.http.common.Server;
+import com.icesoft.faces.webapp.http.common.standard.ContentCache;
 import com.icesoft.faces.webapp.http.common.standard.NotFoundHandler;
 
 import java.io.InputStream;
@@ -13,27 +14,40 @@ public class ServeCSSResource implements Server {
     private static final String Package = "com/icesoft/faces/resources/css/";
     private ClassLoader loader;
     private MimeTypeMatcher matcher;
+    private ContentCache cache;
 
-    public ServeCSSResource(MimeTypeMatcher mimeTypeMatcher) {
+    public ServeCSSResource(MimeTypeMatcher mimeTypeMatcher, ContentCache cache) {
         loader = this.getClass().getClassLoader();
         matcher = mimeTypeMatcher;
+        this.cache = cache;
     }
 
     public void service(Request request) throws Exception {
         final String path = request.getURI().getPath();
         String file = path.substring(path.lastIndexOf("css/") + 4, path.length());
-        final InputStream in = loader.getResourceAsStream(Package + file);
+        final String name = Package + file;
+        //resources packaged with the application do not change
+        ContentCache.Entry cachedEntry = cache.lookup(name, 0);
+        if (cachedEntry == null) {
+            InputStream in = loader.getResourceAsStream(name);
+            if (in == null) {
+                request.respondWith(new NotFoundHandler("Cannot find CSS file for " + path));
+                return;
+            }
+            cachedEntry = cache.store(name, 0, in);
+        }
 
-        if (in == null) {
-            request.respondWith(new NotFoundHandler("Cannot find CSS file for " + path));
-        } else {
-            request.respondWith(new ResponseHandler() {
-                public void respond(Response response) throws Exception {
-                    response.setHeader("Content-Type", matcher.mimeTypeFor(path));
-                    response.writeBodyFrom(in);
+        final ContentCache.Entry entry = cachedEntry;
+        request.respondWith(new ResponseHandler() {
+            public void respond(Response response) throws Exception {
+                response.setHeader("Content-Type", matcher.mimeTypeFor(path));
+                if (entry == null) {
+                    response.writeBodyFrom(loader.getResourceAsStream(name));
+                } else {
+                    entry.respond(response);
                 }
-            });
-        }
+            }
+        });
     }
 
     public void shutdown() {
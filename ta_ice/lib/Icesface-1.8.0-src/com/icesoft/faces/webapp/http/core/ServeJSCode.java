@@ -4,6 +4,7 @@ import com.icesoft.faces.webapp.http.common.Request;
 import com.icesoft.faces.webapp.http.common.Response;
 import com.icesoft.faces.webapp.http.common.ResponseHandler;
 import com.icesoft.faces.webapp.http.common.Server;
+import com.icesoft.faces.webapp.http.common.standard.ContentCache;
 import com.icesoft.faces.webapp.http.common.standard.NotFoundHandler;
 
 import java.io.InputStream;
@@ -11,26 +12,39 @@ import java.io.InputStream;
 public class ServeJSCode implements Server {
     private static final String Package = "com/icesoft/faces/webapp/xmlhttp/";
     private ClassLoader loader;
+    private ContentCache cache;
 
-    public ServeJSCode() {
+    public ServeJSCode(ContentCache cache) {
         loader = this.getClass().getClassLoader();
+        this.cache = cache;
     }
 
     public void service(Request request) throws Exception {
         String path = request.getURI().getPath();
         String file = path.substring(path.lastIndexOf("/") + 1, path.length());
-        final InputStream in = loader.getResourceAsStream(Package + file);
+        final String name = Package + file;
+        //resources packaged with the application do not change
+        ContentCache.Entry cachedEntry = cache.lookup(name, 0);
+        if (cachedEntry == null) {
+            InputStream in = loader.getResourceAsStream(name);
+            if (in == null) {
+                request.respondWith(new NotFoundHandler("Cannot find JS file for " + path));
+                return;
+            }
+            cachedEntry = cache.store(name, 0, in);
+        }
 
-        if (in == null) {
-            request.respondWith(new NotFoundHandler("Cannot find JS file for " + path));
-        } else {
-            request.respondWith(new ResponseHandler() {
-                public void respond(Response response) throws Exception {
-                    response.setHeader("Content-Type", "text/javascript");
-                    response.writeBodyFrom(in);
+        final ContentCache.Entry entry = cachedEntry;
+        request.respondWith(new ResponseHandler() {
+            public void respond(Response response) throws Exception {
+                response.setHeader("Content-Type", "text/javascript");
+                if (entry == null) {
+                    response.writeBodyFrom(loader.getResourceAsStream(name));
+                } else {
+                    entry.respond(response);
                 }
-            });
-        }
+            }
+        });
     }
 
     public void shutdown() {
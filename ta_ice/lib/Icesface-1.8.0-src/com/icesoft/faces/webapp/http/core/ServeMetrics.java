@@ -0,0 +1,29 @@
+package com.icesoft.faces.webapp.http.core;
+
+import com.icesoft.faces.webapp.http.common.Request;
+import com.icesoft.faces.webapp.http.common.Response;
+import com.icesoft.faces.webapp.http.common.ResponseHandler;
+import com.icesoft.faces.webapp.http.common.Server;
+import com.icesoft.faces.webapp.http.common.standard.NoCacheContentHandler;
+import com.icesoft.util.metrics.PushMetrics;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+public class ServeMetrics implements Server {
+    private static final ResponseHandler ResponseHandler = new NoCacheContentHandler("text/plain", "UTF-8") {
+        public void respond(Response response) throws Exception {
+            super.respond(response);
+            Writer writer = new OutputStreamWriter(response.writeBody(), "UTF-8");
+            writer.write(PushMetrics.currentReport());
+            writer.flush();
+        }
+    };
+
+    public void service(Request request) throws Exception {
+        request.respondWith(ResponseHandler);
+    }
+
+    public void shutdown() {
+    }
+}
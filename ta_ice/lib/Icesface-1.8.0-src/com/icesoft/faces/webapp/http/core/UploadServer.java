@@ -27,17 +27,23 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.ServletContext;
 import java.io.IOException;
 import java.io.File;
-import java.io.OutputStream;
 import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Map;
 
 public class UploadServer implements Server {
     private static final Log log = LogFactory.getLog(UploadServer.class);
+    private static final long IFRAME_CONTENT_TIMEOUT = 5000L;
     private Map views;
     private long maxSize;
     private boolean uniqueFolder;
     private String uploadDirectory;
     private boolean uploadDirectoryAbsolute;
+    private int bufferSize;
 
     public UploadServer(Map views, Configuration configuration) {
         this.views = views;
@@ -46,6 +52,7 @@ public class UploadServer implements Server {
         //Partial fix for http://jira.icefaces.org/browse/ICE-1600
         this.uploadDirectory = configuration.getAttribute("uploadDirectory", "");
         this.uploadDirectoryAbsolute = configuration.getAttributeAsBoolean("uploadDirectoryAbsolute", false);
+        this.bufferSize = configuration.getAttributeAsInteger("uploadBufferSize", 64 * 1024);
     }
 
     public void service(final Request request) throws Exception {
@@ -190,9 +197,7 @@ public class UploadServer implements Server {
                         if (!folderFile.exists())
                             folderFile.mkdirs();
                         file = new File(folder, fileName);
-                        OutputStream output = new FileOutputStream(file);
-                        Streams.copy(stream.openStream(), output, true);
-                        long fileLength = file.length();
+                        long fileLength = save(stream.openStream(), file);
                         if (uploadConfig.isFailOnEmptyFile()) {
                             if (fileLength == 0) {
                                 throw new FileUploadBase.FileUploadIOException(
@@ -257,27 +262,52 @@ public class UploadServer implements Server {
                 log.debug("upload(-)  Method bottom");
             }
             
-            protected String getResultingIframeContent(BridgeFacesContext context, UploadStateHolder stateHolder) {
-                String iframeContent = null;
-                long startTime = System.currentTimeMillis();
-                do {
-                    iframeContent = stateHolder.getIframeContent();
-                    if (log.isDebugEnabled()) {
-                        log.debug("getResultingIframeContent()");
-                        log.debug("vvvvvvvvvvvvvvvvvvvvvvvvvvv");
-                        log.debug(iframeContent);
-                        log.debug("^^^^^^^^^^^^^^^^^^^^^^^^^^^");
+            /**
+             * Write the file through a channel, using a bounded buffer
+             * regardless of the size of the upload.
+             *
+             * @return the number of bytes written
+             */
+            protected long save(InputStream input, File file) throws IOException {
+                ReadableByteChannel in = Channels.newChannel(input);
+                FileChannel out = null;
+                try {
+                    out = new FileOutputStream(file).getChannel();
+                    ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+                    long length = 0;
+                    while (in.read(buffer) != -1) {
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            length += out.write(buffer);
+                        }
+                        buffer.clear();
                     }
-                    if (iframeContent != null) {
-                        break;
+                    return length;
+                } finally {
+                    in.close();
+                    if (out != null) {
+                        out.close();
                     }
-                    
-                    long now = System.currentTimeMillis();
-                    if ((now - startTime) >= 5000L) {
-                        break;
+                }
+            }
+            
+            protected String getResultingIframeContent(BridgeFacesContext context, UploadStateHolder stateHolder) {
+                String iframeContent = null;
+                if (stateHolder != null) {
+                    try {
+                        //signalled by the render thread when the lifecycle is asynchronous
+                        iframeContent = stateHolder.waitForIframeContent(IFRAME_CONTENT_TIMEOUT);
+                    } catch (InterruptedException e) {
+                        //respond with what is available, but preserve the interrupt
+                        Thread.currentThread().interrupt();
                     }
-                    try { Thread.sleep(100L); } catch(InterruptedException e) {}
-                } while(stateHolder.isAsyncLifecycle());
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("getResultingIframeContent()");
+                    log.debug("vvvvvvvvvvvvvvvvvvvvvvvvvvv");
+                    log.debug(iframeContent);
+                    log.debug("^^^^^^^^^^^^^^^^^^^^^^^^^^^");
+                }
                 return iframeContent;
             }
             
@@ -298,6 +328,8 @@ public class UploadServer implements Server {
         private FileInfo fileInfo;
         private int lastGranularlyNotifiablePercent = -1;
         private long lastTime = -1;
+        //the progress render not yet completed, at most one per upload
+        private UploadStateHolder pendingProgress;
 
         public void progress(long read, long total) {
             if (total > 0) {
@@ -352,10 +384,18 @@ public class UploadServer implements Server {
                 uploadConfig.isProgressListener() &&
                 uploadConfig.isProgressRender())
             {
+                fileInfo.setPercent(lastGranularlyNotifiablePercent);
+                // Slow renders would otherwise queue up behind each other,
+                //  the progress is rendered again at the next granularity
+                //  step or with the final lifecycle
+                if (pendingProgress != null && !pendingProgress.isLifecycleDone()) {
+                    if (log.isDebugEnabled())
+                        log.debug("UploadServer  progress coalesced :: " + lastGranularlyNotifiablePercent);
+                    return;
+                }
                 if (log.isDebugEnabled())
                     log.debug("UploadServer  progress :: " + lastGranularlyNotifiablePercent);
-                fileInfo.setPercent(lastGranularlyNotifiablePercent);
-                doLifecycle();
+                pendingProgress = doLifecycle();
                 lastTime = System.currentTimeMillis();
             }
         }
@@ -386,17 +426,28 @@ public class UploadServer implements Server {
                     SeamUtilities.isSpringEnvironment()) {
                     stateHolder.setAsyncLifecycle(false);
                     stateHolder.install();
-                    state.setupAndExecuteAndRender();
-                    state.setAllCurrentInstances();
+                    try {
+                        state.setupAndExecuteAndRender();
+                        state.setAllCurrentInstances();
+                    } finally {
+                        stateHolder.lifecycleDone();
+                    }
                 }
                 else {
-                    stateHolder.setAsyncLifecycle(true);
-                    state.renderLater(stateHolder, false);
-                    Thread.yield();
+                    final UploadStateHolder holder = stateHolder;
+                    holder.setAsyncLifecycle(true);
+                    state.renderLater(holder, new Runnable() {
+                        public void run() {
+                            holder.lifecycleDone();
+                        }
+                    }, false);
                 }
             }
             catch(Exception e) {
                 log.warn("Problem rendering view during file upload", e);
+                if (stateHolder != null) {
+                    stateHolder.lifecycleDone();
+                }
             }
             return stateHolder;
         }
@@ -1,10 +1,13 @@
 package com.icesoft.faces.webapp.http.core;
 
+import com.icesoft.util.metrics.PushMetrics;
 import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentLinkedQueue;
 
 public class ViewQueue extends ConcurrentLinkedQueue {
 
     private Runnable listener;
+    //when the first of the currently queued views was put
+    private volatile long waitStart = 0;
 
     public void onPut(Runnable listener) {
         this.listener = listener;
@@ -13,7 +16,16 @@ public class ViewQueue extends ConcurrentLinkedQueue {
     public void put(Object object) throws InterruptedException {
         if (!contains(object)) {
             super.add(object);
+            if (waitStart == 0) {
+                waitStart = PushMetrics.start();
+            }
         }
         listener.run();
     }
+
+    public void clear() {
+        PushMetrics.record(PushMetrics.ViewQueueWait, waitStart);
+        waitStart = 0;
+        super.clear();
+    }
 }
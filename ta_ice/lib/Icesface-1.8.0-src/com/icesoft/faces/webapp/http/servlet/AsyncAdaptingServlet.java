@@ -0,0 +1,113 @@
+package com.icesoft.faces.webapp.http.servlet;
+
+import com.icesoft.faces.webapp.http.common.ResponseHandler;
+import com.icesoft.faces.webapp.http.common.Server;
+import com.icesoft.faces.webapp.http.core.NOOPResponse;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Adapts to Servlet 3.0 asynchronous processing. Requests that are not
+ * responded to while being serviced (the blocking connection waiting for
+ * updated views) are suspended, releasing the container thread, and are
+ * completed from the thread that eventually responds to them.
+ * <p/>
+ * The servlet (and any filter in front of it) must be declared with
+ * <code>async-supported</code> otherwise the requests are rejected and
+ * the thread blocking environment is used instead.
+ * <p/>
+ * This class is compiled against the Servlet 3.0 API, and is only loaded
+ * through reflection by {@link EnvironmentAdaptingServlet} when the web
+ * application runs with Servlet 3.0.
+ */
+public class AsyncAdaptingServlet implements PseudoServlet {
+    private static final Log Log = LogFactory.getLog(AsyncAdaptingServlet.class);
+    private Server server;
+
+    public AsyncAdaptingServlet(final Server server) {
+        this.server = server;
+    }
+
+    public void service(final HttpServletRequest request, final HttpServletResponse response) throws Exception {
+        if (!request.isAsyncSupported()) {
+            throw new EnvironmentAdaptingException("Asynchronous processing is not supported for " + request.getRequestURI());
+        }
+        AsyncRequestResponse requestResponse = new AsyncRequestResponse(request, response);
+        server.service(requestResponse);
+        requestResponse.suspend();
+    }
+
+    public void shutdown() {
+        server.shutdown();
+    }
+
+    private class AsyncRequestResponse extends ServletRequestResponse implements AsyncListener {
+        private boolean suspend = true;
+        private AsyncContext asyncContext;
+
+        public AsyncRequestResponse(final HttpServletRequest request, final HttpServletResponse response) throws Exception {
+            super(request, response);
+        }
+
+        public synchronized void respondWith(final ResponseHandler handler) throws Exception {
+            if (asyncContext == null) {
+                suspend = false;
+                super.respondWith(handler);
+            } else if (suspend) {
+                suspend = false;
+                try {
+                    super.respondWith(handler);
+                } finally {
+                    asyncContext.complete();
+                }
+            }
+        }
+
+        public synchronized void suspend() {
+            if (suspend) {
+                asyncContext = request.startAsync();
+                //the server is expected to respond before this timeout (see blockingConnectionTimeout)
+                asyncContext.setTimeout(Math.max(0, request.getSession().getMaxInactiveInterval() * 1000L));
+                asyncContext.addListener(this);
+            }
+        }
+
+        public synchronized void onTimeout(final AsyncEvent event) throws IOException {
+            if (suspend) {
+                suspend = false;
+                try {
+                    //the bridge expects a response, it reconnects when receiving the no-op
+                    super.respondWith(NOOPResponse.Handler);
+                } catch (Exception e) {
+                    Log.debug("Failed to respond to timed out request", e);
+                } finally {
+                    asyncContext.complete();
+                }
+            }
+        }
+
+        public synchronized void onError(final AsyncEvent event) throws IOException {
+            if (suspend) {
+                suspend = false;
+                try {
+                    asyncContext.complete();
+                } catch (IllegalStateException e) {
+                    //already completed by the container
+                }
+            }
+        }
+
+        public void onComplete(final AsyncEvent event) throws IOException {
+        }
+
+        public void onStartAsync(final AsyncEvent event) throws IOException {
+        }
+    }
+}
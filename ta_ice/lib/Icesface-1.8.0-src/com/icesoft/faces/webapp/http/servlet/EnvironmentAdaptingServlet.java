@@ -7,6 +7,8 @@ import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -35,6 +37,11 @@ public class EnvironmentAdaptingServlet implements PseudoServlet {
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Jetty ARP available: " + isJettyARPAvailable);
                     }
+                    // checking if Servlet 3.0 asynchronous processing is available...
+                    boolean isAsyncServletAvailable = isAsyncServletAvailable(servletContext);
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Servlet 3.0 asynchronous processing available: " + isAsyncServletAvailable);
+                    }
                     if (isGlassFishARPAvailable && configuration.getAttributeAsBoolean("useARP", isGlassFishARPAvailable)) {
                         LOG.info("Adapting to GlassFish ARP environment");
                         factory = new GlassFishAdaptingServletFactory();
@@ -45,6 +52,11 @@ public class EnvironmentAdaptingServlet implements PseudoServlet {
                         factory = new JettyAdaptingServletFactory();
                         // instantiate a fallback factory for creating fallback servlets.
                         fallbackFactory = new ThreadBlockingAdaptingServletFactory();
+                    } else if (isAsyncServletAvailable && configuration.getAttributeAsBoolean("useAsyncServlet", isAsyncServletAvailable)) {
+                        LOG.info("Adapting to Servlet 3.0 asynchronous environment");
+                        factory = new AsyncAdaptingServletFactory();
+                        // instantiate a fallback factory for creating fallback servlets.
+                        fallbackFactory = new ThreadBlockingAdaptingServletFactory();
                     } else {
                         LOG.info("Adapting to Thread Blocking environment");
                         factory = new ThreadBlockingAdaptingServletFactory();
@@ -101,6 +113,25 @@ public class EnvironmentAdaptingServlet implements PseudoServlet {
         }
     }
 
+    /**
+     * Asynchronous processing can only be enabled by a Servlet 3.0 (or later)
+     * deployment descriptor, the older ones cannot declare async-supported.
+     */
+    private boolean isAsyncServletAvailable(final ServletContext servletContext) {
+        try {
+            this.getClass().getClassLoader().loadClass("javax.servlet.AsyncContext");
+            //ServletContext.getEffectiveMajorVersion is part of Servlet 3.0 as well
+            Method getEffectiveMajorVersion = ServletContext.class.getMethod("getEffectiveMajorVersion", new Class[0]);
+            Integer majorVersion = (Integer) getEffectiveMajorVersion.invoke(servletContext, new Object[0]);
+            return majorVersion.intValue() >= 3;
+        } catch (ClassNotFoundException exception) {
+            return false;
+        } catch (Exception exception) {
+            LOG.debug("Cannot determine the Servlet version of the web application", exception);
+            return false;
+        }
+    }
+
     private static interface EnvironmentAdaptingServletFactory {
         public PseudoServlet newServlet(final Server server, final ServletContext servletContext);
     }
@@ -126,6 +157,29 @@ public class EnvironmentAdaptingServlet implements PseudoServlet {
         }
     }
 
+    /**
+     * The asynchronous adapter is compiled against the Servlet 3.0 API, it is
+     * only loaded once the container is known to support it.
+     */
+    private static class AsyncAdaptingServletFactory implements EnvironmentAdaptingServletFactory {
+        private static final String AdapterClassName = "com.icesoft.faces.webapp.http.servlet.AsyncAdaptingServlet";
+
+        public PseudoServlet newServlet(final Server server, final ServletContext servletContext) {
+            try {
+                Class adapterClass = AsyncAdaptingServletFactory.class.getClassLoader().loadClass(AdapterClassName);
+                Constructor constructor = adapterClass.getConstructor(new Class[]{Server.class});
+                return (PseudoServlet) constructor.newInstance(new Object[]{server});
+            } catch (Exception exception) {
+                LOG.warn("Failed to adapt to Servlet 3.0 asynchronous environment. Falling back to Thread Blocking environment.", exception);
+                synchronized (LOCK) {
+                    factory = fallbackFactory;
+                    fallbackFactory = null;
+                }
+                return factory.newServlet(server, servletContext);
+            }
+        }
+    }
+
     private static class ThreadBlockingAdaptingServletFactory implements EnvironmentAdaptingServletFactory {
         public PseudoServlet newServlet(final Server server, final ServletContext servletContext) {
             return new ThreadBlockingAdaptingServlet(server);
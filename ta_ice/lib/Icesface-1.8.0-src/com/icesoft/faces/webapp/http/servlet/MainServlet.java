@@ -7,9 +7,11 @@ import com.icesoft.faces.webapp.http.common.FileLocator;
 import com.icesoft.faces.webapp.http.common.MimeTypeMatcher;
 import com.icesoft.faces.webapp.http.common.Request;
 import com.icesoft.faces.webapp.http.common.Server;
+import com.icesoft.faces.webapp.http.common.standard.ContentCache;
 import com.icesoft.faces.webapp.http.common.standard.NotFoundHandler;
 import com.icesoft.faces.webapp.http.core.DisposeBeans;
 import com.icesoft.faces.webapp.http.core.ResourceServer;
+import com.icesoft.faces.webapp.http.core.ServeMetrics;
 import com.icesoft.faces.util.event.servlet.ContextEventRepeater;
 import com.icesoft.faces.application.ProductInfo;
 import com.icesoft.net.messaging.AbstractMessageHandler;
@@ -29,6 +31,7 @@ import com.icesoft.util.MonitorRunner;
 import com.icesoft.util.SeamUtilities;
 import com.icesoft.util.Properties;
 import com.icesoft.util.ServerUtility;
+import com.icesoft.util.metrics.PushMetrics;
 
 import java.io.File;
 import java.io.IOException;
@@ -88,11 +91,20 @@ public class MainServlet extends HttpServlet {
                 }
             };
             monitorRunner = new MonitorRunner(configuration.getAttributeAsLong("monitorRunnerInterval", 10000));
+            if (configuration.getAttributeAsBoolean("pushMetrics", false)) {
+                String name = context.getServletContextName();
+                PushMetrics.enable(name == null ? "ICEfaces" : name);
+            }
+            final ContentCache resourceCache = new ContentCache(configuration);
+            //the resources registered by the sessions get their own cache, they cannot evict the bridge code and styles
+            final ContentCache sessionResourceCache = new ContentCache(
+                    configuration.getAttributeAsLong("sessionResourceCacheSize", 4 * 1024 * 1024),
+                    configuration.getAttributeAsInteger("sessionResourceCacheMaxEntrySize", 128 * 1024));
             RenderManager.setServletConfig(servletConfig);
-            PseudoServlet resourceServer = new BasicAdaptingServlet(new ResourceServer(configuration, mimeTypeMatcher, localFileLocator));
-            PseudoServlet sessionDispatcher = new SessionDispatcher(configuration, context) {
+            PseudoServlet resourceServer = new BasicAdaptingServlet(new ResourceServer(configuration, mimeTypeMatcher, localFileLocator, resourceCache));
+            PseudoServlet sessionDispatcher = new SessionDispatcher(configuration, context, monitorRunner) {
                 protected Server newServer(HttpSession session, Monitor sessionMonitor, Authorization authorization) {
-                    return new MainSessionBoundServlet(session, sessionMonitor, idGenerator, mimeTypeMatcher, monitorRunner, configuration, getMessageServiceClient(configuration), blockingRequestHandlerContext, authorization);
+                    return new MainSessionBoundServlet(session, sessionMonitor, idGenerator, mimeTypeMatcher, sessionResourceCache, monitorRunner, configuration, getMessageServiceClient(configuration), blockingRequestHandlerContext, authorization);
                 }
             };
             if (SeamUtilities.isSpringEnvironment()) {
@@ -137,6 +149,9 @@ public class MainServlet extends HttpServlet {
             //don't create new session for XMLHTTPRequests identified by "block/*" prefixed paths
             dispatcher.dispatchOn(".*(block\\/)", new SessionVerifier(sessionDispatcher, true));
             dispatcher.dispatchOn(".*(\\/$|\\.iface$|\\.jsf|\\.faces$|\\.jsp$|\\.jspx$|\\.html$|\\.xhtml$|\\.seam$|uploadHtml$|/spring/)", sessionDispatcher);
+            if (configuration.getAttributeAsBoolean("pushMetricsEndpoint", false)) {
+                dispatcher.dispatchOn(".*xmlhttp\\/metrics$", new BasicAdaptingServlet(new ServeMetrics()));
+            }
             dispatcher.dispatchOn(".*", resourceServer);
         } catch (Exception e) {
             throw new ServletException(e);
@@ -183,6 +198,7 @@ public class MainServlet extends HttpServlet {
         DisposeBeans.in(context);
         dispatcher.shutdown();
         tearDownMessageServiceClient();
+        PushMetrics.disable();
     }
 
     private synchronized MessageServiceClient getMessageServiceClient(
@@ -6,6 +6,7 @@ import com.icesoft.faces.util.event.servlet.ContextEventRepeater;
 import com.icesoft.faces.webapp.command.CommandQueue;
 import com.icesoft.faces.webapp.command.SessionExpired;
 import com.icesoft.faces.webapp.http.common.*;
+import com.icesoft.faces.webapp.http.common.standard.ContentCache;
 import com.icesoft.faces.webapp.http.common.standard.OKResponse;
 import com.icesoft.faces.webapp.http.common.standard.PathDispatcherServer;
 import com.icesoft.faces.webapp.http.common.standard.ResponseHandlerServer;
@@ -48,10 +49,10 @@ public class MainSessionBoundServlet implements Server, PageTest {
     private boolean pageLoaded = false;
     private Runnable shutdown;
 
-    public MainSessionBoundServlet(final HttpSession session, final SessionDispatcher.Monitor sessionMonitor, IdGenerator idGenerator, MimeTypeMatcher mimeTypeMatcher, MonitorRunner monitorRunner, Configuration configuration, final MessageServiceClient messageService, final String blockingRequestHandlerContext, final Authorization authorization) {
+    public MainSessionBoundServlet(final HttpSession session, final SessionDispatcher.Monitor sessionMonitor, IdGenerator idGenerator, MimeTypeMatcher mimeTypeMatcher, ContentCache sessionResourceCache, MonitorRunner monitorRunner, Configuration configuration, final MessageServiceClient messageService, final String blockingRequestHandlerContext, final Authorization authorization) {
         this.sessionID = restoreOrCreateSessionID(session, idGenerator);
         ContextEventRepeater.iceFacesIdRetrieved(session, sessionID);
-        final ResourceDispatcher resourceDispatcher = new ResourceDispatcher(ResourcePrefix, mimeTypeMatcher, sessionMonitor, configuration);
+        final ResourceDispatcher resourceDispatcher = new ResourceDispatcher(ResourcePrefix, mimeTypeMatcher, sessionResourceCache, sessionMonitor, configuration);
         final Server viewServlet;
         final Server disposeViews;
         final MessageHandler handler;
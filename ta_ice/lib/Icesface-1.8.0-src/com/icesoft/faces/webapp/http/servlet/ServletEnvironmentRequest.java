@@ -37,6 +37,7 @@ import com.icesoft.faces.env.Authorization;
 import com.icesoft.faces.env.CommonEnvironmentRequest;
 import com.icesoft.faces.env.RequestAttributes;
 import com.icesoft.jasper.Constants;
+import com.icesoft.util.InterfaceAdapter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -54,15 +55,15 @@ import java.util.*;
 /**
  * A wrapper for HttpServletRequest.
  * <p/>
- * It is up to the user to ensure that casts to this specific type and use the
- * specific methods if you are running in the appropriate environment.  Also,
- * since we wrap real requests, the state of those requests can get changed by
- * the application server, so it's possible that certain calls may result in
- * exceptions being thrown.
+ * The wrapper has the methods of HttpServletRequest without declaring the
+ * interface, so that it compiles against any version of the Servlet API. It
+ * is exposed as an HttpServletRequest through an {@link InterfaceAdapter}.
+ * Also, since we wrap real requests, the state of those requests can get
+ * changed by the application server, so it's possible that certain calls may
+ * result in exceptions being thrown.
  * <p/>
  */
-public abstract class ServletEnvironmentRequest extends CommonEnvironmentRequest
-        implements HttpServletRequest {
+public abstract class ServletEnvironmentRequest extends CommonEnvironmentRequest {
     private final static Log log = LogFactory.getLog(ServletEnvironmentRequest.class);
     private Map headers;
     private Cookie[] cookies;
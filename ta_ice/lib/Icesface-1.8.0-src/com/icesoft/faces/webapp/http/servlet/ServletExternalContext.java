@@ -5,6 +5,7 @@ import com.icesoft.faces.context.View;
 import com.icesoft.faces.env.Authorization;
 import com.icesoft.faces.env.RequestAttributes;
 import com.icesoft.faces.webapp.http.common.Configuration;
+import com.icesoft.util.InterfaceAdapter;
 import com.icesoft.util.SeamUtilities;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -37,6 +38,7 @@ public class ServletExternalContext extends BridgeExternalContext {
     private final ServletContext context;
     private final HttpSession session;
     private RequestAttributes requestAttributes;
+    private ServletEnvironmentRequest environmentRequest;
     private HttpServletRequest initialRequest;
     private HttpServletResponse response;
     private Dispatcher dispatcher;
@@ -94,7 +96,7 @@ public class ServletExternalContext extends BridgeExternalContext {
             requestHeaderValuesMap.put(name, request.getHeaders(name));
         }
 
-        ((ServletEnvironmentRequest) initialRequest).setParameters(request);
+        environmentRequest.setParameters(request);
         if (persistSeamKey) setSeamLifecycleShortcut();
 
         Cookie[] cookies = request.getCookies();
@@ -115,7 +117,7 @@ public class ServletExternalContext extends BridgeExternalContext {
         final HttpServletResponse servletResponse = (HttpServletResponse) response;
 
         detectedAuthorization = detectAuthorization(servletRequest.getUserPrincipal());
-        initialRequest = new ServletEnvironmentRequest(request, session, detectedAuthorization) {
+        environmentRequest = new ServletEnvironmentRequest(request, session, detectedAuthorization) {
             public RequestAttributes requestAttributes() {
                 return requestAttributes;
             }
@@ -124,6 +126,8 @@ public class ServletExternalContext extends BridgeExternalContext {
                 return Collections.enumeration(locales);
             }
         };
+        //the wrapper does not declare HttpServletRequest, see ServletEnvironmentRequest
+        initialRequest = (HttpServletRequest) InterfaceAdapter.adapt(environmentRequest, ServletEnvironmentRequest.class, HttpServletRequest.class);
         Map previousRequestMap = requestMap;
         requestMap = Collections.synchronizedMap(new ServletRequestAttributeMap(initialRequest));
         //propagate attributes
@@ -4,7 +4,15 @@ import com.icesoft.faces.env.Authorization;
 import com.icesoft.faces.webapp.http.common.Configuration;
 import com.icesoft.faces.webapp.http.common.Request;
 import com.icesoft.faces.webapp.http.common.Server;
+import com.icesoft.util.MonitorRunner;
 import com.icesoft.util.ThreadLocalUtility;
+import com.icesoft.util.TimingWheel;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentLinkedQueue;
+import edu.emory.mathcs.backport.java.util.concurrent.CopyOnWriteArraySet;
+import edu.emory.mathcs.backport.java.util.concurrent.ExecutorService;
+import edu.emory.mathcs.backport.java.util.concurrent.Executors;
+import edu.emory.mathcs.backport.java.util.concurrent.ThreadFactory;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -16,26 +24,23 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import javax.servlet.http.HttpSessionEvent;
 import javax.servlet.http.HttpSessionListener;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public abstract class SessionDispatcher extends EnvironmentAdaptingServlet {
     private final static Log Log = LogFactory.getLog(SessionDispatcher.class);
     //ICE-3073 - manage sessions with this structure
-    private final static Map SessionMonitors = new HashMap();
+    //the registries are segmented concurrent maps so that requests belonging to different sessions do not contend
+    private final static ConcurrentHashMap SessionMonitors = new ConcurrentHashMap();
     private final static CurrentServer CurrentSessionBoundServer = new CurrentServer();
-    private final Map sessionBoundServers = new HashMap();
-    private final Map activeRequests = new HashMap();
+    private final ConcurrentHashMap sessionBoundServers = new ConcurrentHashMap();
+    private final ConcurrentHashMap activeRequests = new ConcurrentHashMap();
     private ServletContext context;
+    private MonitorRunner monitorRunner;
 
-    public SessionDispatcher(Configuration configuration, ServletContext context) {
+    public SessionDispatcher(Configuration configuration, ServletContext context, MonitorRunner monitorRunner) {
         super(new Server() {
             public void service(Request request) throws Exception {
                 //lookup session bound server -- this is a lock-free strategy
@@ -49,6 +54,7 @@ public abstract class SessionDispatcher extends EnvironmentAdaptingServlet {
         //avoid instance collision -- Glassfish shares EAR module classloaders
         associateSessionDispatcher(context);
         this.context = context;
+        this.monitorRunner = monitorRunner;
     }
 
     public void service(HttpServletRequest request, HttpServletResponse response) throws Exception {
@@ -58,11 +64,11 @@ public abstract class SessionDispatcher extends EnvironmentAdaptingServlet {
         try {
             CurrentSessionBoundServer.attach(lookupServer(session));
             //put the request in the pool of active request in case HttpServletRequest.isUserInRole need to be called
-            addRequest(request);
+            addRequest(session, request);
             super.service(request, response);
         } finally {
             //remove the request from the active requests pool
-            removeRequest(request);
+            removeRequest(session, request);
             CurrentSessionBoundServer.detach();
         }
     }
@@ -79,25 +85,28 @@ public abstract class SessionDispatcher extends EnvironmentAdaptingServlet {
 
     protected void checkSession(HttpSession session) throws Exception {
         final String id = session.getId();
-        final Monitor monitor;
-        synchronized (SessionMonitors) {
-            if (!SessionMonitors.containsKey(id)) {
-                monitor = new Monitor(session);
-                SessionMonitors.put(id, monitor);
-            } else {
-                monitor = (Monitor) SessionMonitors.get(id);
+        Monitor monitor = (Monitor) SessionMonitors.get(id);
+        if (monitor == null) {
+            Monitor newMonitor = new Monitor(session);
+            monitor = (Monitor) SessionMonitors.putIfAbsent(id, newMonitor);
+            if (monitor == null) {
+                monitor = newMonitor;
+                monitor.scheduleExpiryCheck(monitorRunner);
             }
-            //it is possible to have multiple web-app contexts associated with the same session ID
-            monitor.addInSessionContext(context);
         }
-
-        synchronized (sessionBoundServers) {
-            if (!sessionBoundServers.containsKey(id)) {
-                sessionBoundServers.put(id, this.newServer(session, monitor, new Authorization() {
-                    public boolean isUserInRole(String role) {
-                        return inRole(id, role);
-                    }
-                }));
+        //it is possible to have multiple web-app contexts associated with the same session ID
+        monitor.addInSessionContext(context);
+
+        if (!sessionBoundServers.containsKey(id)) {
+            //the monitor is unique per session, creation of the server is serialized only for the requests of this session
+            synchronized (monitor) {
+                if (!sessionBoundServers.containsKey(id)) {
+                    sessionBoundServers.put(id, this.newServer(session, monitor, new Authorization() {
+                        public boolean isUserInRole(String role) {
+                            return inRole(id, role);
+                        }
+                    }));
+                }
             }
         }
     }
@@ -116,36 +125,40 @@ public abstract class SessionDispatcher extends EnvironmentAdaptingServlet {
     }
 
     private void sessionDestroy(HttpSession session) {
-        sessionBoundServers.remove(session.getId());
+        String id = session.getId();
+        sessionBoundServers.remove(id);
+        activeRequests.remove(id);
     }
 
-    private void addRequest(HttpServletRequest request) {
-        String key = request.getRequestedSessionId();
-        synchronized (activeRequests) {
-            if (activeRequests.containsKey(key)) {
-                List requests = (List) activeRequests.get(key);
-                requests.add(request);
-            } else {
-                List requests = new ArrayList();
-                requests.add(request);
-                activeRequests.put(key, requests);
+    private void addRequest(HttpSession session, HttpServletRequest request) {
+        //the per session queue is kept until the session is destroyed, this way requests cannot be
+        //added to a queue that is concurrently discarded
+        String key = session.getId();
+        ConcurrentLinkedQueue requests = (ConcurrentLinkedQueue) activeRequests.get(key);
+        if (requests == null) {
+            ConcurrentLinkedQueue newRequests = new ConcurrentLinkedQueue();
+            requests = (ConcurrentLinkedQueue) activeRequests.putIfAbsent(key, newRequests);
+            if (requests == null) {
+                requests = newRequests;
             }
         }
+        requests.add(request);
     }
 
-    private void removeRequest(HttpServletRequest request) {
-        String key = request.getRequestedSessionId();
-        synchronized (activeRequests) {
-            List requests = (List) activeRequests.get(key);
+    private void removeRequest(HttpSession session, HttpServletRequest request) {
+        ConcurrentLinkedQueue requests = (ConcurrentLinkedQueue) activeRequests.get(session.getId());
+        if (requests != null) {
             requests.remove(request);
-            if (requests.isEmpty()) {
-                activeRequests.remove(key);
-            }
         }
     }
 
     private boolean inRole(String sessionID, String role) {
-        Iterator i = new ArrayList((Collection) activeRequests.get(sessionID)).iterator();
+        ConcurrentLinkedQueue requests = (ConcurrentLinkedQueue) activeRequests.get(sessionID);
+        if (requests == null) {
+            return false;
+        }
+        //the iterator is weakly consistent, no need to copy the requests
+        Iterator i = requests.iterator();
         while (i.hasNext()) {
             try {
                 HttpServletRequest request = (HttpServletRequest) i.next();
@@ -184,14 +197,15 @@ public abstract class SessionDispatcher extends EnvironmentAdaptingServlet {
             Log.error(e);
         }
 
-        synchronized (SessionMonitors) {
-            try {
-                sessionDispatcher.sessionDestroy(session);
-            } catch (Exception e) {
-                Log.error(e);
-            }
-            //ICE-3189 - do this before invalidating the session
-            SessionMonitors.remove(sessionID);
+        try {
+            sessionDispatcher.sessionDestroy(session);
+        } catch (Exception e) {
+            Log.error(e);
+        }
+        //ICE-3189 - do this before invalidating the session
+        Monitor monitor = (Monitor) SessionMonitors.remove(sessionID);
+        if (monitor != null) {
+            monitor.cancelExpiryCheck();
         }
     }
 
@@ -209,34 +223,12 @@ public abstract class SessionDispatcher extends EnvironmentAdaptingServlet {
     }
 
     public static class Listener implements ServletContextListener, HttpSessionListener {
-        private boolean run = true;
 
         public void contextInitialized(ServletContextEvent servletContextEvent) {
-            Thread monitor = new Thread("Session Monitor") {
-                public void run() {
-                    while (run) {
-                        try {
-                            // Iterate over the session monitors using a copying iterator
-                            Iterator iterator = new ArrayList(SessionMonitors.values()).iterator();
-                            while (iterator.hasNext()) {
-                                final Monitor sessionMonitor = (Monitor) iterator.next();
-                                sessionMonitor.shutdownIfExpired();
-                                ThreadLocalUtility.checkThreadLocals(ThreadLocalUtility.EXITING_SESSION_MONITOR);
-                            }
-
-                            Thread.sleep(10000);
-                        } catch (InterruptedException e) {
-                            //ignore interrupts
-                        }
-                    }
-                }
-            };
-            monitor.setDaemon(true);
-            monitor.start();
+            //session expiry is checked by timeouts scheduled when the session monitors are created
         }
 
         public void contextDestroyed(ServletContextEvent servletContextEvent) {
-            run = false;
         }
 
         public void sessionCreated(HttpSessionEvent event) {
@@ -261,10 +253,15 @@ public abstract class SessionDispatcher extends EnvironmentAdaptingServlet {
     }
 
     public static class Monitor {
+        //the expired sessions are shut down off the monitor runner thread, its tasks should not block
+        private static final ExecutorService ShutdownExecutor = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
         private final String POSITIVE_SESSION_TIMEOUT = "positive_session_timeout";
-        private Set contexts = new HashSet();
+        private Set contexts = new CopyOnWriteArraySet();
         private HttpSession session;
         private long lastAccess;
+        private MonitorRunner monitorRunner;
+        private TimingWheel.Timeout expiryCheck;
+        private boolean expiryCheckCancelled;
 
         private Monitor(HttpSession session) {
             this.session = session;
@@ -322,11 +319,57 @@ public abstract class SessionDispatcher extends EnvironmentAdaptingServlet {
             }
         }
 
+        private synchronized void scheduleExpiryCheck(MonitorRunner runner) {
+            //the check may have been cancelled while it was running
+            if (expiryCheckCancelled) {
+                return;
+            }
+            monitorRunner = runner;
+            //check again when the session would expire, unless it is touched in the meantime
+            long delay = lastAccess + session.getMaxInactiveInterval() * 1000 - 15000 - System.currentTimeMillis();
+            expiryCheck = runner.schedule(new Runnable() {
+                public void run() {
+                    if (isExpired()) {
+                        ShutdownExecutor.execute(new Runnable() {
+                            public void run() {
+                                shutdown();
+                                ThreadLocalUtility.checkThreadLocals(ThreadLocalUtility.EXITING_SESSION_MONITOR);
+                            }
+                        });
+                    } else {
+                        scheduleExpiryCheck(monitorRunner);
+                    }
+                }
+            }, delay);
+        }
+
+        private synchronized void cancelExpiryCheck() {
+            expiryCheckCancelled = true;
+            if (expiryCheck != null) {
+                expiryCheck.cancel();
+                expiryCheck = null;
+            }
+        }
+
         public void addInSessionContext(ServletContext context) {
             contexts.add(context);
         }
     }
 
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private ThreadFactory defaultThreadFactory;
+
+        private DaemonThreadFactory() {
+            defaultThreadFactory = Executors.defaultThreadFactory();
+        }
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = defaultThreadFactory.newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     private static class CurrentServer extends ThreadLocal {
         public Server lookup() {
             return (Server) get();
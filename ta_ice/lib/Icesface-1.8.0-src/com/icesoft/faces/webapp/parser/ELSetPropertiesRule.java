@@ -52,9 +52,19 @@ import java.util.HashMap;
 public class ELSetPropertiesRule extends Rule {
 
     public void begin(Attributes attributes) throws Exception {
+        setProperties(digester.peek(), attributes);
+    }
+
+    /**
+     * Set the tag properties from the attributes declared in the page.
+     *
+     * @param top        the tag
+     * @param attributes the attributes of the tag
+     * @throws Exception if a property cannot be set
+     */
+    public void setProperties(Object top, Attributes attributes) throws Exception {
         FacesContext facesContext = FacesContext.getCurrentInstance();
         HashMap values = new HashMap();
-        Object top = digester.peek();
 
         for (int i = 0; i < attributes.getLength(); i++) {
             String name = attributes.getLocalName(i);
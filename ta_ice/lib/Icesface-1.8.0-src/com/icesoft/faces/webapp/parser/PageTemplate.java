@@ -0,0 +1,164 @@
+package com.icesoft.faces.webapp.parser;
+
+import org.apache.commons.beanutils.BeanUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.servlet.jsp.tagext.Tag;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The tag processing tree of a page, as digested once by the {@link Parser}.
+ * <p/>
+ * The template records for each tag its class and the attributes (or body
+ * text) it was configured with, and is not modified after creation so that
+ * it can be shared by all the threads building views of the page. Since tag
+ * instances are stateful while the JSP lifecycle runs over them, every view
+ * gets a fresh tree of tags instantiated from the template, without going
+ * through the preprocessing of the page and the Digester again.
+ */
+public class PageTemplate {
+    private static final int JSF_TAG = 0;
+    private static final int XHTML_TAG = 1;
+    private static final int BODY_TEXT = 2;
+
+    private final Node root;
+    private final String viewTagClassName;
+
+    PageTemplate(TagWire rootWire, TagWire viewWire, String viewTagClassName) {
+        this.root = new Node(rootWire, viewWire);
+        this.viewTagClassName = viewTagClassName;
+    }
+
+    /**
+     * @return the class name of the view tag used for pages without one
+     */
+    public String getViewTagClassName() {
+        return viewTagClassName;
+    }
+
+    /**
+     * Instantiate and configure a new tree of tags.
+     *
+     * @return the wires of the root and of the view tag
+     * @throws Exception if a tag cannot be instantiated or configured
+     */
+    public Instance instantiate() throws Exception {
+        Instance instance = new Instance();
+        instance.rootWire = root.instantiate(null, instance);
+        return instance;
+    }
+
+    public static class Instance {
+        private TagWire rootWire;
+        private TagWire viewWire;
+
+        public TagWire getRootWire() {
+            return rootWire;
+        }
+
+        /**
+         * @return the wire of the view tag, or null when the page declares none
+         */
+        public TagWire getViewWire() {
+            return viewWire;
+        }
+    }
+
+    private static class Node {
+        private final int type;
+        private final Class tagClass;
+        private final String tagName;
+        private final String text;
+        private final Attributes attributes;
+        private final boolean view;
+        private final Node[] children;
+
+        private Node(TagWire wire, TagWire viewWire) {
+            Tag tag = wire.getTag();
+            tagClass = tag.getClass();
+            view = wire == viewWire;
+            if (tag instanceof XhtmlTag) {
+                XhtmlTag xhtmlTag = (XhtmlTag) tag;
+                type = XHTML_TAG;
+                tagName = xhtmlTag.getTagName();
+                attributes = copy(xhtmlTag.getAttributes());
+                text = null;
+            } else if (tag instanceof IceOutputTextTag && wire.getAttributes() == null) {
+                //body text has no attributes, the tags declared in the page always have
+                type = BODY_TEXT;
+                tagName = null;
+                attributes = null;
+                text = ((IceOutputTextTag) tag).getValue();
+            } else {
+                type = JSF_TAG;
+                tagName = null;
+                attributes = copy(wire.getAttributes());
+                text = null;
+            }
+
+            List wires = wire.getChildren();
+            children = new Node[wires.size()];
+            for (int i = 0; i < children.length; i++) {
+                children[i] = new Node((TagWire) wires.get(i), viewWire);
+            }
+        }
+
+        private TagWire instantiate(Tag parent, Instance instance) throws Exception {
+            TagWire wire = new TagWire();
+            Tag tag;
+            switch (type) {
+                case XHTML_TAG:
+                    XhtmlTag xhtmlTag = (XhtmlTag) tagClass.newInstance();
+                    xhtmlTag.setTagName(tagName);
+                    xhtmlTag.setAttributes(copy(attributes));
+                    tag = xhtmlTag;
+                    break;
+                case BODY_TEXT:
+                    IceOutputTextTag bodyTextTag = (IceOutputTextTag) tagClass.newInstance();
+                    bodyTextTag.setValue(text);
+                    tag = bodyTextTag;
+                    break;
+                default:
+                    tag = (Tag) tagClass.newInstance();
+                    setProperties(tag, attributes);
+                    wire.setAttributes(copy(attributes));
+            }
+            tag.setParent(parent);
+            wire.setTag(tag);
+            if (view) {
+                instance.viewWire = wire;
+            }
+
+            for (int i = 0; i < children.length; i++) {
+                wire.addChild(children[i].instantiate(tag, instance));
+            }
+            return wire;
+        }
+
+        /**
+         * Same as the properties rule the {@link ComponentRuleSet} adds for the JSF tags.
+         */
+        private static void setProperties(Tag tag, Attributes attributes) throws Exception {
+            if (ComponentRuleSet.isJSF12()) {
+                new ELSetPropertiesRule().setProperties(tag, attributes);
+            } else {
+                Map values = new HashMap();
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    String name = attributes.getLocalName(i);
+                    if ("".equals(name)) {
+                        name = attributes.getQName(i);
+                    }
+                    values.put(name, attributes.getValue(i));
+                }
+                BeanUtils.populate(tag, values);
+            }
+        }
+
+        private static Attributes copy(Attributes attributes) {
+            return attributes == null ? null : new AttributesImpl(attributes);
+        }
+    }
+}
@@ -109,10 +109,20 @@ public class Parser {
      */
     public void parse(Reader page, FacesContext context)
             throws java.io.IOException, org.xml.sax.SAXException {
-        // Need a mock pageContext
-        StubPageContext pageContext = new StubPageContext(context);
-        Set componentIds = new HashSet();
+        parse(compile(page), context);
+    }
 
+    /**
+     * Digests the page into a tag processing tree that can be shared by the
+     * views of the page.
+     *
+     * @param page The Reader for the page.
+     * @return the template of the tag processing tree
+     * @throws java.io.IOException      If stream IO fails.
+     * @throws org.xml.sax.SAXException If digester encounters invalid XML.
+     */
+    public PageTemplate compile(Reader page)
+            throws java.io.IOException, org.xml.sax.SAXException {
         //placeholder tag and wire
         XhtmlTag rootTag = new XhtmlTag();
         rootTag.setTagName("ICEtag");
@@ -130,9 +140,34 @@ public class Parser {
             digester.parse(page);
             realViewWire = digester.getViewWire();
             viewTagClassName = digester.getViewTagClassName();
+            //do not keep the last page referenced from the digester
+            digester.clear();
+            digester.setViewWire(null);
         }
 
+        return new PageTemplate(rootWire, realViewWire, viewTagClassName);
+    }
+
+    /**
+     * Executes the JSP lifecycle across a new tag processing tree
+     * instantiated from the template. The end result is a JSF component
+     * rooted with a UIViewRoot component.
+     *
+     * @param template The template of the page.
+     * @param context
+     */
+    public void parse(PageTemplate template, FacesContext context) {
+        // Need a mock pageContext
+        StubPageContext pageContext = new StubPageContext(context);
+        Set componentIds = new HashSet();
+        TagWire rootWire = null;
+        TagWire realViewWire = null;
+        String viewTagClassName = template.getViewTagClassName();
+
         try {
+            PageTemplate.Instance instance = template.instantiate();
+            rootWire = instance.getRootWire();
+            realViewWire = instance.getViewWire();
 
             // #2551 We have captured the real View Tag (from wherever it was in the tree)
             // now we check to see if it's the first child of this fake root, and
@@ -174,7 +209,7 @@ public class Parser {
                 log.debug("Dumping Tag Hierarchy");
                 if (realViewWire != null) {
                     displayHierarchy(realViewWire);
-                } else {
+                } else if (rootWire != null) {
                     displayHierarchy(rootWire);
                 }
             }
@@ -1,12 +1,13 @@
 package com.icesoft.faces.webapp.parser;
 
-import javax.servlet.http.HttpServletRequest;
-
 /**
  * This is a stubbed out version of the HttpServletRequest class.  Only the
  * mimimum number of members required by the parser are implemented.
+ * <p/>
+ * The interface is not declared so that the stub compiles against any
+ * version of the Servlet API, see {@link StubPageContext}.
  */
-public class StubHttpServletRequest implements HttpServletRequest {
+public class StubHttpServletRequest {
 
 
     public java.lang.String getAuthType() {
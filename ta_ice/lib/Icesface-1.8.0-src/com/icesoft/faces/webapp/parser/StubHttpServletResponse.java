@@ -35,7 +35,6 @@ package com.icesoft.faces.webapp.parser;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.Cookie;
-import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Locale;
@@ -44,10 +43,13 @@ import java.util.Locale;
 /**
  * This is a stubbed out version of the HttpServletResponse class.  Only the
  * mimimum number of members required by the parser are implemented.
+ * <p/>
+ * The interface is not declared so that the stub compiles against any
+ * version of the Servlet API, see {@link StubPageContext}.
  *
  * @author Adnan Durrani
  */
-public class StubHttpServletResponse implements HttpServletResponse {
+public class StubHttpServletResponse {
 
 
     /* 
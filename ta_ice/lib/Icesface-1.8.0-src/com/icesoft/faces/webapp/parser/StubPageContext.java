@@ -34,6 +34,7 @@
 package com.icesoft.faces.webapp.parser;
 
 import com.icesoft.faces.util.IteratorEnumeration;
+import com.icesoft.util.InterfaceAdapter;
 
 import javax.el.ELContext;
 import javax.faces.context.ExternalContext;
@@ -44,6 +45,8 @@ import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import javax.servlet.jsp.JspWriter;
 import javax.servlet.jsp.PageContext;
@@ -68,8 +71,10 @@ public class StubPageContext extends PageContext {
 
     public StubPageContext(FacesContext context) {
         this.externalContext = context.getExternalContext();
-        this.servletRequest = new StubHttpServletRequest();
-        this.servletResponse = new StubHttpServletResponse();
+        this.servletRequest = (ServletRequest) InterfaceAdapter.adapt(new StubHttpServletRequest(),
+                StubHttpServletRequest.class, HttpServletRequest.class);
+        this.servletResponse = (ServletResponse) InterfaceAdapter.adapt(new StubHttpServletResponse(),
+                StubHttpServletResponse.class, HttpServletResponse.class);
     }
 
     public void initialize(Servlet servlet, ServletRequest servletRequest, ServletResponse servletResponse, String s, boolean b, int i, boolean b1) throws IOException, IllegalStateException, IllegalArgumentException {
@@ -41,6 +41,7 @@ import com.icesoft.faces.webapp.http.common.Configuration;
 import com.icesoft.faces.webapp.http.core.SessionExpiredException;
 import com.icesoft.faces.webapp.parser.ImplementationUtil;
 import com.icesoft.util.SeamUtilities;
+import com.icesoft.util.metrics.PushMetrics;
 import edu.emory.mathcs.backport.java.util.concurrent.ExecutorService;
 import edu.emory.mathcs.backport.java.util.concurrent.Executors;
 import edu.emory.mathcs.backport.java.util.concurrent.ThreadFactory;
@@ -203,10 +204,21 @@ public class PersistentFacesState implements Serializable {
      * @param warnSync Whether warn if in synchronous mode
      */
     public void renderLater(Runnable setup, boolean warnSync) {
+        renderLater(setup, null, warnSync);
+    }
+
+    /**
+     * @param setup      Runnable to run, in the proper thread context, before
+     *                   doing the JSF lifecycle
+     * @param completion Runnable to run once the JSF lifecycle ended, even if
+     *                   it failed
+     * @param warnSync   Whether warn if in synchronous mode
+     */
+    public void renderLater(Runnable setup, Runnable completion, boolean warnSync) {
         if (warnSync) {
             warnIfSynchronous();
         }
-        executorService.execute(new RenderRunner(setup));
+        executorService.execute(new RenderRunner(setup, completion));
     }
 
     /**
@@ -295,8 +307,10 @@ public class PersistentFacesState implements Serializable {
     public void executeAndRender() throws RenderingException {
         view.acquireLifecycleLock();
         view.getFacesContext().injectBundles();
+        long start = PushMetrics.start();
         execute();
         render();
+        PushMetrics.record(PushMetrics.Lifecycle, start);
     }
 
     public void setupAndExecuteAndRender() throws RenderingException {
@@ -398,6 +412,7 @@ public class PersistentFacesState implements Serializable {
     private class RenderRunner implements Runnable {
         private final long delay;
         private Runnable setup;
+        private Runnable completion;
 
         public RenderRunner() {
             delay = 0;
@@ -411,9 +426,10 @@ public class PersistentFacesState implements Serializable {
          * @param setup Runnable to run, in the proper thread context, before
          *              doing the JSF lifecycle
          */
-        public RenderRunner(Runnable setup) {
+        public RenderRunner(Runnable setup, Runnable completion) {
             delay = 0;
             this.setup = setup;
+            this.completion = completion;
         }
 
         /**
@@ -433,6 +449,10 @@ public class PersistentFacesState implements Serializable {
                 //ignore
             } catch (IllegalStateException e) {
                 log.debug("renderLater failed ", e);
+            } finally {
+                if (completion != null) {
+                    completion.run();
+                }
             }
         }
     }
@@ -64,6 +64,14 @@ import org.apache.commons.logging.LogFactory;
  *   length is merely intended to find the sweet spot for the maximum message
  *   length.
  * </p>
+ * <p>
+ *   Only one concatenated Message per MessagePipeline is being send at a time.
+ *   Messages coming in meanwhile are concatenated into the next Message, which
+ *   is send as soon as the previous one is done. If the next Message reached
+ *   the maximum length before that, enqueueing blocks until the previous
+ *   Message is done, so that a slow receiver holds back its publishers instead
+ *   of letting the pending Messages grow without bounds.
+ * </p>
  *
  * @see        MessageServiceConfiguration
  * @see        Message
@@ -77,6 +85,7 @@ public class MessagePipeline {
     private String topicName;
     private Message message;
     private PublishTask publishTask;
+    private boolean publishing = false;
 
     private final Object messageLock = new Object();
 
@@ -108,7 +117,9 @@ public class MessagePipeline {
      *   actual publishment of the resulting concatenated Message. As other
      *   Messages come in they will be concatenated to the Messages already in
      *   this MessagePipeline. As soon as one of the conditions is met, the
-     *   concatenated Message is send.
+     *   concatenated Message is send. While the previous concatenated Message
+     *   is being send, the <code>message</code> is held for the next one and
+     *   this method blocks if that one already reached the maximum length.
      * </p>
      *
      * @param      message
@@ -116,26 +127,40 @@ public class MessagePipeline {
      * @see        PublishTask
      */
     public void enqueue(final Message message) {
+        int _messageMaxLength =
+            messageServiceClient.getMessageServiceConfiguration().
+                getMessageMaxLength();
         synchronized (messageLock) {
+            while (publishing &&
+                   this.message != null &&
+                   this.message.getLength() >= _messageMaxLength) {
+
+                try {
+                    messageLock.wait();
+                } catch (InterruptedException exception) {
+                    // enqueue anyway, but preserve the interrupt.
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
             if (this.message == null) {
                 this.message = message;
-                publishTask = new PublishTask(this);
-                if (this.message.getLength() >=
-                        messageServiceClient.getMessageServiceConfiguration().
-                            getMessageMaxLength()) {
-
-                    messageServiceClient.schedule(publishTask, 0);
-                } else {
-                    messageServiceClient.schedule(
-                        publishTask,
-                        messageServiceClient.getMessageServiceConfiguration().
-                            getMessageMaxDelay());
+                if (!publishing) {
+                    publishTask = new PublishTask(this);
+                    if (this.message.getLength() >= _messageMaxLength) {
+                        messageServiceClient.schedule(publishTask, 0);
+                    } else {
+                        messageServiceClient.schedule(
+                            publishTask,
+                            messageServiceClient.
+                                getMessageServiceConfiguration().
+                                    getMessageMaxDelay());
+                    }
                 }
             } else {
                 this.message.append(message);
-                if (this.message.getLength() >=
-                        messageServiceClient.getMessageServiceConfiguration().
-                            getMessageMaxLength()) {
+                if (!publishing &&
+                    this.message.getLength() >= _messageMaxLength) {
 
                     publishTask.cancel();
                     publishTask = new PublishTask(this);
@@ -145,20 +170,35 @@ public class MessagePipeline {
         }
     }
 
-    void publish() {                  
+    void publish() {
+        Message _message;
         synchronized (messageLock) {
-            try {
-                messageServiceClient.getMessageServiceAdapter().
-                    publish(message, topicName);
-                publishTask = null;
-            } catch (MessageServiceException exception) {
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug(
-                        exception.getMessage() + "\r\n" +
-                        "Unable to publish message:\r\n\r\n" + message);
+            if (message == null || publishing) {
+                return;
+            }
+            _message = message;
+            message = null;
+            publishTask = null;
+            publishing = true;
+        }
+        try {
+            messageServiceClient.getMessageServiceAdapter().
+                publish(_message, topicName);
+        } catch (MessageServiceException exception) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                    exception.getMessage() + "\r\n" +
+                    "Unable to publish message:\r\n\r\n" + _message);
+            }
+        } finally {
+            synchronized (messageLock) {
+                publishing = false;
+                if (message != null) {
+                    // the messages enqueued meanwhile already waited.
+                    publishTask = new PublishTask(this);
+                    messageServiceClient.schedule(publishTask, 0);
                 }
-            } finally {
-                message = null;
+                messageLock.notifyAll();
             }
         }
     }
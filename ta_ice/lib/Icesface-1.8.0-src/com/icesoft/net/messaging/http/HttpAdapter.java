@@ -1,5 +1,6 @@
 package com.icesoft.net.messaging.http;
 
+import com.icesoft.faces.webapp.http.common.Configuration;
 import com.icesoft.faces.webapp.http.common.Request;
 import com.icesoft.faces.webapp.http.common.Server;
 import com.icesoft.faces.webapp.http.common.standard.OKHandler;
@@ -19,9 +20,9 @@ import com.icesoft.net.messaging.expression.Expression;
 import com.icesoft.net.messaging.expression.Or;
 import com.icesoft.util.ServerUtility;
 
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.URL;
@@ -49,6 +50,8 @@ implements MessageServiceAdapter {
     private String localAddress;
     private int localPort;
     private boolean running = false;
+    private int connectTimeout;
+    private int readTimeout;
 
     public HttpAdapter(final ServletContext servletContext) {
         this(null, -1, servletContext);
@@ -61,6 +64,17 @@ implements MessageServiceAdapter {
         super(servletContext);
         this.localAddress = localAddress;
         this.localPort = localPort;
+        Configuration _configuration =
+            new ServletContextConfiguration(
+                "com.icesoft.faces", servletContext);
+        // a peer that stops reading must not hold the publishing thread, nor
+        // thereby the publishers waiting on their MessagePipeline, forever.
+        connectTimeout =
+            _configuration.getAttributeAsInteger(
+                "messagingConnectTimeout", 5000);
+        readTimeout =
+            _configuration.getAttributeAsInteger(
+                "messagingReadTimeout", 30000);
         httpMessagingDispatcher =
             new EnvironmentAdaptingServlet(
                 new Server() {
@@ -168,8 +182,7 @@ implements MessageServiceAdapter {
                         // do nothing.
                     }
                 },
-                new ServletContextConfiguration(
-                    "com.icesoft.faces", servletContext),
+                _configuration,
                 servletContext);
     }
 
@@ -208,9 +221,14 @@ implements MessageServiceAdapter {
             running) {
 
             HttpURLConnection _connection = null;
-            OutputStreamWriter _writer = null;
-            InputStreamReader _reader = null;
             try {
+                // encoded up front, so that the body is streamed with a known
+                // length instead of being buffered by the connection.
+                byte[] _body =
+                    new StringBuffer().
+                        append(encode("message")).append('=').
+                            append(encode(((TextMessage)message).getText())).
+                        toString().getBytes("US-ASCII");
                 _connection =
                     (HttpURLConnection)
                         new URL(
@@ -225,22 +243,25 @@ implements MessageServiceAdapter {
                 _connection.setDoInput(true);
                 _connection.setDoOutput(true);
                 _connection.setRequestMethod("POST");
+                _connection.setConnectTimeout(connectTimeout);
+                _connection.setReadTimeout(readTimeout);
+                _connection.setFixedLengthStreamingMode(_body.length);
+                _connection.setRequestProperty(
+                    "Content-Type", "application/x-www-form-urlencoded");
                 propertiesToHeaders(message, _connection);
                 _connection.setRequestProperty("X-Target-Name", targetName);
-                _writer =
-                    new OutputStreamWriter(_connection.getOutputStream());
-                _writer.write(
-                    new StringBuffer().
-                        append(encode("message")).append('=').
-                            append(encode(((TextMessage)message).getText())).
-                        toString());
-                _writer.flush();
+                OutputStream _output = _connection.getOutputStream();
+                try {
+                    _output.write(_body);
+                } finally {
+                    _output.close();
+                }
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(
                         "Outgoing message:\r\n\r\n" +
                             message);
                 }
-                _reader = new InputStreamReader(_connection.getInputStream());
+                consume(_connection.getInputStream());
                 if (LOG.isDebugEnabled()) {
                     StringBuffer _buffer = new StringBuffer();
                     Iterator _headerFields =
@@ -266,46 +287,9 @@ implements MessageServiceAdapter {
                     } catch (IOException e) {
                         // do nothing.
                     }
-                    try {
-                        _reader =
-                            new InputStreamReader(_connection.getErrorStream());
-                    } catch (Exception e) {
-                        // do nothing.
-                    }
+                    consume(_connection.getErrorStream());
                 }
                 throw new MessageServiceException(exception);
-            } finally {
-                if (_connection != null &&
-                    _connection.getContentLength() != 0 &&
-                    _reader != null) {
-
-                    try {
-                        for (
-                            int i = 0,
-                                _contentLength = _connection.getContentLength();
-                            i < _contentLength;
-                            i++) {
-
-                            _reader.read();
-                        }
-                    } catch (IOException exception) {
-                        // do nothing.
-                    }
-                }
-                if (_writer != null) {
-                    try {
-                        _writer.close();
-                    } catch (IOException exception) {
-                        // do nothing.
-                    }
-                }
-                if (_reader != null) {
-                    try {
-                        _reader.close();
-                    } catch (IOException exception) {
-                        // do nothing.
-                    }
-                }
             }
         }
     }
@@ -370,6 +354,32 @@ implements MessageServiceAdapter {
         }
     }
 
+    /**
+     * <p>
+     *   Reads the remainder of the response body and closes the stream, which
+     *   allows the underlying connection to be kept alive and reused for the
+     *   next message to the same peer.
+     * </p>
+     */
+    private static void consume(final InputStream in) {
+        if (in != null) {
+            byte[] _buffer = new byte[512];
+            try {
+                while (in.read(_buffer) != -1) {
+                    // discard.
+                }
+            } catch (IOException exception) {
+                // do nothing.
+            } finally {
+                try {
+                    in.close();
+                } catch (IOException exception) {
+                    // do nothing.
+                }
+            }
+        }
+    }
+
     private static String encode(final String string)
     throws UnsupportedEncodingException {
         return URLEncoder.encode(string, "UTF-8");
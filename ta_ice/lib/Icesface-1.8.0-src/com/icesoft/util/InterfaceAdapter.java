@@ -0,0 +1,81 @@
+package com.icesoft.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exposes an object through an interface it does not declare, by calling the
+ * public methods of the object having the same signature. The methods of the
+ * interface the object does not have throw UnsupportedOperationException.
+ * <p/>
+ * The classes standing in for the request and response of the container do
+ * not implement the Servlet API interfaces themselves, so that they compile
+ * against any version of the API; the methods added by later versions of the
+ * interfaces are not supported.
+ */
+public class InterfaceAdapter implements InvocationHandler {
+    //resolved methods for each type of adapted object, keyed by interface method
+    private static final ConcurrentHashMap ResolvedMethods = new ConcurrentHashMap();
+    private static final Object Unsupported = new Object();
+
+    private final Object target;
+    private final Class targetType;
+    private final Map methods;
+
+    private InterfaceAdapter(Object target, Class targetType) {
+        this.target = target;
+        this.targetType = targetType;
+        Map methods = (Map) ResolvedMethods.get(targetType);
+        if (methods == null) {
+            ResolvedMethods.putIfAbsent(targetType, new ConcurrentHashMap());
+            methods = (Map) ResolvedMethods.get(targetType);
+        }
+        this.methods = methods;
+    }
+
+    /**
+     * @param target     the object to expose
+     * @param targetType the public type declaring the methods of the object,
+     *                   used instead of the class of the object which may not be accessible
+     * @param type       the interface to expose the object through
+     * @return a proxy implementing the interface
+     */
+    public static Object adapt(Object target, Class targetType, Class type) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, new InterfaceAdapter(target, targetType));
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        //the proxy is the identity seen by the callers
+        if (method.getDeclaringClass() == Object.class) {
+            String name = method.getName();
+            if ("equals".equals(name)) {
+                return Boolean.valueOf(proxy == args[0]);
+            } else if ("hashCode".equals(name)) {
+                return new Integer(System.identityHashCode(proxy));
+            } else {
+                return target.toString();
+            }
+        }
+        Object resolved = methods.get(method);
+        if (resolved == null) {
+            try {
+                resolved = targetType.getMethod(method.getName(), method.getParameterTypes());
+            } catch (NoSuchMethodException e) {
+                resolved = Unsupported;
+            }
+            methods.put(method, resolved);
+        }
+        if (resolved == Unsupported) {
+            throw new UnsupportedOperationException(method.getName() + " is not supported by " + targetType.getName());
+        }
+        try {
+            return ((Method) resolved).invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
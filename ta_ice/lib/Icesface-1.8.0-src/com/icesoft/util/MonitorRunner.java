@@ -1,51 +1,26 @@
 package com.icesoft.util;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Iterator;
-
 public class MonitorRunner {
-    private static final Log log = LogFactory.getLog(MonitorRunner.class);
-    private Collection monitors = new ArrayList();
-    private boolean run = true;
+    private static final long MaxTickDuration = 1000;
+    private final TimingWheel wheel;
 
     public MonitorRunner(final long interval) {
-        Thread thread = new Thread("Monitor Runner") {
-            public void run() {
-                while (run) {
-                    try {
-                        Thread.sleep(interval);
-                        Iterator i = new ArrayList(monitors).iterator();
-                        while (i.hasNext()) {
-                            Runnable monitor = (Runnable) i.next();
-                            try {
-                                monitor.run();
-                            } catch (Throwable t) {
-                                log.warn("Failed to run monitor: " + monitor);
-                            }
-                        }
-                    } catch (InterruptedException e) {
-                        //do nothing
-                    }
-                }
-            }
-        };
-        thread.setDaemon(true);
-        thread.start();
-    }
-
-    public void registerMonitor(Runnable monitor) {
-        monitors.add(monitor);
+        this.wheel = new TimingWheel("Monitor Runner", Math.min(interval, MaxTickDuration));
     }
 
-    public void unregisterMonitor(Runnable monitor) {
-        monitors.remove(monitor);
+    /**
+     * Run the task once, when the delay elapses. The task is not polled, the cost of a scheduled task
+     * that is cancelled before it expires is constant.
+     *
+     * @param task  the task to run, it should not block
+     * @param delay delay in milliseconds
+     * @return the handle used to cancel the task
+     */
+    public TimingWheel.Timeout schedule(Runnable task, long delay) {
+        return wheel.schedule(task, delay);
     }
 
     public void stop() {
-        run = false;
+        wheel.stop();
     }
 }
@@ -0,0 +1,185 @@
+package com.icesoft.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Hierarchical timing wheel used to run a large number of cancellable
+ * timeouts from a single thread.
+ * <p/>
+ * Each level of the wheel has the same number of slots, a slot on level
+ * <code>n</code> covering <code>wheelSize^n</code> ticks. Timeouts are
+ * linked into the slot of the lowest level that can hold them and are moved
+ * down one level when the wheel turns over the slot they are in, until they
+ * reach the first level and expire. Scheduling and cancelling are constant
+ * time operations, and the work done on each tick is proportional to the
+ * number of timeouts that are due (or moved down) on that tick, regardless of
+ * how many timeouts are pending.
+ */
+public class TimingWheel {
+    private static final Log log = LogFactory.getLog(TimingWheel.class);
+    private static final int LevelBits = 6;
+    private static final int WheelSize = 1 << LevelBits;
+    private static final int WheelMask = WheelSize - 1;
+    private static final int Levels = 4;
+    private static final long MaxTicks = (1L << (LevelBits * Levels)) - 1;
+
+    private final Entry[][] wheels = new Entry[Levels][WheelSize];
+    private final long tickDuration;
+    private final long startTime;
+    private long currentTick = 0;
+    private boolean run = true;
+
+    public TimingWheel(String name, long tickDuration) {
+        this.tickDuration = tickDuration;
+        this.startTime = System.currentTimeMillis();
+        for (int level = 0; level < Levels; level++) {
+            for (int slot = 0; slot < WheelSize; slot++) {
+                Entry head = new Entry(null, 0);
+                head.next = head;
+                head.previous = head;
+                wheels[level][slot] = head;
+            }
+        }
+
+        Thread thread = new Thread(name) {
+            public void run() {
+                while (isRunning()) {
+                    try {
+                        long nextTickTime;
+                        synchronized (TimingWheel.this) {
+                            nextTickTime = startTime + (currentTick + 1) * TimingWheel.this.tickDuration;
+                        }
+                        long sleep = nextTickTime - System.currentTimeMillis();
+                        if (sleep > 0) {
+                            Thread.sleep(sleep);
+                        }
+                        tick();
+                    } catch (InterruptedException e) {
+                        //do nothing
+                    }
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Run the task once the delay elapsed. The task is executed by the thread
+     * of the wheel and thus it should not block.
+     *
+     * @param task  the task to run
+     * @param delay delay in milliseconds
+     * @return the handle used to cancel the timeout
+     */
+    public synchronized Timeout schedule(Runnable task, long delay) {
+        long ticks = (System.currentTimeMillis() - startTime + Math.max(delay, 0) + tickDuration - 1) / tickDuration;
+        Entry entry = new Entry(task, Math.max(ticks, currentTick));
+        link(entry);
+        return entry;
+    }
+
+    public synchronized void stop() {
+        run = false;
+    }
+
+    private synchronized boolean isRunning() {
+        return run;
+    }
+
+    private void tick() {
+        Entry expired;
+        synchronized (this) {
+            int slot = (int) (currentTick & WheelMask);
+            //move down the timeouts from the higher levels when the lower level turns over
+            for (int level = 1; level < Levels && slot == 0; level++) {
+                slot = (int) ((currentTick >>> (LevelBits * level)) & WheelMask);
+                Entry cascaded = unlinkAll(wheels[level][slot]);
+                while (cascaded != null) {
+                    Entry next = cascaded.next;
+                    link(cascaded);
+                    cascaded = next;
+                }
+            }
+            expired = unlinkAll(wheels[0][(int) (currentTick & WheelMask)]);
+            currentTick++;
+        }
+
+        while (expired != null) {
+            Entry next = expired.next;
+            try {
+                expired.task.run();
+            } catch (Throwable t) {
+                log.warn("Failed to run timeout: " + expired.task, t);
+            }
+            expired = next;
+        }
+    }
+
+    private void link(Entry entry) {
+        long ticks = entry.deadline - currentTick;
+        Entry head;
+        if (ticks < 0) {
+            head = wheels[0][(int) (currentTick & WheelMask)];
+        } else {
+            //timeouts beyond the range of the wheel are parked in the farthest slot and placed again on cascading
+            long deadline = ticks > MaxTicks ? currentTick + MaxTicks : entry.deadline;
+            ticks = deadline - currentTick;
+            int level = 0;
+            while (level < Levels - 1 && ticks >= (1L << (LevelBits * (level + 1)))) {
+                level++;
+            }
+            head = wheels[level][(int) ((deadline >>> (LevelBits * level)) & WheelMask)];
+        }
+        entry.previous = head.previous;
+        entry.next = head;
+        head.previous.next = entry;
+        head.previous = entry;
+    }
+
+    private static Entry unlinkAll(Entry head) {
+        if (head.next == head) {
+            return null;
+        }
+        Entry first = head.next;
+        head.previous.next = null;
+        head.next = head;
+        head.previous = head;
+        //entries detached from the wheel are chained only through their 'next' reference
+        for (Entry entry = first; entry != null; entry = entry.next) {
+            entry.previous = null;
+        }
+        return first;
+    }
+
+    public interface Timeout {
+        /**
+         * Prevent the task from running, has no effect if the task was already executed.
+         */
+        void cancel();
+    }
+
+    private class Entry implements Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private Entry previous;
+        private Entry next;
+
+        private Entry(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public void cancel() {
+            synchronized (TimingWheel.this) {
+                if (previous != null) {
+                    previous.next = next;
+                    next.previous = previous;
+                    previous = null;
+                    next = null;
+                }
+            }
+        }
+    }
+}
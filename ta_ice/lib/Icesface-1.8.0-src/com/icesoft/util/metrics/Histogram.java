@@ -0,0 +1,105 @@
+package com.icesoft.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of non-negative values with logarithmic buckets, in
+ * the manner of HdrHistogram. Values below 32 are counted exactly, larger
+ * values are counted in buckets whose width is 1/16 of their magnitude so
+ * percentiles are reported with a relative error of at most 6.25%. Recording
+ * a value is a single atomic increment plus the updates of the sum and of the
+ * maximum.
+ */
+public class Histogram {
+    private static final int SubBucketBits = 5;
+    private static final int SubBucketCount = 1 << SubBucketBits;
+    private static final int SubBucketHalfCount = SubBucketCount >> 1;
+    private static final int BucketCount = SubBucketCount + (64 - SubBucketBits) * SubBucketHalfCount;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BucketCount);
+    private final StripedCounter sum = new StripedCounter();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(index(value));
+        sum.add(value);
+        long currentMax;
+        while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+            //retry
+        }
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BucketCount; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest value equivalent to the value at the given percentile, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[BucketCount];
+        long count = 0;
+        for (int i = 0; i < BucketCount; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BucketCount; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BucketCount; i++) {
+            counts.set(i, 0);
+        }
+        sum.reset();
+        max.set(0);
+    }
+
+    private static int index(long value) {
+        if (value < SubBucketCount) {
+            return (int) value;
+        }
+        //keep the 4 most significant bits after the leading one
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SubBucketBits;
+        return SubBucketCount + (shift - 1) * SubBucketHalfCount + (int) ((value >>> shift) - SubBucketHalfCount);
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SubBucketCount) {
+            return index;
+        }
+        int bucket = index - SubBucketCount;
+        int shift = bucket / SubBucketHalfCount + 1;
+        long subBucket = bucket % SubBucketHalfCount + SubBucketHalfCount;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
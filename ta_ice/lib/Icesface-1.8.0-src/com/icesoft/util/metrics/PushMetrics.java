@@ -0,0 +1,202 @@
+package com.icesoft.util.metrics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency histograms and counters of the push pipeline, from the execution of
+ * the JSF lifecycle to the delivery of the updates to the browser.
+ * <p/>
+ * Collection is disabled by default (see the <code>pushMetrics</code>
+ * configuration parameter) in which case timing a stage costs only a volatile
+ * read. The measurements are published as a JMX MBean and, optionally, as a
+ * plain text page (see {@link com.icesoft.faces.webapp.http.core.ServeMetrics}).
+ * <p/>
+ * Usage:
+ * <pre>
+ * long start = PushMetrics.start();
+ * ...
+ * PushMetrics.record(PushMetrics.DOMDiff, start);
+ * </pre>
+ */
+public class PushMetrics implements PushMetricsMBean {
+    private static final Log log = LogFactory.getLog(PushMetrics.class);
+    private static final PushMetrics Metrics = new PushMetrics();
+    private static final Map Stages = new LinkedHashMap();
+    public static final Histogram Lifecycle = stage("lifecycle");
+    public static final Histogram DOMDiff = stage("domDiff");
+    public static final Histogram Serialization = stage("serialization");
+    public static final Histogram ViewQueueWait = stage("viewQueueWait");
+    public static final Histogram BlockingConnectionHold = stage("blockingConnectionHold");
+    public static final Histogram RenderToClient = stage("renderToClient");
+    public static final StripedCounter RenderRequests = new StripedCounter();
+    public static final StripedCounter RenderRejections = new StripedCounter();
+    private static volatile boolean enabled = false;
+    private static volatile Collection renderQueue;
+    private static ObjectName registeredName;
+
+    private PushMetrics() {
+    }
+
+    private static Histogram stage(String name) {
+        Histogram histogram = new Histogram();
+        Stages.put(name, histogram);
+        return histogram;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable the collection of the metrics and register the MBean under the
+     * given name.
+     */
+    public static synchronized void enable(String name) {
+        enabled = true;
+        try {
+            ObjectName objectName = new ObjectName("com.icesoft.faces:type=PushMetrics,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(Metrics, objectName);
+                registeredName = objectName;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to register push metrics MBean", e);
+        }
+    }
+
+    public static synchronized void disable() {
+        enabled = false;
+        if (registeredName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            } catch (Exception e) {
+                log.debug("Failed to unregister push metrics MBean", e);
+            }
+            registeredName = null;
+        }
+    }
+
+    /**
+     * @return the start time of a measurement, or 0 when the metrics are disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Record the time elapsed since the start of the measurement. Measurements
+     * started while the metrics were disabled are ignored.
+     */
+    public static void record(Histogram stage, long start) {
+        if (start != 0) {
+            stage.record((System.nanoTime() - start) / 1000);
+        }
+    }
+
+    public static void increment(StripedCounter counter) {
+        if (enabled) {
+            counter.increment();
+        }
+    }
+
+    public static void monitorRenderQueue(Collection queue) {
+        renderQueue = queue;
+    }
+
+    public static String currentReport() {
+        return Metrics.report();
+    }
+
+    public long getRenderToClientP99() {
+        return RenderToClient.getValueAtPercentile(99);
+    }
+
+    public long getLifecycleP99() {
+        return Lifecycle.getValueAtPercentile(99);
+    }
+
+    public long getDOMDiffP99() {
+        return DOMDiff.getValueAtPercentile(99);
+    }
+
+    public long getSerializationP99() {
+        return Serialization.getValueAtPercentile(99);
+    }
+
+    public long getViewQueueWaitP99() {
+        return ViewQueueWait.getValueAtPercentile(99);
+    }
+
+    public long getBlockingConnectionHoldP99() {
+        return BlockingConnectionHold.getValueAtPercentile(99);
+    }
+
+    public long getRenderRequests() {
+        return RenderRequests.sum();
+    }
+
+    public long getRenderRejections() {
+        return RenderRejections.sum();
+    }
+
+    public long getRenderQueueDepth() {
+        Collection queue = renderQueue;
+        return queue == null ? 0 : queue.size();
+    }
+
+    public long getValueAtPercentile(String stage, double percentile) {
+        Histogram histogram = (Histogram) Stages.get(stage);
+        if (histogram == null) {
+            throw new IllegalArgumentException("Unknown stage: " + stage);
+        }
+        return histogram.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * @return the metrics as 'name value' lines, durations in microseconds
+     */
+    public String report() {
+        StringWriter buffer = new StringWriter();
+        PrintWriter writer = new PrintWriter(buffer);
+        writer.println("enabled " + enabled);
+        Iterator i = Stages.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry entry = (Map.Entry) i.next();
+            String name = (String) entry.getKey();
+            Histogram histogram = (Histogram) entry.getValue();
+            writer.println(name + ".count " + histogram.getCount());
+            writer.println(name + ".mean " + Math.round(histogram.getMean()));
+            writer.println(name + ".p50 " + histogram.getValueAtPercentile(50));
+            writer.println(name + ".p90 " + histogram.getValueAtPercentile(90));
+            writer.println(name + ".p99 " + histogram.getValueAtPercentile(99));
+            writer.println(name + ".p999 " + histogram.getValueAtPercentile(99.9));
+            writer.println(name + ".max " + histogram.getMax());
+        }
+        writer.println("renderRequests " + getRenderRequests());
+        writer.println("renderRejections " + getRenderRejections());
+        writer.println("renderQueueDepth " + getRenderQueueDepth());
+        writer.flush();
+        return buffer.toString();
+    }
+
+    public void reset() {
+        Iterator i = Stages.values().iterator();
+        while (i.hasNext()) {
+            ((Histogram) i.next()).reset();
+        }
+        RenderRequests.reset();
+        RenderRejections.reset();
+    }
+}
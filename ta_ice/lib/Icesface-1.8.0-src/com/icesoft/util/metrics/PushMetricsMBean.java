@@ -0,0 +1,31 @@
+package com.icesoft.util.metrics;
+
+/**
+ * Management interface of {@link PushMetrics}. Durations are in microseconds.
+ */
+public interface PushMetricsMBean {
+
+    long getRenderToClientP99();
+
+    long getLifecycleP99();
+
+    long getDOMDiffP99();
+
+    long getSerializationP99();
+
+    long getViewQueueWaitP99();
+
+    long getBlockingConnectionHoldP99();
+
+    long getRenderRequests();
+
+    long getRenderRejections();
+
+    long getRenderQueueDepth();
+
+    long getValueAtPercentile(String stage, double percentile);
+
+    String report();
+
+    void reset();
+}
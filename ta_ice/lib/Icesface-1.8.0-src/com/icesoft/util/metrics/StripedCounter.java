@@ -0,0 +1,42 @@
+package com.icesoft.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter spreading the updates over several cells, selected by thread, so
+ * that threads updating it concurrently rarely contend on the same cell.
+ * The cells are spaced apart so that they do not share cache lines.
+ */
+public class StripedCounter {
+    private static final int Stripes = 16;
+    private static final int Spacing = 8;
+    private final AtomicLongArray cells = new AtomicLongArray(Stripes * Spacing);
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long delta) {
+        cells.addAndGet(cell(), delta);
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < Stripes; i++) {
+            sum += cells.get(i * Spacing);
+        }
+        return sum;
+    }
+
+    public void reset() {
+        for (int i = 0; i < Stripes; i++) {
+            cells.set(i * Spacing, 0);
+        }
+    }
+
+    private static int cell() {
+        int hash = System.identityHashCode(Thread.currentThread());
+        hash ^= hash >>> 16;
+        return (hash & (Stripes - 1)) * Spacing;
+    }
+}
@@ -35,7 +35,7 @@ package com.icesoft.util.pooling;
 
 public class CSSNamePool {
 
-    private static StringInternMapLRU pool = new StringInternMapLRU("com.icesoft.faces.cssNamePoolMaxSize");
+    private static ConcurrentInternPool pool = new ConcurrentInternPool("com.icesoft.faces.cssNamePoolMaxSize");
     
     public static String get(String className) {
         return (String) pool.get(className);
@@ -44,4 +44,11 @@ public class CSSNamePool {
     public static int getSize() {
         return pool.getSize();
     }
+
+    /**
+     * @return the underlying pool, for its hit, miss and eviction counts
+     */
+    public static ConcurrentInternPool getPool() {
+        return pool;
+    }
 }
\ No newline at end of file
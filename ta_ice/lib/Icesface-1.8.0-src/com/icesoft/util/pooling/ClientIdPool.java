@@ -35,7 +35,7 @@ package com.icesoft.util.pooling;
 
 public class ClientIdPool {
 
-    private static StringInternMapLRU pool = new StringInternMapLRU("com.icesoft.faces.clientIdPoolMaxSize");
+    private static ConcurrentInternPool pool = new ConcurrentInternPool("com.icesoft.faces.clientIdPoolMaxSize");
     
     public static String get(String clientId) {
         return (String) pool.get(clientId);
@@ -44,4 +44,11 @@ public class ClientIdPool {
     public static int getSize() {
         return pool.getSize();
     }
+
+    /**
+     * @return the underlying pool, for its hit, miss and eviction counts
+     */
+    public static ConcurrentInternPool getPool() {
+        return pool;
+    }
 }
\ No newline at end of file
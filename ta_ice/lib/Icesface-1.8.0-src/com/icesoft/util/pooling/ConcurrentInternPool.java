@@ -0,0 +1,209 @@
+package com.icesoft.util.pooling;
+
+import com.icesoft.util.metrics.StripedCounter;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.faces.context.FacesContext;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded pool returning a canonical instance for equal values.
+ * <p/>
+ * The pool is split in segments selected by hash. Lookups of pooled values
+ * do not lock, they only mark the entry as referenced. Adding a value locks
+ * its segment only, and once the segment is full the value replaces the
+ * first entry not referenced since the last pass of the segment's clock
+ * hand, which approximates evicting the least recently used entry.
+ */
+public class ConcurrentInternPool {
+    private static final Log log = LogFactory.getLog(ConcurrentInternPool.class);
+    private static final int DEFAULT_MAX_SIZE = 95000;
+    private static final int SEGMENTS = 16;
+
+    private final int defaultSize;
+    private final String contextParam;
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+    private final StripedCounter evictions = new StripedCounter();
+    private volatile Segment[] segments;
+    private volatile boolean disabled;
+
+    public ConcurrentInternPool() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public ConcurrentInternPool(int size) {
+        this(size, null);
+    }
+
+    public ConcurrentInternPool(String contextParam) {
+        this(DEFAULT_MAX_SIZE, contextParam);
+    }
+
+    /**
+     * @param defaultSize  maximum number of pooled values
+     * @param contextParam context parameter overriding the maximum size, a size
+     *                     of 0 disables the pool
+     */
+    public ConcurrentInternPool(int defaultSize, String contextParam) {
+        this.defaultSize = defaultSize;
+        this.contextParam = contextParam;
+    }
+
+    /**
+     * @return the pooled value equal to the given one, pooling the given one
+     *         if there is none
+     */
+    public Object get(Object value) {
+        Segment[] segments = getSegments();
+        if (segments == null || value == null) {
+            return value;
+        }
+        int hash = value.hashCode();
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return segments[hash & (SEGMENTS - 1)].get(value);
+    }
+
+    public int getSize() {
+        Segment[] segments = this.segments;
+        if (segments == null) {
+            return 0;
+        }
+        int size = 0;
+        for (int i = 0; i < segments.length; i++) {
+            size += segments[i].entries.size();
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private Segment[] getSegments() {
+        Segment[] segments = this.segments;
+        if (segments == null && !disabled) {
+            synchronized (this) {
+                if (this.segments == null && !disabled) {
+                    createSegments();
+                }
+                segments = this.segments;
+            }
+        }
+        return segments;
+    }
+
+    private void createSegments() {
+        int maxSize = defaultSize;
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+        if (contextParam != null && facesContext != null) {
+            String maxSizeParam = facesContext.getExternalContext().getInitParameter(contextParam);
+            if (maxSizeParam != null && maxSizeParam.length() > 0) {
+                int configuredMaxSize = 0;
+                try {
+                    configuredMaxSize = Integer.parseInt(maxSizeParam);
+                } catch (Exception e) {
+                    log.error("Couldn't parse context-param: " + contextParam + ".", e);
+                }
+                if (configuredMaxSize > 0) {
+                    maxSize = configuredMaxSize;
+                } else {
+                    disabled = true;
+                    return;
+                }
+            }
+        }
+
+        int segmentSize = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+        Segment[] newSegments = new Segment[SEGMENTS];
+        for (int i = 0; i < newSegments.length; i++) {
+            newSegments[i] = new Segment(segmentSize);
+        }
+        segments = newSegments;
+    }
+
+    private class Segment extends ReentrantLock {
+        private final Map entries;
+        //keys in insertion order, the clock hand sweeps over them
+        private final Object[] ring;
+        private int count = 0;
+        private int hand = 0;
+
+        private Segment(int maxSize) {
+            entries = new ConcurrentHashMap(((maxSize * 4) / 3) + 10);
+            ring = new Object[maxSize];
+        }
+
+        private Object get(Object value) {
+            Entry entry = (Entry) entries.get(value);
+            if (entry != null) {
+                hits.increment();
+                return entry.reference();
+            }
+
+            lock();
+            try {
+                entry = (Entry) entries.get(value);
+                if (entry != null) {
+                    hits.increment();
+                    return entry.reference();
+                }
+                misses.increment();
+                if (count < ring.length) {
+                    ring[count++] = value;
+                } else {
+                    evictInto(value);
+                }
+                entries.put(value, new Entry(value));
+                return value;
+            } finally {
+                unlock();
+            }
+        }
+
+        private void evictInto(Object value) {
+            while (true) {
+                Entry entry = (Entry) entries.get(ring[hand]);
+                if (entry.referenced) {
+                    entry.referenced = false;
+                    hand = (hand + 1) % ring.length;
+                } else {
+                    entries.remove(ring[hand]);
+                    evictions.increment();
+                    ring[hand] = value;
+                    hand = (hand + 1) % ring.length;
+                    return;
+                }
+            }
+        }
+    }
+
+    private static class Entry {
+        private final Object value;
+        private volatile boolean referenced;
+
+        private Entry(Object value) {
+            this.value = value;
+        }
+
+        private Object reference() {
+            //avoid writing the shared entry when already marked
+            if (!referenced) {
+                referenced = true;
+            }
+            return value;
+        }
+    }
+}
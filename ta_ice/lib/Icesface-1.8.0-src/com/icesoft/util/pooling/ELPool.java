@@ -35,7 +35,7 @@ package com.icesoft.util.pooling;
 
 public class ELPool {
 
-    private static StringInternMapLRU pool = new StringInternMapLRU("com.icesoft.faces.elPoolMaxSize");
+    private static ConcurrentInternPool pool = new ConcurrentInternPool("com.icesoft.faces.elPoolMaxSize");
     
     public static String get(String valueReference) {
         return (String) pool.get(valueReference);
@@ -44,4 +44,11 @@ public class ELPool {
     public static int getSize() {
         return pool.getSize();
     }
+
+    /**
+     * @return the underlying pool, for its hit, miss and eviction counts
+     */
+    public static ConcurrentInternPool getPool() {
+        return pool;
+    }
 }
\ No newline at end of file
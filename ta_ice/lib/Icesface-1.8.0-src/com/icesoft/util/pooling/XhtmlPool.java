@@ -35,7 +35,7 @@ package com.icesoft.util.pooling;
 
 public class XhtmlPool {
 
-    private static StringInternMapLRU pool = new StringInternMapLRU("com.icesoft.faces.xhtmlPoolMaxSize");
+    private static ConcurrentInternPool pool = new ConcurrentInternPool("com.icesoft.faces.xhtmlPoolMaxSize");
     
     public static Object get(Object value) {
         return pool.get(value);
@@ -44,4 +44,11 @@ public class XhtmlPool {
     public static int getSize() {
         return pool.getSize();
     }
+
+    /**
+     * @return the underlying pool, for its hit, miss and eviction counts
+     */
+    public static ConcurrentInternPool getPool() {
+        return pool;
+    }
 }
\ No newline at end of file
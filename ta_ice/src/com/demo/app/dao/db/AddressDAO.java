@@ -19,8 +19,26 @@ public interface AddressDAO {
 
 	public void svAddress (Address address);
 
+	public int[] createAddresses(List<Address> addresses);
+
 	public List<Address> getAddresss();
+
+	public Integer getAddressCount();
+
+	public List<Address> getAddressesAfter(Long lastAddressID, int maxRows);
+
+	public List<Address> getAddressesPage(int firstRow, int maxRows);
+
+	public void forEachAddress(AddressHandler handler);
 	
-	public void removeAddress();
+	public int removeAddress();
+
+	/**
+	 * Receives the addresses one at a time while they are read from the database.
+	 */
+	public interface AddressHandler {
+
+		public void handle(Address address);
+	}
 	
 }
\ No newline at end of file
@@ -1,8 +1,11 @@
 package com.demo.app.dao.db;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.demo.app.domain.UserSearchCriteria;
+import com.demo.app.domain.security.Orgs;
 import com.demo.app.domain.security.Roles;
 import com.demo.app.domain.security.User;
 
@@ -16,14 +19,32 @@ public interface SiteAdminDAO {
 	
 	public Integer createUser(User user);
 	
+	public Integer insertUser(User user);
+	
+	public int[] createUsers(List<User> users, List<Roles> roles);
+	
+	public List<Long> allocateUserIDs(int count);
+	
+	public Set<String> getAllUsernames();
+	
 	public Integer isUsernameUnique(String username);
 	
 	public Integer updateUser(User user);
 	
 	public User getUser(User user);
 	
+	public User getUserWithRoleNames(String username, List<String> roleNames);
+	
 	public List<User> getAllUsers();
 	
+	public Integer getUserCount();
+	
+	public List<User> getUsersByID(List<Long> userIDs);
+	
+	public List<User> getUsersAfter(Long lastUserID, boolean ascending, int maxRows);
+	
+	public List<User> getUsersPage(String sortProperty, boolean ascending, int firstRow, int maxRows);
+	
 	public void createRole(Roles role);
 	
 	public void updateRole(Roles role);
@@ -32,9 +53,15 @@ public interface SiteAdminDAO {
 	
 	public Integer assignRoles(User user, List<Roles> roles);
 	
+	public int[] assignRoles(List<User> users, List<Roles> roles);
+	
 	public List<Roles> getAllRoles();
 	
+	public List<Orgs> getAllOrg();
+	
 	public List<Roles> getAssignedRolesForUser(User user);
+	
+	public Map<Long, List<Roles>> getAssignedRolesForUsers(List<User> users);
 
 	public UserSearchCriteria getSelUser(UserSearchCriteria userSearchCriteria);
 }
\ No newline at end of file
@@ -2,12 +2,15 @@ package com.demo.app.dao.db.jdbc;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.springframework.jdbc.core.simple.ParameterizedRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.simple.SimpleJdbcTemplate;
 import org.springframework.transaction.TransactionStatus;
 
@@ -23,9 +26,32 @@ public class AddressDAOImpl extends BaseSpringJdbcDAO implements AddressDAO {
 
 	static private Logger log = Logger.getLogger(AddressDAOImpl.class.getName());
    
-	//Delete the data in the address table
-	static private String SQL_DELETE_ALL_ADDRESSS =
-	"Delete FROM " + ThreatConstants.THREAT_SCHEMA_NAME +".ADDRESS";
+	//Delete the data in the address table, a chunk at a time
+	static private String SQL_DELETE_ADDRESS_CHUNK =
+	"Delete FROM " + ThreatConstants.THREAT_SCHEMA_NAME +".ADDRESS WHERE ROWNUM <= ?";
+
+	static private String SQL_COUNT_ADDRESSES =
+		"SELECT COUNT(*) FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".ADDRESS";
+
+	static private String SQL_ADDRESS_COLUMNS = "ADDRESS_SEQ, ADDRESS, CITY, STATE, ZIP, EFFECTIVE_DT ";
+
+	// keyset paging: the rows following the last ADDRESS_SEQ of the previous page
+	static private String SQL_GET_ADDRESSES_AFTER =
+		"SELECT " + SQL_ADDRESS_COLUMNS +
+		"  FROM (SELECT " + SQL_ADDRESS_COLUMNS +
+		"          FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".ADDRESS " +
+		"         WHERE ADDRESS_SEQ > ? " +
+		"         ORDER BY ADDRESS_SEQ) " +
+		" WHERE ROWNUM <= ?";
+
+	static private String SQL_GET_ADDRESSES_PAGE =
+		"SELECT " + SQL_ADDRESS_COLUMNS +
+		"  FROM (SELECT PAGE.*, ROWNUM AS ROW_NUM " +
+		"          FROM (SELECT " + SQL_ADDRESS_COLUMNS +
+		"                  FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".ADDRESS " +
+		"                 ORDER BY ADDRESS_SEQ) PAGE " +
+		"         WHERE ROWNUM <= ?) " +
+		" WHERE ROW_NUM > ?";
 	
 	static private String SQL_ROW_SELECTED_ADDRESS =
 		"SELECT ADDRESS_SEQ, ADDRESS, CITY, STATE, ZIP, EFFECTIVE_DT " +
@@ -60,40 +86,169 @@ public class AddressDAOImpl extends BaseSpringJdbcDAO implements AddressDAO {
 		" 		 (ADDRESS, CITY, STATE, ZIP, EFFECTIVE_DT, ADDRESS_SEQ)" +
 		" VALUES (?,?,?,?,?, " + ThreatConstants.THREAT_SCHEMA_NAME + ".ADDRESS_SEQUENCE.nextVAL)";
 
+	private int streamFetchSize = 1000;
+
+	private int deleteChunkSize = 10000;
+
+	private CompiledQuery<Address> allAddressesQuery;
+
+	private CompiledQuery<Address> addressesAfterQuery;
+
+	private CompiledQuery<Address> addressesPageQuery;
+
+	private JdbcTemplate streamTemplate;
+
+	protected void compileQueries() {
+		allAddressesQuery = new CompiledQuery<Address>(getThreatDS(), SQL_GET_ALL_ADDRESSS, getFetchSize(),
+				new AddressRowMapper());
+		addressesAfterQuery = new CompiledQuery<Address>(getThreatDS(), SQL_GET_ADDRESSES_AFTER, getFetchSize(),
+				new AddressRowMapper(), Types.NUMERIC, Types.NUMERIC);
+		addressesPageQuery = new CompiledQuery<Address>(getThreatDS(), SQL_GET_ADDRESSES_PAGE, getFetchSize(),
+				new AddressRowMapper(), Types.NUMERIC, Types.NUMERIC);
+		JdbcTemplate template = new JdbcTemplate(getThreatDS());
+		template.setFetchSize(streamFetchSize);
+		streamTemplate = template;
+	}
+
+	/**
+	 * Inserts the addresses as one JDBC batch, in one transaction.
+	 * @return the number of rows inserted for each address, as reported by the driver
+	 */
+	public int[] createAddresses(List<Address> addresses) {
+		if (addresses == null) {
+			throwJDBCException("param addresses cannot be null.");
+		}
+		Date now = new Date();
+		List<Object[]> batchArgs = new ArrayList<Object[]>(addresses.size());
+		for (Address address : addresses) {
+			batchArgs.add(new Object[] {
+				address.getAddress(),
+				address.getCity(),
+				address.getState(),
+				address.getZip(),
+				address.getEffectiveDate() == null ? now : address.getEffectiveDate()});
+		}
+		TransactionStatus status = createTransactionDefinition();
+		try {
+			int[] rowsAffected = getSimpleJdbcTemplate().batchUpdate(SQL_INSERT_ADDRESS_EXT, batchArgs);
+			getTransactionManager().commit(status);
+			return rowsAffected;
+		}
+		catch (RuntimeException e) {
+			getTransactionManager().rollback(status);
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the whole table into memory, use the paged reads or forEachAddress for large tables.
+	 */
 	public List<Address> getAddresss() {
-		SimpleJdbcTemplate template = getSimpleJdbcTemplate();
-		return template.query(SQL_GET_ALL_ADDRESSS,
-				new AddressParameterizedRowMapper<Address>());
+		return allAddressesQuery.list();
 		
 	}
 
-	private class AddressParameterizedRowMapper<T> implements ParameterizedRowMapper<Address> {
+	public Integer getAddressCount() {
+		return getSimpleJdbcTemplate().queryForInt(SQL_COUNT_ADDRESSES);
+	}
+
+	/**
+	 * Reads the page following the address with the given id, in ADDRESS_SEQ order.
+	 * Pass a <code>null</code> id to read the first page.
+	 */
+	public List<Address> getAddressesAfter(Long lastAddressID, int maxRows) {
+		return addressesAfterQuery.list(lastAddressID == null ? Long.MIN_VALUE : lastAddressID, maxRows);
+	}
 
-		public Address mapRow(ResultSet resultSet, int row) throws SQLException {
+	/**
+	 * Reads the rows <code>firstRow</code> to <code>firstRow + maxRows</code> (exclusive) in ADDRESS_SEQ order.
+	 */
+	public List<Address> getAddressesPage(int firstRow, int maxRows) {
+		return addressesPageQuery.list(firstRow + maxRows, firstRow);
+	}
+
+	/**
+	 * Streams all the addresses to the handler, streamFetchSize rows per round trip,
+	 * without building a list.
+	 */
+	public void forEachAddress(final AddressHandler handler) {
+		final AddressRowMapper mapper = new AddressRowMapper();
+		streamTemplate.query(SQL_GET_ALL_ADDRESSS, new RowCallbackHandler() {
+			public void processRow(ResultSet resultSet) throws SQLException {
+				handler.handle(mapper.mapRow(resultSet, 0));
+			}
+		});
+	}
+
+	static private class AddressRowMapper extends ColumnIndexRowMapper<Address> {
+
+		AddressRowMapper() {
+			super("ADDRESS_SEQ", "ADDRESS", "CITY", "STATE", "ZIP", "EFFECTIVE_DT");
+		}
+
+		protected Address mapRow(ResultSet resultSet, int[] columns) throws SQLException {
 			
 			Address address = new Address();
-			address.setAddressID(resultSet.getLong("ADDRESS_SEQ"));
-			address.setAddress(resultSet.getString("ADDRESS"));
-			address.setCity(resultSet.getString("CITY"));
-			address.setState(resultSet.getString("STATE"));
-			address.setZip(resultSet.getString("ZIP"));
-			address.setEffectiveDate(resultSet.getDate("EFFECTIVE_DT"));
+			address.setAddressID(resultSet.getLong(columns[0]));
+			address.setAddress(resultSet.getString(columns[1]));
+			address.setCity(resultSet.getString(columns[2]));
+			address.setState(resultSet.getString(columns[3]));
+			address.setZip(resultSet.getString(columns[4]));
+			address.setEffectiveDate(resultSet.getDate(columns[5]));
 						
 			return address;
 		}
 	}
 
-	public void removeAddress() {
+	/**
+	 * Deletes all the addresses, committing every deleteChunkSize rows so that neither
+	 * the undo nor the locks grow with the size of the table.
+	 * @return the number of addresses deleted
+	 */
+	public int removeAddress() {
 		SimpleJdbcTemplate template = getSimpleJdbcTemplate();
-		
-		
-		try{
-			   template.update(SQL_DELETE_ALL_ADDRESSS);
-		}
-		catch (Exception ex){
-			
+		int removed = 0;
+		int deleted;
+		do {
+			TransactionStatus status = createTransactionDefinition();
+			try {
+				deleted = template.update(SQL_DELETE_ADDRESS_CHUNK, deleteChunkSize);
+				getTransactionManager().commit(status);
+			}
+			catch (RuntimeException e) {
+				getTransactionManager().rollback(status);
+				log.log(Level.WARNING, "Could not delete addresses, " + removed + " deleted so far", e);
+				throw e;
+			}
+			removed += deleted;
+		} while (deleted > 0);
+		return removed;
+	}
+
+	public int getStreamFetchSize() {
+		return streamFetchSize;
+	}
+
+	/**
+	 * @param streamFetchSize rows fetched per round trip by forEachAddress
+	 */
+	public void setStreamFetchSize(int streamFetchSize) {
+		this.streamFetchSize = streamFetchSize;
+		if (streamTemplate != null) {
+			streamTemplate.setFetchSize(streamFetchSize);
 		}
 	}
 
+	public int getDeleteChunkSize() {
+		return deleteChunkSize;
+	}
+
+	/**
+	 * @param deleteChunkSize rows deleted per transaction by removeAddress
+	 */
+	public void setDeleteChunkSize(int deleteChunkSize) {
+		this.deleteChunkSize = deleteChunkSize;
+	}
+
 }
 	
\ No newline at end of file
@@ -11,6 +11,10 @@ import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 /**
  * Base class for leveraging Spring JDBC
+ * <p>
+ * The templates are created once, when the data source is set, and shared by all the
+ * calls. Subclasses create their {@link CompiledQuery} objects in {@link #compileQueries()},
+ * which runs again whenever the data source or the fetch size changes.
  * @author Kunta L.
  *
  */
@@ -19,6 +23,12 @@ public abstract class BaseSpringJdbcDAO {
 	private DataSource threatDS;
 	
 	private PlatformTransactionManager transactionManager;
+
+	private int fetchSize = 0;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private SimpleJdbcTemplate simpleJdbcTemplate;
 	
 	
 	/**
@@ -50,6 +60,24 @@ public abstract class BaseSpringJdbcDAO {
 	 */
 	public void setThreatDS(DataSource threatDS) {
 		this.threatDS = threatDS;
+		initialize();
+	}
+
+
+	/**
+	 * @return rows fetched per round trip by the templates and the compiled queries, 0 for the driver default
+	 */
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+
+	/**
+	 * @param fetchSize rows fetched per round trip, 0 for the driver default
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+		initialize();
 	}
 
 
@@ -73,17 +101,33 @@ public abstract class BaseSpringJdbcDAO {
 	 * @return <code>SimpleJdbcTemplate</code> associated with <code>threat data source</code>
 	 */
 	protected SimpleJdbcTemplate getSimpleJdbcTemplate (){
-		return new SimpleJdbcTemplate (getThreatDS());
+		return simpleJdbcTemplate;
 	}
 	
 	/**
 	 * 
-	 * @return <code>JdbcTemplate</code> associated with <code>threat data source</code>
+	 * @return <code>JdbcTemplate</code> associated with <code>threat data source</code>,
+	 * shared and therefore not to be reconfigured by the caller
 	 */
 	protected JdbcTemplate getJdbcTemplate (){
-		return new JdbcTemplate (getThreatDS());
+		return jdbcTemplate;
+	}
+
+	/**
+	 * Creates the query objects of the DAO, called once the data source is known.
+	 */
+	protected void compileQueries() {
+	}
+
+	private void initialize() {
+		if (threatDS == null) {
+			return;
+		}
+		JdbcTemplate template = new JdbcTemplate(threatDS);
+		template.setFetchSize(fetchSize);
+		jdbcTemplate = template;
+		simpleJdbcTemplate = new SimpleJdbcTemplate(template);
+		compileQueries();
 	}
-	
-	
 	
 }
@@ -0,0 +1,60 @@
+package com.demo.app.dao.db.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.simple.ParameterizedRowMapper;
+
+/**
+ * Row mapper reading columns by index rather than by name.
+ * <p>
+ * The declared column names are resolved against the <code>ResultSetMetaData</code>
+ * of the first row mapped, the indexes are then reused for every following row. An
+ * instance must therefore only be used with one SQL statement (or statements selecting
+ * the same columns in the same order); it is thread safe and can be shared by a
+ * {@link CompiledQuery}.
+ */
+public abstract class ColumnIndexRowMapper<T> implements ParameterizedRowMapper<T> {
+
+	private final String[] columnNames;
+
+	private volatile int[] columnIndexes;
+
+	/**
+	 * @param columnNames the columns read by {@link #mapRow(ResultSet, int[])}, in the order of its index array
+	 */
+	protected ColumnIndexRowMapper(String... columnNames) {
+		this.columnNames = columnNames;
+	}
+
+	public T mapRow(ResultSet resultSet, int row) throws SQLException {
+		int[] indexes = columnIndexes;
+		if (indexes == null) {
+			indexes = resolve(resultSet.getMetaData());
+			columnIndexes = indexes;
+		}
+		return mapRow(resultSet, indexes);
+	}
+
+	/**
+	 * @param columns the result set index of each declared column, in declaration order
+	 */
+	protected abstract T mapRow(ResultSet resultSet, int[] columns) throws SQLException;
+
+	private int[] resolve(ResultSetMetaData metaData) throws SQLException {
+		int[] indexes = new int[columnNames.length];
+		int columnCount = metaData.getColumnCount();
+		for (int i = 0; i < columnNames.length; i++) {
+			for (int column = 1; column <= columnCount && indexes[i] == 0; column++) {
+				if (columnNames[i].equalsIgnoreCase(metaData.getColumnLabel(column))) {
+					indexes[i] = column;
+				}
+			}
+			if (indexes[i] == 0) {
+				throw new JDBCException(getClass() + " column " + columnNames[i] + " is not in the result set.");
+			}
+		}
+		return indexes;
+	}
+}
@@ -0,0 +1,57 @@
+package com.demo.app.dao.db.jdbc;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.object.SqlQuery;
+
+/**
+ * Reusable query object: the SQL, the parameter types and the fetch size are declared and
+ * compiled once, when the DAO is configured, and the same instance then serves all calls.
+ * Rows are mapped by a {@link ColumnIndexRowMapper} owned by the query so that the column
+ * indexes are only resolved for the first result set.
+ * <p>
+ * The SQL text is identical for every execution, which is what lets the driver or the
+ * connection pool statement cache reuse the prepared statement.
+ */
+public class CompiledQuery<T> extends SqlQuery {
+
+	private final ColumnIndexRowMapper<T> rowMapper;
+
+	/**
+	 * @param fetchSize rows fetched per round trip, 0 for the driver default
+	 * @param types the <code>java.sql.Types</code> of the parameters
+	 */
+	public CompiledQuery(DataSource dataSource, String sql, int fetchSize,
+			ColumnIndexRowMapper<T> rowMapper, int... types) {
+		super(dataSource, sql);
+		this.rowMapper = rowMapper;
+		setFetchSize(fetchSize);
+		for (int type : types) {
+			declareParameter(new SqlParameter(type));
+		}
+		compile();
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<T> list(Object... parameters) {
+		return execute(parameters);
+	}
+
+	/**
+	 * @return the only row, null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public T single(Object... parameters) {
+		return (T) findObject(parameters);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected RowMapper newRowMapper(Object[] parameters, Map context) {
+		return rowMapper;
+	}
+}
@@ -2,12 +2,24 @@ package com.demo.app.dao.db.jdbc;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.sql.DataSource;
+
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.simple.ParameterizedRowMapper;
 import org.springframework.jdbc.core.simple.SimpleJdbcTemplate;
 import org.springframework.transaction.TransactionStatus;
@@ -30,7 +42,18 @@ public class SiteAdminDAOImpl extends BaseSpringJdbcDAO implements SiteAdminDAO
 	static private String SQL_UNIQUE_USERNAME =
 		"SELECT COUNT(*) as uniqueUsername " +
 		"  FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".USERS " +
-		" WHERE USERNAME=?";
+		" WHERE USERNAME=?" +
+		"   AND ROWNUM <= 1";
+
+	static private String SQL_GET_ALL_USERNAMES =
+		"SELECT USERNAME " +
+		"  FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".USERS";
+
+	// a block of USER_SEQ values in one round trip
+	static private String SQL_ALLOCATE_USER_SEQ_BLOCK =
+		"SELECT " + ThreatConstants.THREAT_SCHEMA_NAME + ".USERS_SEQUENCE.nextVAL " +
+		"  FROM DUAL " +
+		"CONNECT BY LEVEL <= ?";
 
 	static private String SQL_UPDATE_USER =
 		"UPDATE " + 
@@ -45,7 +68,8 @@ public class SiteAdminDAOImpl extends BaseSpringJdbcDAO implements SiteAdminDAO
 		ThreatConstants.THREAT_SCHEMA_NAME + ".AUTHORITIES " +
 		"WHERE USER_SEQ=?";
 
-	static private String SQL_ASSIGN_USER_ROLES =
+	// followed by the ROLENAME IN list, see assignRolesSql
+	static private String SQL_ASSIGN_USER_ROLES_PREFIX =
 		  "INSERT INTO " + 
 		  ThreatConstants.THREAT_SCHEMA_NAME + ".AUTHORITIES (USER_SEQ, ROLE_SEQ, EFFECTIVE_DT, AUTH_SEQ) " +
 		  "SELECT USERS.USER_SEQ, ROLES.ROLE_SEQ, USERS.EFFECTIVE_DT, AUTHORITIES_SEQUENCE.nextVAL " +  
@@ -53,21 +77,36 @@ public class SiteAdminDAOImpl extends BaseSpringJdbcDAO implements SiteAdminDAO
 		  ThreatConstants.THREAT_SCHEMA_NAME + ".USERS, " +
 		  ThreatConstants.THREAT_SCHEMA_NAME + ".ROLES " +		  
 		  "WHERE " +
-		  "USERS.USERNAME=? " +
-		  "AND USERS.EFFECTIVE_DT=? " +
-		  "AND ROLES.ROLENAME=?	";
+		  "USERS.USER_SEQ=? " +
+		  "AND ROLES.ROLENAME IN ";
+
+	static private String SQL_GET_USER_SEQ_BY_USERNAME_PREFIX =
+		"SELECT USERNAME, USER_SEQ " +
+		"  FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".USERS " +
+		" WHERE USERNAME IN ";
+
+	// Oracle limit on the number of expressions in an IN list
+	static private int MAX_IN_LIST_SIZE = 1000;
 
 	static private String SQL_GET_ALL_USERS_ASSIGNED_ROLES_BY_USER_SEQ =
 		"SELECT ROLES.ROLENAME, ROLES.ROLE_DESCRIPTION, ROLES.ROLE_SEQ, AUTHORITIES.EFFECTIVE_DT " +
 		"FROM " + 
-		ThreatConstants.THREAT_SCHEMA_NAME + ".USERS, " +
 		ThreatConstants.THREAT_SCHEMA_NAME + ".ROLES, " +
 		ThreatConstants.THREAT_SCHEMA_NAME + ".AUTHORITIES " +
 		"WHERE AUTHORITIES.user_seq=? " +
-		" AND USERS.user_seq=? " +
 		" AND AUTHORITIES.role_seq = ROLES.ROLE_SEQ " +
 		" AND AUTHORITIES.role_seq != 10";
 
+	// the assigned roles of many users at once, followed by the USER_SEQ IN list
+	static private String SQL_GET_ASSIGNED_ROLES_BY_USER_SEQ_PREFIX =
+		"SELECT AUTHORITIES.USER_SEQ, ROLES.ROLENAME, ROLES.ROLE_DESCRIPTION, ROLES.ROLE_SEQ, AUTHORITIES.EFFECTIVE_DT " +
+		"FROM " + 
+		ThreatConstants.THREAT_SCHEMA_NAME + ".ROLES, " +
+		ThreatConstants.THREAT_SCHEMA_NAME + ".AUTHORITIES " +
+		"WHERE AUTHORITIES.role_seq = ROLES.ROLE_SEQ " +
+		" AND AUTHORITIES.role_seq != 10" +
+		" AND AUTHORITIES.user_seq IN ";
+
 	static private String SQL_GET_ALL_ROLES =
 		"SELECT ROLENAME, ROLE_DESCRIPTION, ROLE_SEQ, EFFECTIVE_DT " +
 		"  FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".ROLES";
@@ -80,6 +119,60 @@ public class SiteAdminDAOImpl extends BaseSpringJdbcDAO implements SiteAdminDAO
 		"SELECT USER_SEQ, FIRSTNAME, LASTNAME, USER_MI_NAME, USERNAME, USER_TITLE, USER_SECURE_PH, USER_COMM_PH, USER_CELL_PH, EFFECTIVE_DT, PASSWORD, ENABLED, CHANGE_PASSWORD, PASSWORD_CH_EFFECTIVE_TS, ORG_SEQ " +
 		" FROM " + ThreatConstants.THREAT_SCHEMA_NAME +".USERS";
 	
+	static private String SQL_USER_COLUMNS =
+		"USER_SEQ, FIRSTNAME, LASTNAME, USER_MI_NAME, USERNAME, USER_TITLE, USER_SECURE_PH, USER_COMM_PH, USER_CELL_PH, EFFECTIVE_DT, PASSWORD, ENABLED, CHANGE_PASSWORD, PASSWORD_CH_EFFECTIVE_TS, ORG_SEQ ";
+
+	// followed by the USER_SEQ IN list
+	static private String SQL_GET_USERS_BY_USER_SEQ_PREFIX =
+		"SELECT " + SQL_USER_COLUMNS +
+		"  FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".USERS " +
+		" WHERE USER_SEQ IN ";
+
+	static private String SQL_COUNT_USERS =
+		"SELECT COUNT(*) " +
+		"  FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".USERS";
+
+	// keyset paging: the rows following the last USER_SEQ of the previous page
+	static private String SQL_GET_USERS_AFTER =
+		"SELECT " + SQL_USER_COLUMNS +
+		"  FROM (SELECT " + SQL_USER_COLUMNS +
+		"          FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".USERS " +
+		"         WHERE USER_SEQ > ? " +
+		"         ORDER BY USER_SEQ) " +
+		" WHERE ROWNUM <= ?";
+
+	static private String SQL_GET_USERS_BEFORE =
+		"SELECT " + SQL_USER_COLUMNS +
+		"  FROM (SELECT " + SQL_USER_COLUMNS +
+		"          FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".USERS " +
+		"         WHERE USER_SEQ < ? " +
+		"         ORDER BY USER_SEQ DESC) " +
+		" WHERE ROWNUM <= ?";
+
+	// ROWNUM bounded page in any sort order, the inner bound lets Oracle stop sorting early
+	static private String SQL_GET_USERS_PAGE_PREFIX =
+		"SELECT " + SQL_USER_COLUMNS +
+		"  FROM (SELECT PAGE.*, ROWNUM AS ROW_NUM " +
+		"          FROM (SELECT " + SQL_USER_COLUMNS +
+		"                  FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".USERS " +
+		"                 ORDER BY ";
+
+	static private String SQL_GET_USERS_PAGE_SUFFIX =
+		") PAGE " +
+		"         WHERE ROWNUM <= ?) " +
+		" WHERE ROW_NUM > ?";
+
+	// sortable User properties and their columns, only these are ever put in the ORDER BY clause
+	static private Map<String, String> USER_SORT_COLUMNS = new HashMap<String, String>();
+	static {
+		USER_SORT_COLUMNS.put("userID", "USER_SEQ");
+		USER_SORT_COLUMNS.put("firstName", "FIRSTNAME");
+		USER_SORT_COLUMNS.put("lastName", "LASTNAME");
+		USER_SORT_COLUMNS.put("username", "USERNAME");
+		USER_SORT_COLUMNS.put("effectiveDate", "EFFECTIVE_DT");
+		USER_SORT_COLUMNS.put("passwordExpired", "CHANGE_PASSWORD");
+	}
+
 	static private String SQL_GET_USER =
 		"SELECT USER_SEQ, FIRSTNAME, LASTNAME, USER_MI_NAME, USERNAME, USER_TITLE, USER_SECURE_PH, USER_COMM_PH, USER_CELL_PH, EFFECTIVE_DT, PASSWORD, ENABLED, CHANGE_PASSWORD, PASSWORD_CH_EFFECTIVE_TS, ORG_SEQ " +
 		" FROM " + ThreatConstants.THREAT_SCHEMA_NAME +".USERS " +
@@ -89,15 +182,30 @@ public class SiteAdminDAOImpl extends BaseSpringJdbcDAO implements SiteAdminDAO
 		"SELECT USER_SEQ, FIRSTNAME, LASTNAME, USER_MI_NAME, USERNAME, USER_TITLE, USER_SECURE_PH, USER_COMM_PH, USER_CELL_PH, EFFECTIVE_DT, PASSWORD, ENABLED, CHANGE_PASSWORD, PASSWORD_CH_EFFECTIVE_TS, ORG_SEQ " +
 		"  FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".USERS " +
 		" WHERE USERNAME=?";	
+
+	// the account and all its role names in one round trip, one row per role
+	static private String SQL_GET_USER_WITH_ROLENAMES_BY_USERNAME =
+		"SELECT USERS.USER_SEQ, FIRSTNAME, LASTNAME, USER_MI_NAME, USERNAME, USER_TITLE, USER_SECURE_PH, USER_COMM_PH, USER_CELL_PH, USERS.EFFECTIVE_DT, PASSWORD, ENABLED, CHANGE_PASSWORD, PASSWORD_CH_EFFECTIVE_TS, ORG_SEQ, ROLES.ROLENAME " +
+		"  FROM " + ThreatConstants.THREAT_SCHEMA_NAME + ".USERS " +
+		"  LEFT OUTER JOIN " + ThreatConstants.THREAT_SCHEMA_NAME + ".AUTHORITIES ON AUTHORITIES.USER_SEQ = USERS.USER_SEQ " +
+		"  LEFT OUTER JOIN " + ThreatConstants.THREAT_SCHEMA_NAME + ".ROLES ON ROLES.ROLE_SEQ = AUTHORITIES.ROLE_SEQ " +
+		" WHERE USERS.USERNAME=?";
 	
 	public Integer createUser(User user) {
-		Long orgID = null;
-		orgID = 1L;
-		SimpleJdbcTemplate template = getSimpleJdbcTemplate();
 		// check if user already exists.
 		if (getUser(user) != null) {
 			throwJDBCException("User already exists.");
 		}
+		return insertUser(user);
+	}
+
+	/**
+	 * Inserts the user without checking that the username is free, for callers that already did.
+	 */
+	public Integer insertUser(User user) {
+		Long orgID = null;
+		orgID = 1L;
+		SimpleJdbcTemplate template = getSimpleJdbcTemplate();
 		return template.update(SQL_INSERT_USERS_EXT, new Object[] {
 				user.getFirstName(),
 				user.getLastName(), 
@@ -122,6 +230,145 @@ public class SiteAdminDAOImpl extends BaseSpringJdbcDAO implements SiteAdminDAO
 		" VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?, " + ThreatConstants.THREAT_SCHEMA_NAME + ".USERS_SEQUENCE.nextVAL)";
 
 	
+	static private String SQL_INSERT_USERS_WITH_SEQ =
+		" INSERT INTO " + ThreatConstants.THREAT_SCHEMA_NAME + ".USERS " +
+		" 		 (FIRSTNAME, LASTNAME, USER_MI_NAME, USERNAME, USER_TITLE, USER_SECURE_PH, USER_COMM_PH, " +
+		"USER_CELL_PH, PASSWORD, ENABLED, EFFECTIVE_DT, ORG_SEQ, PASSWORD_CH_EFFECTIVE_TS, CHANGE_PASSWORD, USER_SEQ) " +
+		" VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+
+	static private int USERNAME_FETCH_SIZE = 1000;
+
+	private CompiledQuery<User> userByUsernameQuery;
+
+	private CompiledQuery<User> allUsersQuery;
+
+	private CompiledQuery<User> usersAfterQuery;
+
+	private CompiledQuery<User> usersBeforeQuery;
+
+	// one query per whitelisted sort column and direction, see usersPageKey
+	private Map<String, CompiledQuery<User>> usersPageQueries;
+
+	private CompiledQuery<UserSearchCriteria> userSearchCriteriaQuery;
+
+	private CompiledQuery<Roles> allRolesQuery;
+
+	private CompiledQuery<Roles> assignedRolesQuery;
+
+	private CompiledQuery<Orgs> allOrgsQuery;
+
+	private JdbcTemplate usernamesTemplate;
+
+	protected void compileQueries() {
+		DataSource dataSource = getThreatDS();
+		int fetchSize = getFetchSize();
+		userByUsernameQuery = new CompiledQuery<User>(dataSource, SQL_GET_USER_BY_USERNAME, fetchSize,
+				new UserRowMapper(), Types.VARCHAR);
+		allUsersQuery = new CompiledQuery<User>(dataSource, SQL_GET_ALL_USERS, fetchSize, new UserRowMapper());
+		usersAfterQuery = new CompiledQuery<User>(dataSource, SQL_GET_USERS_AFTER, fetchSize,
+				new UserRowMapper(), Types.NUMERIC, Types.NUMERIC);
+		usersBeforeQuery = new CompiledQuery<User>(dataSource, SQL_GET_USERS_BEFORE, fetchSize,
+				new UserRowMapper(), Types.NUMERIC, Types.NUMERIC);
+		Map<String, CompiledQuery<User>> pageQueries = new HashMap<String, CompiledQuery<User>>();
+		for (String sortColumn : new HashSet<String>(USER_SORT_COLUMNS.values())) {
+			for (boolean ascending : new boolean[] { true, false }) {
+				String direction = ascending ? " ASC" : " DESC";
+				String sql = SQL_GET_USERS_PAGE_PREFIX + sortColumn + direction + ", USER_SEQ" + direction +
+					SQL_GET_USERS_PAGE_SUFFIX;
+				pageQueries.put(usersPageKey(sortColumn, ascending), new CompiledQuery<User>(dataSource, sql,
+						fetchSize, new UserRowMapper(), Types.NUMERIC, Types.NUMERIC));
+			}
+		}
+		usersPageQueries = pageQueries;
+		userSearchCriteriaQuery = new CompiledQuery<UserSearchCriteria>(dataSource, SQL_GET_USER, fetchSize,
+				new UserSearchCriteriaRowMapper(), Types.VARCHAR);
+		allRolesQuery = new CompiledQuery<Roles>(dataSource, SQL_GET_ALL_ROLES, fetchSize, new RolesRowMapper());
+		assignedRolesQuery = new CompiledQuery<Roles>(dataSource, SQL_GET_ALL_USERS_ASSIGNED_ROLES_BY_USER_SEQ,
+				fetchSize, new RolesRowMapper(), Types.NUMERIC);
+		allOrgsQuery = new CompiledQuery<Orgs>(dataSource, SQL_GET_ALL_ORGS, fetchSize, new OrgsRowMapper());
+		JdbcTemplate template = new JdbcTemplate(dataSource);
+		template.setFetchSize(USERNAME_FETCH_SIZE);
+		usernamesTemplate = template;
+	}
+
+	private static String usersPageKey(String sortColumn, boolean ascending) {
+		return sortColumn + (ascending ? " ASC" : " DESC");
+	}
+
+	/**
+	 * Inserts the users, which must already have their id (see allocateUserIDs), as one
+	 * JDBC batch and assigns them the roles, all in one transaction.
+	 * @return the number of rows inserted for each user, as reported by the driver
+	 */
+	public int[] createUsers(List<User> users, List<Roles> roles) {
+		if((users == null) || (roles == null)) {
+			throwJDBCException("param users or roles cannot be null.");
+		}
+		Long orgID = 1L;
+		List<Object[]> batchArgs = new ArrayList<Object[]>(users.size());
+		for (User user : users) {
+			if (user.getUserID() == null) {
+				throwJDBCException("user " + user.getUsername() + " has no id.");
+			}
+			batchArgs.add(new Object[] {
+				user.getFirstName(),
+				user.getLastName(), 
+				user.getUserMidname(), 
+				user.getUsername(), 
+				user.getUserTitle(), 
+				user.getUserSecurePH(), 
+				user.getUserCommPH(), 
+				user.getUserCellPH(), 
+				user.getPassword(),
+				user.getEnabled(), 
+				user.getEffectiveDate(),
+				orgID,
+				user.getPasswordChangedOnDate(),
+				user.getPasswordExpired(),
+				user.getUserID()});
+		}
+		TransactionStatus status = createTransactionDefinition();
+		try {
+			int[] rowsAffected = getSimpleJdbcTemplate().batchUpdate(SQL_INSERT_USERS_WITH_SEQ, batchArgs);
+			if (!roles.isEmpty() && assignRoles(users, roles) == null) {
+				throwJDBCException("could not assign roles.");
+			}
+			getTransactionManager().commit(status);
+			return rowsAffected;
+		}
+		catch(RuntimeException e) {
+			if (!status.isCompleted()) {
+				getTransactionManager().rollback(status);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Reserves <code>count</code> USER_SEQ values with a single query.
+	 */
+	public List<Long> allocateUserIDs(int count) {
+		SimpleJdbcTemplate template = getSimpleJdbcTemplate();
+		return template.query(SQL_ALLOCATE_USER_SEQ_BLOCK, new ParameterizedRowMapper<Long>() {
+			public Long mapRow(ResultSet resultSet, int row) throws SQLException {
+				return resultSet.getLong(1);
+			}
+		}, count);
+	}
+
+	/**
+	 * Streams all the usernames into a set, without building an intermediate list.
+	 */
+	public Set<String> getAllUsernames() {
+		final Set<String> usernames = new HashSet<String>();
+		usernamesTemplate.query(SQL_GET_ALL_USERNAMES, new RowCallbackHandler() {
+			public void processRow(ResultSet resultSet) throws SQLException {
+				usernames.add(resultSet.getString(1));
+			}
+		});
+		return usernames;
+	}
+
 	public Integer isUsernameUnique(String username) {
 		log.fine("uniqueUsername: " + username);
 		if(username == null) {
@@ -147,52 +394,94 @@ public class SiteAdminDAOImpl extends BaseSpringJdbcDAO implements SiteAdminDAO
 	}
 	
 	public User getUser(User user) {
-		SimpleJdbcTemplate template = getSimpleJdbcTemplate();
 		try {
-			return template.queryForObject(SQL_GET_USER_BY_USERNAME, new UserParameterizedRowMapper<User>(),
-				user.getUsername());
+			return userByUsernameQuery.single(user.getUsername());
 		}
 		catch (IncorrectResultSizeDataAccessException e){
 			return null;
 		}
 	}
 
+	/**
+	 * Loads the user and the names of all its roles with a single query.
+	 * @param roleNames receives the role names of the user
+	 * @return the user, null if there is no user with that username
+	 */
+	public User getUserWithRoleNames(String username, final List<String> roleNames) {
+		final List<User> users = new ArrayList<User>(1);
+		final UserRowMapper userMapper = new UserRowMapper();
+		getJdbcTemplate().query(SQL_GET_USER_WITH_ROLENAMES_BY_USERNAME, new Object[] { username },
+				new RowCallbackHandler() {
+			public void processRow(ResultSet resultSet) throws SQLException {
+				if (users.isEmpty()) {
+					users.add(userMapper.mapRow(resultSet, 0));
+				}
+				String roleName = resultSet.getString("ROLENAME");
+				if (roleName != null) {
+					roleNames.add(roleName);
+				}
+			}
+		});
+		return users.isEmpty() ? null : users.get(0);
+	}
+
 	public List<User> getAllUsers() {
+		return allUsersQuery.list();
+	}
+
+	/**
+	 * Reads the given users, one query per chunk of the maximum IN list size. Ids without
+	 * a user are skipped.
+	 */
+	public List<User> getUsersByID(List<Long> userIDs) {
+		if(userIDs == null) {
+			throwJDBCException("param userIDs cannot be null.");
+		}
+		List<User> users = new ArrayList<User>(userIDs.size());
+		// the IN list size varies, the column indexes are resolved once per call
+		UserRowMapper userMapper = new UserRowMapper();
 		SimpleJdbcTemplate template = getSimpleJdbcTemplate();
-		return template.query(SQL_GET_ALL_USERS,
-				new UserParameterizedRowMapper<User>());
+		for (int from = 0; from < userIDs.size(); from += MAX_IN_LIST_SIZE) {
+			List<Long> chunk = userIDs.subList(from, Math.min(from + MAX_IN_LIST_SIZE, userIDs.size()));
+			users.addAll(template.query(SQL_GET_USERS_BY_USER_SEQ_PREFIX + inList(chunk.size()), userMapper,
+					chunk.toArray()));
+		}
+		return users;
 	}
 
-	public UserSearchCriteria getSelUser(UserSearchCriteria userSearchCriteria){
+	public Integer getUserCount() {
 		SimpleJdbcTemplate template = getSimpleJdbcTemplate();
-		return template.queryForObject(SQL_GET_USER, new UserSearchCriteriaParameterizedRowMapper<UserSearchCriteria>(),
-	userSearchCriteria.getUsername());
+		return template.queryForInt(SQL_COUNT_USERS);
 	}
-	
-	
-	private class UserSearchCriteriaParameterizedRowMapper<T> implements ParameterizedRowMapper<UserSearchCriteria> {
 
-		public UserSearchCriteria mapRow(ResultSet resultSet, int row) throws SQLException {
-			UserSearchCriteria userSearchCriteria = new UserSearchCriteria();
-			userSearchCriteria.setUserID(resultSet.getLong("USER_SEQ"));
-			userSearchCriteria.setFirstName(resultSet.getString("FIRSTNAME"));
-			userSearchCriteria.setLastName(resultSet.getString("LASTNAME"));
-			userSearchCriteria.setUserMidname(resultSet.getString("USER_MI_NAME"));
-			userSearchCriteria.setUsername(resultSet.getString("USERNAME"));
-			userSearchCriteria.setUserTitle(resultSet.getString("USER_TITLE"));
-			userSearchCriteria.setUserSecurePH(resultSet.getString("USER_SECURE_PH"));
-			userSearchCriteria.setUserCommPH(resultSet.getString("USER_COMM_PH"));
-			userSearchCriteria.setUserCellPH(resultSet.getString("USER_CELL_PH"));
-			userSearchCriteria.setEffectiveDate(resultSet.getDate("EFFECTIVE_DT"));
-			userSearchCriteria.setPassword(resultSet.getString("PASSWORD"));
-			userSearchCriteria.setEnabled(resultSet.getBoolean("ENABLED"));
-			userSearchCriteria.setChangePassword(resultSet.getBoolean("CHANGE_PASSWORD"));
-			userSearchCriteria.setPasswordChangedOnDate(resultSet.getDate("PASSWORD_CH_EFFECTIVE_TS"));
-			userSearchCriteria.setOrgId(resultSet.getLong("ORG_SEQ"));
-			return userSearchCriteria;
+	/**
+	 * Reads the page following (or preceding, when descending) the user with the given id,
+	 * in USER_SEQ order. Pass a <code>null</code> id to read the first page.
+	 */
+	public List<User> getUsersAfter(Long lastUserID, boolean ascending, int maxRows) {
+		if (lastUserID == null) {
+			lastUserID = ascending ? Long.MIN_VALUE : Long.MAX_VALUE;
+		}
+		return (ascending ? usersAfterQuery : usersBeforeQuery).list(lastUserID, maxRows);
+	}
+
+	/**
+	 * Reads the rows <code>firstRow</code> to <code>firstRow + maxRows</code> (exclusive)
+	 * sorted by the given User property, USER_SEQ breaking the ties.
+	 */
+	public List<User> getUsersPage(String sortProperty, boolean ascending, int firstRow, int maxRows) {
+		String sortColumn = USER_SORT_COLUMNS.get(sortProperty);
+		if (sortColumn == null) {
+			sortColumn = "USER_SEQ";
 		}
+		return usersPageQueries.get(usersPageKey(sortColumn, ascending)).list(firstRow + maxRows, firstRow);
+	}
+
+	public UserSearchCriteria getSelUser(UserSearchCriteria userSearchCriteria){
+		return (UserSearchCriteria) DataAccessUtils.requiredSingleResult(userSearchCriteriaQuery.list(userSearchCriteria.getUsername()));
 	}
 	
+	
 	public void createRole(Roles role) {
 		
 		//  createRole
@@ -207,32 +496,68 @@ public class SiteAdminDAOImpl extends BaseSpringJdbcDAO implements SiteAdminDAO
 	}
 
 	public List<Roles> getAllRoles() {
-		SimpleJdbcTemplate template = getSimpleJdbcTemplate();
-		return template.query(SQL_GET_ALL_ROLES,
-				new RolesParameterizedRowMapper<Roles>());
+		return allRolesQuery.list();
 	}
 
 	public List<Orgs> getAllOrg() {
-		SimpleJdbcTemplate template = getSimpleJdbcTemplate();
-		return template.query(SQL_GET_ALL_ORGS,
-				new OrgsParameterizedRowMapper<Orgs>());
+		return allOrgsQuery.list();
 	}
 	
+	/**
+	 * Replaces the roles of the user: one DELETE and one INSERT...SELECT for all the roles.
+	 * @return the number of roles assigned, or null if the transaction was rolled back
+	 */
 	public Integer assignRoles(User user, List<Roles> roles) {
-		int rowsAffected = 0;
 		if((user == null) || (roles == null)) {
 			throwJDBCException("param user or roles cannot be null.");
 		}
+		int[] rowsAffected = assignRoles(Collections.singletonList(user), roles);
+		return rowsAffected == null ? null : rowsAffected[0];
+	}
+
+	/**
+	 * Replaces the roles of all the given users in one transaction, the deletes and the inserts
+	 * each being sent as one JDBC batch. Users without an id are looked up by username.
+	 * @return for each user, in order, the number of roles inserted as reported by the driver
+	 * (<code>Statement.SUCCESS_NO_INFO</code> when the driver does not report it), or null if
+	 * the transaction was rolled back
+	 */
+	public int[] assignRoles(List<User> users, List<Roles> roles) {
+		if((users == null) || (roles == null)) {
+			throwJDBCException("param users or roles cannot be null.");
+		}
+		if (users.isEmpty()) {
+			return new int[0];
+		}
+		Set<String> roleNames = new LinkedHashSet<String>();
+		for (Roles role : roles) {
+			roleNames.add(role.getRoleName());
+		}
 		// starting transaction
 		TransactionStatus status = createTransactionDefinition();
 		SimpleJdbcTemplate template = getSimpleJdbcTemplate();
-		// first delete current user in Authorities table
-		template.update(SQL_DELETE_AUTHORITIES_BY_USER_SEQ, user.getUserID());
 		try {
-			//now, set roles for user in AUTHORITIES table
-			for(Roles role : roles) {
-				rowsAffected = rowsAffected + template.update(SQL_ASSIGN_USER_ROLES,
-						user.getUsername(), user.getEffectiveDate(), role.getRoleName() );
+			resolveUserIDs(template, users);
+			List<Object[]> userIDs = new ArrayList<Object[]>(users.size());
+			for (User user : users) {
+				userIDs.add(new Object[] {user.getUserID()});
+			}
+			// first delete current users in Authorities table
+			template.batchUpdate(SQL_DELETE_AUTHORITIES_BY_USER_SEQ, userIDs);
+			//now, set roles for users in AUTHORITIES table
+			int[] rowsAffected;
+			if (roleNames.isEmpty()) {
+				rowsAffected = new int[users.size()];
+			}
+			else {
+				List<Object[]> batchArgs = new ArrayList<Object[]>(users.size());
+				for (User user : users) {
+					List<Object> args = new ArrayList<Object>(roleNames.size() + 1);
+					args.add(user.getUserID());
+					args.addAll(roleNames);
+					batchArgs.add(args.toArray());
+				}
+				rowsAffected = template.batchUpdate(SQL_ASSIGN_USER_ROLES_PREFIX + inList(roleNames.size()), batchArgs);
 			}
 			getTransactionManager().commit(status);
 			return rowsAffected;
@@ -244,16 +569,79 @@ public class SiteAdminDAOImpl extends BaseSpringJdbcDAO implements SiteAdminDAO
 		}
 	}
 
+	/*
+	 * Sets the missing user ids, querying them by username in chunks of the maximum IN list size.
+	 */
+	private void resolveUserIDs(SimpleJdbcTemplate template, List<User> users) {
+		Map<String, User> unresolved = new HashMap<String, User>();
+		for (User user : users) {
+			if (user.getUserID() == null) {
+				unresolved.put(user.getUsername(), user);
+			}
+		}
+		List<String> usernames = new ArrayList<String>(unresolved.keySet());
+		for (int start = 0; start < usernames.size(); start += MAX_IN_LIST_SIZE) {
+			List<String> chunk = usernames.subList(start, Math.min(start + MAX_IN_LIST_SIZE, usernames.size()));
+			List<Map<String, Object>> rows = template.queryForList(
+				SQL_GET_USER_SEQ_BY_USERNAME_PREFIX + inList(chunk.size()), chunk.toArray());
+			for (Map<String, Object> row : rows) {
+				User user = unresolved.remove(row.get("USERNAME"));
+				if (user != null) {
+					user.setUserID(((Number) row.get("USER_SEQ")).longValue());
+				}
+			}
+		}
+		if (!unresolved.isEmpty()) {
+			throwJDBCException("unknown users " + unresolved.keySet());
+		}
+	}
+
+	private static String inList(int size) {
+		StringBuilder sql = new StringBuilder(size * 2 + 1);
+		sql.append('(');
+		for (int i = 0; i < size; i++) {
+			sql.append(i == 0 ? "?" : ",?");
+		}
+		return sql.append(')').toString();
+	}
+
 	public List<Roles> getAssignedRolesForUser(User user) {
 		if(user == null) {
 			throwJDBCException("param user cannot be null.");
 		}
 		log.fine("UserID: " + user.getUserID());
-		List<Roles>usersAssignedRolesList = new ArrayList<Roles>();
-		SimpleJdbcTemplate template = getSimpleJdbcTemplate();
-		usersAssignedRolesList = template.query(SQL_GET_ALL_USERS_ASSIGNED_ROLES_BY_USER_SEQ,
-				new RolesParameterizedRowMapper<Roles>(), user.getUserID(), user.getUserID());
-		return usersAssignedRolesList;
+		return assignedRolesQuery.list(user.getUserID());
+	}
+
+	/**
+	 * Reads the assigned roles of all the given users with one query per chunk of the maximum
+	 * IN list size, instead of one query per user.
+	 * @return the roles keyed by user id, users without roles are mapped to an empty list
+	 */
+	public Map<Long, List<Roles>> getAssignedRolesForUsers(List<User> users) {
+		if(users == null) {
+			throwJDBCException("param users cannot be null.");
+		}
+		final Map<Long, List<Roles>> rolesByUser = new HashMap<Long, List<Roles>>();
+		for (User user : users) {
+			if (user.getUserID() != null) {
+				rolesByUser.put(user.getUserID(), new ArrayList<Roles>());
+			}
+		}
+		List<Long> userIDs = new ArrayList<Long>(rolesByUser.keySet());
+		// the IN list size varies, the column indexes are resolved once per call
+		final RolesRowMapper rolesMapper = new RolesRowMapper();
+		JdbcTemplate template = getJdbcTemplate();
+		for (int from = 0; from < userIDs.size(); from += MAX_IN_LIST_SIZE) {
+			List<Long> chunk = userIDs.subList(from, Math.min(from + MAX_IN_LIST_SIZE, userIDs.size()));
+			template.query(SQL_GET_ASSIGNED_ROLES_BY_USER_SEQ_PREFIX + inList(chunk.size()), chunk.toArray(),
+					new RowCallbackHandler() {
+				public void processRow(ResultSet resultSet) throws SQLException {
+					rolesByUser.get(resultSet.getLong("USER_SEQ")).add(rolesMapper.mapRow(resultSet, 0));
+				}
+			});
+		}
+		return rolesByUser;
 	}
 
 	/*
@@ -263,50 +651,98 @@ public class SiteAdminDAOImpl extends BaseSpringJdbcDAO implements SiteAdminDAO
 		throw new JDBCException(getClass() + exceptionMsg);
 	}
 
-	private class UserParameterizedRowMapper<T> implements ParameterizedRowMapper<User> {
+	static private String[] USER_MAPPED_COLUMNS = { "USER_SEQ", "FIRSTNAME", "LASTNAME", "USER_MI_NAME",
+		"USERNAME", "USER_TITLE", "USER_SECURE_PH", "USER_COMM_PH", "USER_CELL_PH", "EFFECTIVE_DT", "PASSWORD",
+		"ENABLED", "CHANGE_PASSWORD", "PASSWORD_CH_EFFECTIVE_TS" };
+
+	// columns are read in the order they are declared to the mapper
+	static class UserRowMapper extends ColumnIndexRowMapper<User> {
 
-		public User mapRow(ResultSet resultSet, int row) throws SQLException {
+		UserRowMapper() {
+			super(USER_MAPPED_COLUMNS);
+		}
+
+		protected User mapRow(ResultSet resultSet, int[] columns) throws SQLException {
+			int i = 0;
 			User user = new User();
-			user.setUserID(resultSet.getLong("USER_SEQ"));
-			user.setFirstName(resultSet.getString("FIRSTNAME"));
-			user.setLastName(resultSet.getString("LASTNAME"));
-			user.setUserMidname(resultSet.getString("USER_MI_NAME"));
-			user.setUsername(resultSet.getString("USERNAME"));
-			user.setUserTitle(resultSet.getString("USER_TITLE"));
-			user.setUserSecurePH(resultSet.getString("USER_SECURE_PH"));
-			user.setUserCommPH(resultSet.getString("USER_COMM_PH"));
-			user.setUserCellPH(resultSet.getString("USER_CELL_PH"));
-			user.setEffectiveDate(resultSet.getDate("EFFECTIVE_DT"));
-			user.setPassword(resultSet.getString("PASSWORD"));
-			user.setEnabled(resultSet.getBoolean("ENABLED"));
-			user.setChangePassword(resultSet.getBoolean("CHANGE_PASSWORD"));
-			user.setPasswordChangedOnDate(resultSet.getDate("PASSWORD_CH_EFFECTIVE_TS"));
+			user.setUserID(resultSet.getLong(columns[i++]));
+			user.setFirstName(resultSet.getString(columns[i++]));
+			user.setLastName(resultSet.getString(columns[i++]));
+			user.setUserMidname(resultSet.getString(columns[i++]));
+			user.setUsername(resultSet.getString(columns[i++]));
+			user.setUserTitle(resultSet.getString(columns[i++]));
+			user.setUserSecurePH(resultSet.getString(columns[i++]));
+			user.setUserCommPH(resultSet.getString(columns[i++]));
+			user.setUserCellPH(resultSet.getString(columns[i++]));
+			user.setEffectiveDate(resultSet.getDate(columns[i++]));
+			user.setPassword(resultSet.getString(columns[i++]));
+			user.setEnabled(resultSet.getBoolean(columns[i++]));
+			user.setChangePassword(resultSet.getBoolean(columns[i++]));
+			user.setPasswordChangedOnDate(resultSet.getDate(columns[i++]));
 
 			return user;
 		}
 	}
 
-	private class RolesParameterizedRowMapper<T> implements ParameterizedRowMapper<Roles> {
+	static private class UserSearchCriteriaRowMapper extends ColumnIndexRowMapper<UserSearchCriteria> {
 
-		public Roles mapRow(ResultSet resultSet, int row) throws SQLException {
+		UserSearchCriteriaRowMapper() {
+			super("USER_SEQ", "FIRSTNAME", "LASTNAME", "USER_MI_NAME", "USERNAME", "USER_TITLE", "USER_SECURE_PH",
+				"USER_COMM_PH", "USER_CELL_PH", "EFFECTIVE_DT", "PASSWORD", "ENABLED", "CHANGE_PASSWORD",
+				"PASSWORD_CH_EFFECTIVE_TS", "ORG_SEQ");
+		}
+
+		protected UserSearchCriteria mapRow(ResultSet resultSet, int[] columns) throws SQLException {
+			int i = 0;
+			UserSearchCriteria userSearchCriteria = new UserSearchCriteria();
+			userSearchCriteria.setUserID(resultSet.getLong(columns[i++]));
+			userSearchCriteria.setFirstName(resultSet.getString(columns[i++]));
+			userSearchCriteria.setLastName(resultSet.getString(columns[i++]));
+			userSearchCriteria.setUserMidname(resultSet.getString(columns[i++]));
+			userSearchCriteria.setUsername(resultSet.getString(columns[i++]));
+			userSearchCriteria.setUserTitle(resultSet.getString(columns[i++]));
+			userSearchCriteria.setUserSecurePH(resultSet.getString(columns[i++]));
+			userSearchCriteria.setUserCommPH(resultSet.getString(columns[i++]));
+			userSearchCriteria.setUserCellPH(resultSet.getString(columns[i++]));
+			userSearchCriteria.setEffectiveDate(resultSet.getDate(columns[i++]));
+			userSearchCriteria.setPassword(resultSet.getString(columns[i++]));
+			userSearchCriteria.setEnabled(resultSet.getBoolean(columns[i++]));
+			userSearchCriteria.setChangePassword(resultSet.getBoolean(columns[i++]));
+			userSearchCriteria.setPasswordChangedOnDate(resultSet.getDate(columns[i++]));
+			userSearchCriteria.setOrgId(resultSet.getLong(columns[i++]));
+			return userSearchCriteria;
+		}
+	}
+
+	static private class RolesRowMapper extends ColumnIndexRowMapper<Roles> {
+
+		RolesRowMapper() {
+			super("ROLE_SEQ", "ROLENAME", "ROLE_DESCRIPTION", "EFFECTIVE_DT");
+		}
+
+		protected Roles mapRow(ResultSet resultSet, int[] columns) throws SQLException {
 			Roles role = new Roles();
-			role.setRoleID(resultSet.getLong("ROLE_SEQ"));
-			role.setRoleName(resultSet.getString("ROLENAME"));
-			role.setRoleDescription(resultSet.getString("ROLE_DESCRIPTION"));
-			role.setEffectiveDate(resultSet.getDate("EFFECTIVE_DT"));
+			role.setRoleID(resultSet.getLong(columns[0]));
+			role.setRoleName(resultSet.getString(columns[1]));
+			role.setRoleDescription(resultSet.getString(columns[2]));
+			role.setEffectiveDate(resultSet.getDate(columns[3]));
 
 			return role;
 		}
 	}
 
-	private class OrgsParameterizedRowMapper<T> implements ParameterizedRowMapper<Orgs> {
+	static private class OrgsRowMapper extends ColumnIndexRowMapper<Orgs> {
+
+		OrgsRowMapper() {
+			super("ORG_SEQ", "ORGNAME", "ORG_DESCRIPTION", "EFFECTIVE_DT");
+		}
 
-		public Orgs mapRow(ResultSet resultSet, int row) throws SQLException {
+		protected Orgs mapRow(ResultSet resultSet, int[] columns) throws SQLException {
 			Orgs org = new Orgs();
-			org.setOrgID(resultSet.getLong("ORG_SEQ"));
-			org.setOrgName(resultSet.getString("ORGNAME"));
-			org.setOrgDescription(resultSet.getString("ORG_DESCRIPTION"));
-			org.setEffectiveDate(resultSet.getDate("EFFECTIVE_DT"));
+			org.setOrgID(resultSet.getLong(columns[0]));
+			org.setOrgName(resultSet.getString(columns[1]));
+			org.setOrgDescription(resultSet.getString(columns[2]));
+			org.setEffectiveDate(resultSet.getDate(columns[3]));
 
 			return org;
 		}
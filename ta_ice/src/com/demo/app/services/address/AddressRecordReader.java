@@ -0,0 +1,24 @@
+package com.demo.app.services.address;
+
+import java.util.Map;
+
+import com.demo.app.domain.address.Address;
+import com.demo.app.util.RecordReader;
+
+/**
+ * Reads the addresses to import.
+ * <p>
+ * Fields are named after the Address properties: address, city, state and zip.
+ * Unknown fields are ignored.
+ */
+public abstract class AddressRecordReader extends RecordReader<Address> {
+
+	protected Address toRecord(Map<String, String> fields) {
+		Address address = new Address();
+		address.setAddress(trimToNull(fields.get("address")));
+		address.setCity(trimToNull(fields.get("city")));
+		address.setState(trimToNull(fields.get("state")));
+		address.setZip(trimToNull(fields.get("zip")));
+		return address;
+	}
+}
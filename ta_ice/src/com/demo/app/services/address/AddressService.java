@@ -2,9 +2,13 @@ package com.demo.app.services.address;
 
 
 
+import java.io.IOException;
 import java.util.List;
 
+import com.demo.app.dao.db.AddressDAO;
 import com.demo.app.domain.address.Address;
+import com.demo.app.util.ImportListener;
+import com.demo.app.util.ImportReport;
 import com.icesoft.faces.component.ext.RowSelectorEvent;
 
 
@@ -17,6 +21,21 @@ public interface AddressService {
 	public void createAddress(Address address);
 
 	public List<Address> getAllAddresss();
+
+	public Integer getAddressCount();
+
+	public List<Address> getAddressesAfter(Long lastAddressID, int maxRows);
+
+	public List<Address> getAddressesPage(int firstRow, int maxRows);
+
+	public void forEachAddress(AddressDAO.AddressHandler handler);
+
+	/**
+	 * Imports all the addresses of the reader. Records without an address or with a
+	 * field longer than the columns allow are rejected.
+	 * @param listener notified of the progress, may be null
+	 */
+	public ImportReport importAddresses(AddressRecordReader reader, ImportListener listener) throws IOException;
 	
 	public void removeAllAddress();
 	
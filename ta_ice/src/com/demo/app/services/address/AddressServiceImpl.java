@@ -1,5 +1,6 @@
 package com.demo.app.services.address;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -21,13 +22,20 @@ import com.demo.app.domain.security.Roles;
 import com.demo.app.domain.security.User;
 import com.demo.app.services.security.ServicesSecurityException;
 import com.demo.app.services.security.SiteAdminServiceImpl;
+import com.demo.app.util.ChunkedImport;
+import com.demo.app.util.ImportListener;
+import com.demo.app.util.ImportReport;
 import com.demo.app.util.ThreatConstants;
 import com.icesoft.faces.component.ext.RowSelectorEvent;
 
 public class AddressServiceImpl implements AddressService {
 	
 	private AddressDAO addressDAO;
+	private int batchSize = 1000;
 	private static Logger log = Logger.getLogger(AddressService.class.getName());
+
+	// the width of the ADDRESS columns, as enforced by the entry form
+	private static final int MAX_FIELD_LENGTH = 40;
 	
 	/*
 	 * Default Constructor
@@ -92,8 +100,72 @@ public class AddressServiceImpl implements AddressService {
 
 
 	public void removeAllAddress() {
-		addressDAO.removeAddress();
-		
+		int removed = addressDAO.removeAddress();
+		log.fine("Removed " + removed + " addresses");
+	}
+
+	public Integer getAddressCount() {
+		return addressDAO.getAddressCount();
+	}
+
+	public List<Address> getAddressesAfter(Long lastAddressID, int maxRows) {
+		return addressDAO.getAddressesAfter(lastAddressID, maxRows);
+	}
+
+	public List<Address> getAddressesPage(int firstRow, int maxRows) {
+		return addressDAO.getAddressesPage(firstRow, maxRows);
+	}
+
+	public void forEachAddress(AddressDAO.AddressHandler handler) {
+		addressDAO.forEachAddress(handler);
+	}
+
+	/**
+	 * Streams the records of the reader into the ADDRESS table, batchSize addresses per
+	 * JDBC batch and transaction, see {@link ChunkedImport}.
+	 */
+	public ImportReport importAddresses(AddressRecordReader reader, ImportListener listener) throws IOException {
+		if (reader == null) {
+			throw new ServicesSecurityException(AddressServiceImpl.class
+					.getName() + "Parameter reader cannot be null");
+		}
+		final Date now = new Date();
+		return new ChunkedImport<Address>("addresses", batchSize) {
+
+			protected String validate(Address address) {
+				if (address.getAddress() == null) {
+					return "missing address";
+				}
+				if (tooLong(address.getAddress()) || tooLong(address.getCity())
+						|| tooLong(address.getState()) || tooLong(address.getZip())) {
+					return "field longer than " + MAX_FIELD_LENGTH + " characters";
+				}
+				return null;
+			}
+
+			protected void prepare(Address address) {
+				address.setEffectiveDate(now);
+			}
+
+			protected void write(List<Address> chunk) {
+				addressDAO.createAddresses(chunk);
+			}
+		}.run(reader, listener);
+	}
+
+	private static boolean tooLong(String value) {
+		return value != null && value.length() > MAX_FIELD_LENGTH;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * @param batchSize number of addresses written and committed together by importAddresses
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
 	}
 
 
@@ -0,0 +1,27 @@
+package com.demo.app.services.address;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+import com.demo.app.util.CsvRecordReader;
+
+/**
+ * Reads addresses from comma separated values, see {@link CsvRecordReader} for the format.
+ */
+public class CsvAddressRecordReader extends AddressRecordReader {
+
+	private final CsvRecordReader reader;
+
+	public CsvAddressRecordReader(Reader reader) {
+		this.reader = new CsvRecordReader(reader);
+	}
+
+	protected Map<String, String> nextRecord() throws IOException {
+		return reader.next();
+	}
+
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -0,0 +1,125 @@
+package com.demo.app.services.security;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import org.springframework.security.providers.dao.UserCache;
+import org.springframework.security.userdetails.UserDetails;
+
+/**
+ * Bounded user cache, the least recently used accounts are dropped first and
+ * every account expires once its time to live elapsed.
+ * <p>
+ * Each removal bumps the version; an account loaded before a removal is not
+ * cached by {@link #putUserInCache(UserDetails, long)} so that a lookup racing
+ * with an update cannot bring back the stale account.
+ */
+public class AccountCache implements UserCache {
+
+	private static Logger log = Logger.getLogger(AccountCache.class.getName());
+
+	public static final int DEFAULT_MAX_SIZE = 1000;
+
+	public static final long DEFAULT_TIME_TO_LIVE = 5 * 60 * 1000L;
+
+	private final int maxSize;
+
+	private final long timeToLive;
+
+	private final AtomicLong version = new AtomicLong();
+
+	private final Map<String, Entry> entries;
+
+	public AccountCache(final int maxSize, long timeToLive) {
+		this.maxSize = maxSize;
+		this.timeToLive = timeToLive;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	public synchronized UserDetails getUserFromCache(String username) {
+		Entry entry = entries.get(username);
+		if (entry == null) {
+			return null;
+		}
+		if (System.currentTimeMillis() - entry.cachedAt >= timeToLive) {
+			entries.remove(username);
+			return null;
+		}
+		return entry.user;
+	}
+
+	public void putUserInCache(UserDetails user) {
+		putUserInCache(user, version.get());
+	}
+
+	/**
+	 * Caches the user unless an account was removed since <code>loadVersion</code> was read.
+	 * @param loadVersion the {@link #getVersion()} read before loading the user
+	 */
+	public synchronized void putUserInCache(UserDetails user, long loadVersion) {
+		if (loadVersion == version.get()) {
+			entries.put(user.getUsername(), new Entry(user));
+		}
+	}
+
+	public synchronized void removeUserFromCache(String username) {
+		version.incrementAndGet();
+		entries.remove(username);
+	}
+
+	/**
+	 * Removes the account by username and by id, the latter catches an account
+	 * cached under the username it had before being renamed.
+	 */
+	public synchronized void removeAccount(Long userID, String username) {
+		version.incrementAndGet();
+		if (username != null) {
+			entries.remove(username);
+		}
+		if (userID != null) {
+			for (Iterator<Entry> i = entries.values().iterator(); i.hasNext();) {
+				UserDetails user = i.next().user;
+				if (user instanceof AccountDetails && userID.equals(((AccountDetails) user).getUserID())) {
+					i.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Drops all the cached accounts.
+	 */
+	public synchronized void clear() {
+		version.incrementAndGet();
+		entries.clear();
+		log.fine("Cleared user cache");
+	}
+
+	public long getVersion() {
+		return version.get();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	private static final class Entry {
+
+		private final UserDetails user;
+
+		private final long cachedAt = System.currentTimeMillis();
+
+		private Entry(UserDetails user) {
+			this.user = user;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.demo.app.services.security;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.security.GrantedAuthority;
+import org.springframework.security.GrantedAuthorityImpl;
+
+import com.demo.app.domain.security.User;
+
+/**
+ * Spring Security principal built from a USERS row and its role names.
+ * <p>
+ * It keeps its own copy of the {@link User} so that the account can be handed out
+ * from the user cache without touching the database; {@link #getAccount()} returns
+ * a new copy each time since the web beans modify the users they edit.
+ */
+public class AccountDetails extends org.springframework.security.userdetails.User {
+
+	private static final long serialVersionUID = 1L;
+
+	private final User account;
+
+	public AccountDetails(User user, List<String> roleNames) {
+		super(user.getUsername(), user.getPassword(), Boolean.TRUE.equals(user.getEnabled()),
+				true, true, true, toAuthorities(roleNames));
+		this.account = copyOf(user);
+	}
+
+	public Long getUserID() {
+		return account.getUserID();
+	}
+
+	/**
+	 * @return a copy of the account this principal was built from
+	 */
+	public User getAccount() {
+		return copyOf(account);
+	}
+
+	private static GrantedAuthority[] toAuthorities(List<String> roleNames) {
+		GrantedAuthority[] authorities = new GrantedAuthority[roleNames.size()];
+		for (int i = 0; i < authorities.length; i++) {
+			authorities[i] = new GrantedAuthorityImpl(roleNames.get(i));
+		}
+		return authorities;
+	}
+
+	private static User copyOf(User user) {
+		User copy = new User();
+		copy.setUserID(user.getUserID());
+		copy.setFirstName(user.getFirstName());
+		copy.setLastName(user.getLastName());
+		copy.setUserMidname(user.getUserMidname());
+		copy.setUsername(user.getUsername());
+		copy.setUserTitle(user.getUserTitle());
+		copy.setUserSecurePH(user.getUserSecurePH());
+		copy.setUserCommPH(user.getUserCommPH());
+		copy.setUserCellPH(user.getUserCellPH());
+		copy.setPassword(user.getPassword());
+		copy.setEnabled(user.getEnabled());
+		copy.setEffectiveDate(copyOf(user.getEffectiveDate()));
+		copy.setPasswordChangedOnDate(copyOf(user.getPasswordChangedOnDate()));
+		copy.setPasswordExpired(user.getPasswordExpired());
+		copy.setOrgId(user.getOrgId());
+		return copy;
+	}
+
+	private static Date copyOf(Date date) {
+		return date == null ? null : (Date) date.clone();
+	}
+}
@@ -0,0 +1,27 @@
+package com.demo.app.services.security;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+import com.demo.app.util.CsvRecordReader;
+
+/**
+ * Reads users from comma separated values, see {@link CsvRecordReader} for the format.
+ */
+public class CsvUserRecordReader extends UserRecordReader {
+
+	private final CsvRecordReader reader;
+
+	public CsvUserRecordReader(Reader reader) {
+		this.reader = new CsvRecordReader(reader);
+	}
+
+	protected Map<String, String> nextRecord() throws IOException {
+		return reader.next();
+	}
+
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -0,0 +1,127 @@
+package com.demo.app.services.security;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.faces.model.SelectItem;
+
+import com.demo.app.dao.db.SiteAdminDAO;
+import com.demo.app.domain.security.Orgs;
+import com.demo.app.domain.security.Roles;
+
+/**
+ * Read-through cache of the ROLES and ORGS reference data, shared by all sessions.
+ * <p>
+ * The data is handed out as an immutable {@link Snapshot} which is reloaded once its
+ * time to live elapsed or after {@link #invalidate()} was called. Each invalidation
+ * bumps the version so that a load racing with an invalidation is not published.
+ * The Roles and Orgs instances in a snapshot are shared and must not be modified.
+ */
+public class ReferenceDataCache {
+
+	private static Logger log = Logger.getLogger(ReferenceDataCache.class.getName());
+
+	public static final long DEFAULT_TIME_TO_LIVE = 10 * 60 * 1000L;
+
+	private final SiteAdminDAO siteAdminDAO;
+
+	private final long timeToLive;
+
+	private final Object loadLock = new Object();
+
+	private volatile Snapshot snapshot;
+
+	private final AtomicLong version = new AtomicLong();
+
+	public ReferenceDataCache(SiteAdminDAO siteAdminDAO, long timeToLive) {
+		this.siteAdminDAO = siteAdminDAO;
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * @return the current reference data, loaded from the database if missing, stale or expired
+	 */
+	public Snapshot getSnapshot() {
+		Snapshot current = snapshot;
+		if (isUsable(current)) {
+			return current;
+		}
+		// only one thread reloads, the others wait for its result
+		synchronized (loadLock) {
+			current = snapshot;
+			if (isUsable(current)) {
+				return current;
+			}
+			long loadVersion = version.get();
+			log.fine("Loading reference data, version " + loadVersion);
+			current = new Snapshot(loadVersion, siteAdminDAO.getAllRoles(), siteAdminDAO.getAllOrg());
+			if (loadVersion == version.get()) {
+				snapshot = current;
+			}
+			return current;
+		}
+	}
+
+	/**
+	 * Drops the cached data, the next access reads it again from the database.
+	 */
+	public void invalidate() {
+		version.incrementAndGet();
+		snapshot = null;
+	}
+
+	private boolean isUsable(Snapshot candidate) {
+		return candidate != null
+			&& candidate.version == version.get()
+			&& System.currentTimeMillis() - candidate.loadedAt < timeToLive;
+	}
+
+	/**
+	 * Immutable view of the reference data, including the select items built from it.
+	 */
+	public static final class Snapshot {
+
+		private final long version;
+
+		private final long loadedAt = System.currentTimeMillis();
+
+		private final List<Roles> roles;
+
+		private final List<Orgs> orgs;
+
+		private final List<SelectItem> roleSelectItems;
+
+		private Snapshot(long version, List<Roles> roles, List<Orgs> orgs) {
+			this.version = version;
+			this.roles = Collections.unmodifiableList(new ArrayList<Roles>(roles));
+			this.orgs = Collections.unmodifiableList(new ArrayList<Orgs>(orgs));
+			List<SelectItem> items = new ArrayList<SelectItem>(roles.size());
+			for (Roles role : roles) {
+				items.add(new SelectItem(role.getRoleName(), role.getRoleDescription()));
+			}
+			this.roleSelectItems = Collections.unmodifiableList(items);
+		}
+
+		public long getVersion() {
+			return version;
+		}
+
+		public List<Roles> getRoles() {
+			return roles;
+		}
+
+		public List<Orgs> getOrgs() {
+			return orgs;
+		}
+
+		/**
+		 * @return select items with the role name as value and the role description as label
+		 */
+		public List<SelectItem> getRoleSelectItems() {
+			return roleSelectItems;
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.demo.app.services.security;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes a change made through {@link SiteAdminService}, so that views holding
+ * users or roles can update only what changed.
+ */
+public class SiteAdminEvent {
+
+	public enum Type {
+		/** users were added, see getUserIDs */
+		USERS_CREATED,
+		/** the account or the role assignments of users changed, see getUserIDs */
+		USERS_UPDATED,
+		/** roles were created, changed or deleted */
+		ROLES_CHANGED
+	}
+
+	private final Type type;
+
+	private final List<Long> userIDs;
+
+	public SiteAdminEvent(Type type, List<Long> userIDs) {
+		this.type = type;
+		this.userIDs = Collections.unmodifiableList(userIDs);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the ids of the users concerned, empty for role changes
+	 */
+	public List<Long> getUserIDs() {
+		return userIDs;
+	}
+
+	public String toString() {
+		return type + " " + userIDs;
+	}
+}
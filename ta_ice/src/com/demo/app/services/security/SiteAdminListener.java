@@ -0,0 +1,14 @@
+package com.demo.app.services.security;
+
+/**
+ * Notified of the changes made through {@link SiteAdminService}.
+ * <p>
+ * Events are delivered on the thread making the change, which usually serves another
+ * session; a view should record the event and apply it on its own next request.
+ * Listeners are only weakly referenced by the service, a session scoped bean should still
+ * unregister when it leaves the session so that it stops receiving events.
+ */
+public interface SiteAdminListener {
+
+	public void siteAdminChanged(SiteAdminEvent event);
+}
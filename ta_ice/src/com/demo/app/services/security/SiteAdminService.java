@@ -1,10 +1,14 @@
 package com.demo.app.services.security;
 
 import java.util.List;
+import java.util.Map;
 
 
 
+import javax.faces.model.SelectItem;
+
 import com.demo.app.domain.UserSearchCriteria;
+import com.demo.app.domain.security.Orgs;
 import com.demo.app.domain.security.Roles;
 import com.demo.app.domain.security.User;
 
@@ -36,6 +40,22 @@ public interface SiteAdminService {
 /*	@Secured({"ROLE_URLACCESS","ROLE_ADMIN","ROLE_MANAGER","ROLE_USER"})*/
 	public List<User> getAllUsers();	
 	
+	public Integer getUserCount();
+	
+	public List<User> getUsersByID(List<Long> userIDs);
+	
+	/**
+	 * Registers a listener notified of the user and role changes made through this service.
+	 * The listener is weakly referenced.
+	 */
+	public void addSiteAdminListener(SiteAdminListener listener);
+	
+	public void removeSiteAdminListener(SiteAdminListener listener);
+	
+	public List<User> getUsersAfter(Long lastUserID, boolean ascending, int maxRows);
+	
+	public List<User> getUsersPage(String sortProperty, boolean ascending, int firstRow, int maxRows);
+	
 	
 /*	@Secured({"ROLE_ADMIN","ROLE_MANAGER"})*/
 	public void createRole(Roles role);
@@ -48,10 +68,18 @@ public interface SiteAdminService {
 	
 	public List<Roles> getRolesForSelectedUser(User user);
 	
+	public Map<Long, List<Roles>> getRolesForUsers(List<User> users);
+	
 	public void assignRolesForUser(User user, List<Roles> rolesList);
 	
+	public int[] assignRolesForUsers(List<User> users, List<Roles> rolesList);
+	
 	/*@Secured("ROLE_URLACCESS")*/
 	public List<Roles> getAllRoles();
+	
+	public List<SelectItem> getRoleSelectItems();
+	
+	public List<Orgs> getAllOrgs();
 
 	public UserSearchCriteria getSpecificUser(UserSearchCriteria userSearchCriteria);	
 
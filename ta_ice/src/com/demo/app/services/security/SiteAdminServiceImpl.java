@@ -1,26 +1,40 @@
 package com.demo.app.services.security;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.faces.component.UIComponent;
 import javax.faces.context.FacesContext;
+import javax.faces.model.SelectItem;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.security.context.SecurityContextHolder;
 import org.springframework.security.userdetails.UserDetails;
+import org.springframework.security.userdetails.UserDetailsService;
 import org.springframework.security.userdetails.UsernameNotFoundException;
 import com.demo.app.dao.db.SiteAdminDAO;
 import com.demo.app.domain.UserSearchCriteria;
+import com.demo.app.domain.security.Orgs;
 import com.demo.app.domain.security.Roles;
 import com.demo.app.domain.security.User;
 import com.demo.app.util.ThreatConstants;
 
-public class SiteAdminServiceImpl implements SiteAdminService {
+public class SiteAdminServiceImpl implements SiteAdminService, UserDetailsService {
 	
 	private SiteAdminDAO siteAdminDAO;
+	private ReferenceDataCache referenceData;
+	private long referenceDataTimeToLive = ReferenceDataCache.DEFAULT_TIME_TO_LIVE;
+	private UsernameIndex usernameIndex;
+	// weak keys: session scoped views go away with their session without unregistering
+	private final Map<SiteAdminListener, Boolean> listeners =
+		Collections.synchronizedMap(new WeakHashMap<SiteAdminListener, Boolean>());
+	private AccountCache accountCache = new AccountCache(AccountCache.DEFAULT_MAX_SIZE, AccountCache.DEFAULT_TIME_TO_LIVE);
 	private static Logger log = Logger.getLogger(SiteAdminService.class.getName());
 	
 	/*
@@ -30,17 +44,14 @@ public class SiteAdminServiceImpl implements SiteAdminService {
 		log.fine("Initializing SiteAdmin Service");
 	}
 	
-	/*public UserDetails loadUserByUsername(String s) throws UsernameNotFoundException, DataAccessException {
-		log.fine("called loadUserByUsername()");
-		System.out.println ("called loadByUsername()");
-		
-		Account result = siteAdminDAO.getUser(getCurrentUser());
-		return result;
-	}*/
-	
 	public Integer updateUser(User user) {
 		user.setEffectiveDate(new Date());
-		return siteAdminDAO.updateUser(user);
+		Integer numRowsModified = siteAdminDAO.updateUser(user);
+		// the username may have been changed
+		usernameIndex.add(user.getUsername());
+		evictAccount(user);
+		publish(SiteAdminEvent.Type.USERS_UPDATED, Collections.singletonList(user));
+		return numRowsModified;
 	}
 
 
@@ -49,6 +60,8 @@ public class SiteAdminServiceImpl implements SiteAdminService {
 			throw new ServicesSecurityException(getClass() + "Parameter role cannot be null");
 		else {
 			siteAdminDAO.createRole(role);
+			referenceData.invalidate();
+			publish(SiteAdminEvent.Type.ROLES_CHANGED, Collections.<User>emptyList());
 		}
 	}
 
@@ -65,21 +78,60 @@ public class SiteAdminServiceImpl implements SiteAdminService {
 		user.setPasswordChangedOnDate(new Date());
 		System.out.println("Effective Date: " + user.getEffectiveDate());
 		System.out.println("Password Change Date: " + user.getPasswordChangedOnDate());
-		int numRowsModified = siteAdminDAO.createUser(user);
+		// the index only knows the usernames created through this instance, so the
+		// database is always checked here, with a single indexed lookup
+		if (siteAdminDAO.isUsernameUnique(user.getUsername()) != 0) {
+			throw new ServicesSecurityException(SiteAdminServiceImpl.class
+					.getName() + "User already exists.");
+		}
+		int numRowsModified = siteAdminDAO.insertUser(user);
+		usernameIndex.add(user.getUsername());
 		numRowsModified = numRowsModified + siteAdminDAO.assignRoles(user, roleList);
+		evictAccount(user);
+		publish(SiteAdminEvent.Type.USERS_CREATED, Collections.singletonList(user));
 
 		return numRowsModified;
 	}
 	
 
+	/**
+	 * @return the cached roles, shared between callers and therefore read-only
+	 */
 	public List<Roles> getAllRoles() {
-		return siteAdminDAO.getAllRoles();
+		return referenceData.getSnapshot().getRoles();
+	}
+
+	/**
+	 * @return read-only select items for all the roles, value is the role name and label its description
+	 */
+	public List<SelectItem> getRoleSelectItems() {
+		return referenceData.getSnapshot().getRoleSelectItems();
+	}
+
+	public List<Orgs> getAllOrgs() {
+		return referenceData.getSnapshot().getOrgs();
 	}
 
 	public List<User> getAllUsers() {
 		return siteAdminDAO.getAllUsers();
 	}
 
+	public List<User> getUsersByID(List<Long> userIDs) {
+		return siteAdminDAO.getUsersByID(userIDs);
+	}
+
+	public Integer getUserCount() {
+		return siteAdminDAO.getUserCount();
+	}
+
+	public List<User> getUsersAfter(Long lastUserID, boolean ascending, int maxRows) {
+		return siteAdminDAO.getUsersAfter(lastUserID, ascending, maxRows);
+	}
+
+	public List<User> getUsersPage(String sortProperty, boolean ascending, int firstRow, int maxRows) {
+		return siteAdminDAO.getUsersPage(sortProperty, ascending, firstRow, maxRows);
+	}
+
 	public UserSearchCriteria getSpecificUser(UserSearchCriteria userSearchCriteria) {
 		return siteAdminDAO.getSelUser(userSearchCriteria);
 		
@@ -87,6 +139,10 @@ public class SiteAdminServiceImpl implements SiteAdminService {
 	}
 
 	
+	/**
+	 * @return a copy of the logged in user, served from the user cache; null if the
+	 * principal does not have an account in the USERS table
+	 */
 	public User getCurrentUser() {
 		UserDetails userDetails = null;
 		User currentUser = null;
@@ -95,22 +151,32 @@ public class SiteAdminServiceImpl implements SiteAdminService {
 
 		if ( object instanceof UserDetails ) {
 			userDetails = (UserDetails)object;
-			
-			User user = new User(userDetails.getUsername());
-			currentUser = siteAdminDAO.getUser(user);
+			try {
+				currentUser = loadAccount(userDetails.getUsername()).getAccount();
+			}
+			catch (UsernameNotFoundException e) {
+				log.fine("No account for principal " + userDetails.getUsername());
+			}
 		}
 		else {
 			throw new ServicesSecurityException(SiteAdminServiceImpl.class
 					.getName() + " object must of type UserDetails.");
 		}
-		System.out.println("current User is " + currentUser);
 		return currentUser;
 	}
 	
 
+	/**
+	 * Checks the username index first, the database is only queried when the username might be taken.
+	 * Meant for validating input as it is typed: a username created by another instance since the
+	 * index was last loaded is reported as unique, createUser checks the database itself.
+	 */
 	public Boolean isUsernameUnique(String username) {
 		Boolean isUnique = Boolean.FALSE;
-		if(siteAdminDAO.isUsernameUnique(username) == 0) {
+		if (!usernameIndex.mightExist(username)) {
+			isUnique = Boolean.TRUE;
+		}
+		else if(siteAdminDAO.isUsernameUnique(username) == 0) {
 			isUnique = Boolean.TRUE;
 			log.fine("username IS unique");		
 			
@@ -155,20 +221,35 @@ public class SiteAdminServiceImpl implements SiteAdminService {
 
 	
 	public void deleteRole(Roles role) {
-		// TODO Auto-generated method stub
-		
+		siteAdminDAO.removeRole(role);
+		referenceData.invalidate();
+		accountCache.clear();
+		publish(SiteAdminEvent.Type.ROLES_CHANGED, Collections.<User>emptyList());
 	}
 
 	
 	public void updateRole(Roles role) {
-		// TODO Auto-generated method stub
-		
+		siteAdminDAO.updateRole(role);
+		referenceData.invalidate();
+		accountCache.clear();
+		publish(SiteAdminEvent.Type.ROLES_CHANGED, Collections.<User>emptyList());
 	}
 	
 
 	public List<Roles> getRolesForSelectedUser(User user) {
 		return siteAdminDAO.getAssignedRolesForUser(user);
 	}
+
+	/**
+	 * @return the assigned roles of each user keyed by user id, read in bulk rather than per user
+	 */
+	public Map<Long, List<Roles>> getRolesForUsers(List<User> users) {
+		if (users == null) {
+			throw new ServicesSecurityException(SiteAdminServiceImpl.class
+					.getName() + "Parameter users cannot be null");
+		}
+		return siteAdminDAO.getAssignedRolesForUsers(users);
+	}
 	
     private void validateNewPassword(FacesContext context, UIComponent validate, Object value) {
 //    	String encryptedNewPassword = service.encodePassword(newPassword, super.getCurrentUserID());
@@ -202,6 +283,27 @@ public class SiteAdminServiceImpl implements SiteAdminService {
     
     public void assignRolesForUser(User user, List<Roles> rolesList) {
     	siteAdminDAO.assignRoles(user, rolesList);
+    	evictAccount(user);
+    	publish(SiteAdminEvent.Type.USERS_UPDATED, Collections.singletonList(user));
+    }
+
+    /**
+     * Replaces the roles of all the users in a single transaction.
+     * @return the number of roles assigned to each user, null if nothing was changed
+     */
+    public int[] assignRolesForUsers(List<User> users, List<Roles> rolesList) {
+    	if ((users == null) || (rolesList == null)) {
+    		throw new ServicesSecurityException(SiteAdminServiceImpl.class
+    				.getName() + "Parameters users or rolesList cannot be null");
+    	}
+    	int[] assigned = siteAdminDAO.assignRoles(users, rolesList);
+    	for (User user : users) {
+    		evictAccount(user);
+    	}
+    	if (assigned != null) {
+    		publish(SiteAdminEvent.Type.USERS_UPDATED, users);
+    	}
+    	return assigned;
     }
     
 	public User updatePassword(User user) {
@@ -224,11 +326,115 @@ public class SiteAdminServiceImpl implements SiteAdminService {
 	 */
 	public void setSiteAdminDAO(SiteAdminDAO siteAdminDAO) {
 		this.siteAdminDAO = siteAdminDAO;
+		this.referenceData = new ReferenceDataCache(siteAdminDAO, referenceDataTimeToLive);
+		this.usernameIndex = new UsernameIndex(siteAdminDAO, UsernameIndex.DEFAULT_FALSE_POSITIVE_PROBABILITY,
+				UsernameIndex.DEFAULT_REFRESH_INTERVAL);
 	}
 
-	public UserDetails loadUserByUsername(String arg0)
+	/**
+	 * Loads the username index, to be called once the service is configured (init-method).
+	 */
+	public void init() {
+		usernameIndex.warm();
+	}
+
+	/**
+	 * @return the index of the existing usernames, to be kept current by other services writing users
+	 */
+	public UsernameIndex getUsernameIndex() {
+		return usernameIndex;
+	}
+
+	/**
+	 * @param referenceDataTimeToLive how long, in milliseconds, roles and orgs are cached
+	 */
+	public void setReferenceDataTimeToLive(long referenceDataTimeToLive) {
+		this.referenceDataTimeToLive = referenceDataTimeToLive;
+		if (siteAdminDAO != null) {
+			this.referenceData = new ReferenceDataCache(siteAdminDAO, referenceDataTimeToLive);
+		}
+	}
+
+	/**
+	 * Drops the cached roles and orgs, to be called when they were changed outside of this service.
+	 */
+	public void invalidateReferenceData() {
+		referenceData.invalidate();
+	}
+
+	/**
+	 * @param accountCache the cache of the accounts returned by loadUserByUsername
+	 */
+	public void setAccountCache(AccountCache accountCache) {
+		this.accountCache = accountCache;
+	}
+
+	/**
+	 * Drops the cached accounts, to be called when users or authorities were changed outside of this service.
+	 */
+	public void invalidateAccounts() {
+		accountCache.clear();
+	}
+
+	/**
+	 * Loads the account and its authorities with a single query, the result is cached
+	 * until the account is changed through this service or its time to live elapsed.
+	 */
+	public UserDetails loadUserByUsername(String username)
 			throws UsernameNotFoundException, DataAccessException {
-		// TODO Auto-generated method stub
-		return null;
+		return loadAccount(username);
+	}
+
+	private AccountDetails loadAccount(String username) {
+		UserDetails cached = accountCache.getUserFromCache(username);
+		if (cached != null) {
+			return (AccountDetails) cached;
+		}
+		// read before loading, an account changed while it is loaded is not cached
+		long loadVersion = accountCache.getVersion();
+		List<String> roleNames = new ArrayList<String>();
+		User user = siteAdminDAO.getUserWithRoleNames(username, roleNames);
+		if (user == null) {
+			throw new UsernameNotFoundException("Unknown username " + username);
+		}
+		AccountDetails account = new AccountDetails(user, roleNames);
+		accountCache.putUserInCache(account, loadVersion);
+		return account;
+	}
+
+	public void addSiteAdminListener(SiteAdminListener listener) {
+		listeners.put(listener, Boolean.TRUE);
+	}
+
+	public void removeSiteAdminListener(SiteAdminListener listener) {
+		listeners.remove(listener);
+	}
+
+	private void publish(SiteAdminEvent.Type type, List<User> users) {
+		List<Long> userIDs = new ArrayList<Long>(users.size());
+		for (User user : users) {
+			if (user.getUserID() != null) {
+				userIDs.add(user.getUserID());
+			}
+		}
+		SiteAdminEvent event = new SiteAdminEvent(type, userIDs);
+		List<SiteAdminListener> targets;
+		synchronized (listeners) {
+			targets = new ArrayList<SiteAdminListener>(listeners.keySet());
+		}
+		for (SiteAdminListener listener : targets) {
+			try {
+				listener.siteAdminChanged(event);
+			}
+			catch (RuntimeException e) {
+				log.log(Level.WARNING, "Listener failed on " + event, e);
+			}
+		}
+	}
+
+	private void evictAccount(User user) {
+		if (user != null) {
+			accountCache.removeAccount(user.getUserID(), user.getUsername());
+		}
 	}
 }
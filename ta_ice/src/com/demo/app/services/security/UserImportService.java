@@ -0,0 +1,18 @@
+package com.demo.app.services.security;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.demo.app.domain.security.Roles;
+import com.demo.app.util.ImportListener;
+import com.demo.app.util.ImportReport;
+
+public interface UserImportService {
+
+	/**
+	 * Imports all the users of the reader, assigning them the given roles. Records with
+	 * a missing username or password, or with a username that already exists, are rejected.
+	 * @param listener notified of the progress, may be null
+	 */
+	public ImportReport importUsers(UserRecordReader reader, List<Roles> roles, ImportListener listener) throws IOException;
+}
@@ -0,0 +1,139 @@
+package com.demo.app.services.security;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import com.demo.app.dao.db.SiteAdminDAO;
+import com.demo.app.domain.security.Roles;
+import com.demo.app.domain.security.User;
+import com.demo.app.util.ChunkedImport;
+import com.demo.app.util.ImportListener;
+import com.demo.app.util.ImportReport;
+
+/**
+ * Bulk user import. Existing usernames are loaded once and checked in memory, user ids
+ * are reserved from USERS_SEQUENCE in blocks, and the users are written with JDBC batch
+ * inserts committed every <code>batchSize</code> users, instead of the existence check,
+ * insert and role assignment round trips createUser makes for each user.
+ */
+public class UserImportServiceImpl implements UserImportService {
+
+	private SiteAdminDAO siteAdminDAO;
+
+	private int batchSize = 500;
+
+	private int idBlockSize = 1000;
+
+	private UsernameIndex usernameIndex;
+
+	public ImportReport importUsers(UserRecordReader reader, final List<Roles> roles, ImportListener listener) throws IOException {
+		if ((reader == null) || (roles == null)) {
+			throw new ServicesSecurityException(UserImportServiceImpl.class
+					.getName() + "Parameters reader or roles cannot be null");
+		}
+		// the set also holds the usernames of the chunks written so far
+		final Set<String> usernames = siteAdminDAO.getAllUsernames();
+		// the usernames of the chunk being filled, they are not taken until it is written
+		final Set<String> chunkUsernames = new HashSet<String>();
+		final IdBlock ids = new IdBlock();
+		final Date now = new Date();
+		return new ChunkedImport<User>("users", batchSize) {
+
+			protected String validate(User user) {
+				if (user.getUsername() == null) {
+					return "missing username";
+				}
+				if ((user.getPassword() == null) || (user.getPassword().length() == 0)) {
+					return "missing password";
+				}
+				if (usernames.contains(user.getUsername()) || !chunkUsernames.add(user.getUsername())) {
+					return "username already exists";
+				}
+				return null;
+			}
+
+			protected void prepare(User user) {
+				user.setEffectiveDate(now);
+				user.setPasswordChangedOnDate(now);
+				user.setUserID(ids.next());
+			}
+
+			protected void write(List<User> chunk) {
+				try {
+					siteAdminDAO.createUsers(chunk, roles);
+					usernames.addAll(chunkUsernames);
+					if (usernameIndex != null) {
+						for (User user : chunk) {
+							usernameIndex.add(user.getUsername());
+						}
+					}
+				}
+				finally {
+					// a chunk rolled back leaves its usernames free for the following records
+					chunkUsernames.clear();
+				}
+			}
+
+			protected String describe(User user) {
+				return user.getUsername();
+			}
+		}.run(reader, listener);
+	}
+
+	/**
+	 * Hands out USER_SEQ values reserved idBlockSize at a time.
+	 */
+	private class IdBlock {
+
+		private Iterator<Long> ids = new ArrayList<Long>().iterator();
+
+		private Long next() {
+			if (!ids.hasNext()) {
+				ids = siteAdminDAO.allocateUserIDs(idBlockSize).iterator();
+			}
+			return ids.next();
+		}
+	}
+
+	public SiteAdminDAO getSiteAdminDAO() {
+		return siteAdminDAO;
+	}
+
+	public void setSiteAdminDAO(SiteAdminDAO siteAdminDAO) {
+		this.siteAdminDAO = siteAdminDAO;
+	}
+
+	/**
+	 * @param usernameIndex index told about the imported usernames, see SiteAdminServiceImpl.getUsernameIndex
+	 */
+	public void setUsernameIndex(UsernameIndex usernameIndex) {
+		this.usernameIndex = usernameIndex;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * @param batchSize number of users written and committed together
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public int getIdBlockSize() {
+		return idBlockSize;
+	}
+
+	/**
+	 * @param idBlockSize number of USER_SEQ values reserved per sequence query
+	 */
+	public void setIdBlockSize(int idBlockSize) {
+		this.idBlockSize = idBlockSize;
+	}
+}
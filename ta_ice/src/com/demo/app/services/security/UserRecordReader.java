@@ -0,0 +1,41 @@
+package com.demo.app.services.security;
+
+import java.util.Map;
+
+import com.demo.app.domain.security.User;
+import com.demo.app.util.RecordReader;
+
+/**
+ * Reads the users to import.
+ * <p>
+ * Fields are named after the User properties: username, password, firstName,
+ * lastName, userMidname, userTitle, userSecurePH, userCommPH, userCellPH,
+ * enabled and passwordExpired. Unknown fields are ignored.
+ */
+public abstract class UserRecordReader extends RecordReader<User> {
+
+	protected User toRecord(Map<String, String> fields) {
+		User user = new User();
+		user.setUsername(trimToNull(fields.get("username")));
+		user.setPassword(fields.get("password"));
+		user.setFirstName(trimToNull(fields.get("firstName")));
+		user.setLastName(trimToNull(fields.get("lastName")));
+		user.setUserMidname(trimToNull(fields.get("userMidname")));
+		user.setUserTitle(trimToNull(fields.get("userTitle")));
+		user.setUserSecurePH(trimToNull(fields.get("userSecurePH")));
+		user.setUserCommPH(trimToNull(fields.get("userCommPH")));
+		user.setUserCellPH(trimToNull(fields.get("userCellPH")));
+		user.setEnabled(toBoolean(fields.get("enabled"), Boolean.TRUE));
+		user.setPasswordExpired(toBoolean(fields.get("passwordExpired"), Boolean.FALSE));
+		return user;
+	}
+
+	private static Boolean toBoolean(String value, Boolean defaultValue) {
+		value = trimToNull(value);
+		if (value == null) {
+			return defaultValue;
+		}
+		return Boolean.valueOf("true".equalsIgnoreCase(value) || "y".equalsIgnoreCase(value)
+			|| "yes".equalsIgnoreCase(value) || "1".equals(value));
+	}
+}
@@ -0,0 +1,149 @@
+package com.demo.app.services.security;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.demo.app.dao.db.SiteAdminDAO;
+import com.demo.app.util.BloomFilter;
+
+/**
+ * In-memory index of the existing usernames, answering "definitely not taken" without
+ * database access.
+ * <p>
+ * The index is a {@link BloomFilter} loaded from the USERS table; usernames created or
+ * changed through the services are added to it as they are written. A username the filter
+ * does not know cannot exist, any other answer has to be confirmed by the database. The
+ * filter is rebuilt when it holds more usernames than it was sized for, and every
+ * <code>refreshInterval</code> to pick up users created outside of the application. Until
+ * it could be loaded, every check goes to the database.
+ */
+public class UsernameIndex {
+
+	private static Logger log = Logger.getLogger(UsernameIndex.class.getName());
+
+	public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+
+	public static final long DEFAULT_REFRESH_INTERVAL = 60 * 60 * 1000L;
+
+	// delay before loading again after a failed load
+	private static final long RETRY_INTERVAL = 60 * 1000L;
+
+	private static final int MIN_CAPACITY = 1024;
+
+	private final SiteAdminDAO siteAdminDAO;
+
+	private final double falsePositiveProbability;
+
+	private final long refreshInterval;
+
+	private final Lock loadLock = new ReentrantLock();
+
+	private volatile BloomFilter filter;
+
+	private volatile long nextLoadTime = 0;
+
+	private int size;
+
+	// usernames added while a load is running, replayed into the loaded filter
+	private List<String> addedDuringLoad;
+
+	public UsernameIndex(SiteAdminDAO siteAdminDAO, double falsePositiveProbability, long refreshInterval) {
+		this.siteAdminDAO = siteAdminDAO;
+		this.falsePositiveProbability = falsePositiveProbability;
+		this.refreshInterval = refreshInterval;
+	}
+
+	/**
+	 * @return false if no user has the username, true if one might have it
+	 */
+	public boolean mightExist(String username) {
+		BloomFilter current = filter;
+		if (System.currentTimeMillis() >= nextLoadTime) {
+			// one thread loads, the others keep using the current filter meanwhile, or the
+			// database while there is none; after a failed load nothing is tried before the retry
+			current = load(false);
+		}
+		return current == null || current.mightContain(username);
+	}
+
+	/**
+	 * Records a username that was just written to the USERS table.
+	 */
+	public synchronized void add(String username) {
+		if (username == null) {
+			return;
+		}
+		if (addedDuringLoad != null) {
+			addedDuringLoad.add(username);
+		}
+		BloomFilter current = filter;
+		if (current != null) {
+			current.put(username);
+			size++;
+			if (size > current.getExpectedInsertions()) {
+				// over capacity the false positive rate climbs, reload on next check
+				nextLoadTime = 0;
+			}
+		}
+	}
+
+	/**
+	 * Loads the index now, normally done on first use.
+	 */
+	public void warm() {
+		load(true);
+	}
+
+	private BloomFilter load(boolean wait) {
+		if (wait) {
+			loadLock.lock();
+		}
+		else if (!loadLock.tryLock()) {
+			return filter;
+		}
+		try {
+			BloomFilter current = filter;
+			if (System.currentTimeMillis() < nextLoadTime) {
+				return current;
+			}
+			synchronized (this) {
+				addedDuringLoad = new ArrayList<String>();
+			}
+			try {
+				Set<String> usernames = siteAdminDAO.getAllUsernames();
+				BloomFilter loaded = new BloomFilter(Math.max(MIN_CAPACITY, usernames.size() * 2), falsePositiveProbability);
+				for (String username : usernames) {
+					loaded.put(username);
+				}
+				synchronized (this) {
+					for (String username : addedDuringLoad) {
+						loaded.put(username);
+					}
+					size = usernames.size() + addedDuringLoad.size();
+					filter = loaded;
+					nextLoadTime = System.currentTimeMillis() + refreshInterval;
+				}
+				log.fine("Loaded username index, " + usernames.size() + " usernames");
+				return loaded;
+			}
+			catch (RuntimeException e) {
+				log.log(Level.WARNING, "Could not load username index", e);
+				nextLoadTime = System.currentTimeMillis() + RETRY_INTERVAL;
+				return current;
+			}
+			finally {
+				synchronized (this) {
+					addedDuringLoad = null;
+				}
+			}
+		}
+		finally {
+			loadLock.unlock();
+		}
+	}
+}
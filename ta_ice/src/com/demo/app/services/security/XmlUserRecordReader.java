@@ -0,0 +1,81 @@
+package com.demo.app.services.security;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads users from XML with a streaming parser, the document is never loaded as a whole.
+ * Each <code>user</code> element is a record whose child elements (or attributes) are
+ * the fields:
+ * <pre>
+ * &lt;users&gt;
+ *   &lt;user&gt;&lt;username&gt;jdoe&lt;/username&gt;&lt;password&gt;secret&lt;/password&gt;...&lt;/user&gt;
+ * &lt;/users&gt;
+ * </pre>
+ */
+public class XmlUserRecordReader extends UserRecordReader {
+
+	private static final String USER_ELEMENT = "user";
+
+	private final XMLStreamReader reader;
+
+	public XmlUserRecordReader(InputStream in) throws IOException {
+		try {
+			reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+		} catch (XMLStreamException e) {
+			throw toIOException(e);
+		}
+	}
+
+	protected Map<String, String> nextRecord() throws IOException {
+		try {
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT && USER_ELEMENT.equals(reader.getLocalName())) {
+					return readUser();
+				}
+			}
+			return null;
+		} catch (XMLStreamException e) {
+			throw toIOException(e);
+		}
+	}
+
+	public void close() throws IOException {
+		try {
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw toIOException(e);
+		}
+	}
+
+	private Map<String, String> readUser() throws XMLStreamException {
+		Map<String, String> fields = new HashMap<String, String>();
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			fields.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+		}
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = reader.getLocalName();
+				fields.put(name, reader.getElementText());
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT && USER_ELEMENT.equals(reader.getLocalName())) {
+				break;
+			}
+		}
+		return fields;
+	}
+
+	private static IOException toIOException(XMLStreamException e) {
+		IOException exception = new IOException(e.getMessage());
+		exception.initCause(e);
+		return exception;
+	}
+}
@@ -0,0 +1,112 @@
+package com.demo.app.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings: {@link #mightContain(String)} never returns false for a
+ * string that was added, and returns true for a string that was not added with about
+ * the false positive probability the filter was sized for, as long as no more than the
+ * expected number of strings were added.
+ * <p>
+ * Lookups and additions are lock free and can run concurrently. Strings cannot be removed.
+ */
+public class BloomFilter {
+
+	private final AtomicLongArray bits;
+
+	private final long bitCount;
+
+	private final int hashCount;
+
+	private final int expectedInsertions;
+
+	/**
+	 * @param expectedInsertions number of strings the filter is sized for
+	 * @param falsePositiveProbability wanted probability of a false positive, between 0 and 1 (exclusive)
+	 */
+	public BloomFilter(int expectedInsertions, double falsePositiveProbability) {
+		if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+			throw new IllegalArgumentException("Invalid false positive probability " + falsePositiveProbability);
+		}
+		this.expectedInsertions = Math.max(expectedInsertions, 1);
+		double ln2 = Math.log(2);
+		long optimalBits = (long) Math.ceil(-this.expectedInsertions * Math.log(falsePositiveProbability) / (ln2 * ln2));
+		int words = (int) Math.min(Integer.MAX_VALUE, (Math.max(optimalBits, 64) + 63) / 64);
+		this.bits = new AtomicLongArray(words);
+		this.bitCount = words * 64L;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / this.expectedInsertions * ln2));
+	}
+
+	public void put(String value) {
+		long hash1 = hash1(value);
+		long hash2 = hash2(value);
+		for (int i = 0; i < hashCount; i++) {
+			long bit = index(hash1, hash2, i);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long current;
+			do {
+				current = bits.get(word);
+				if ((current & mask) != 0) {
+					break;
+				}
+			} while (!bits.compareAndSet(word, current, current | mask));
+		}
+	}
+
+	/**
+	 * @return false if the value was definitely never added
+	 */
+	public boolean mightContain(String value) {
+		long hash1 = hash1(value);
+		long hash2 = hash2(value);
+		for (int i = 0; i < hashCount; i++) {
+			long bit = index(hash1, hash2, i);
+			if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int getExpectedInsertions() {
+		return expectedInsertions;
+	}
+
+	public int getHashCount() {
+		return hashCount;
+	}
+
+	public long getBitCount() {
+		return bitCount;
+	}
+
+	// double hashing, the i-th probe being hash1 + i * hash2
+	private long index(long hash1, long hash2, int i) {
+		long combined = hash1 + i * hash2;
+		return (combined & Long.MAX_VALUE) % bitCount;
+	}
+
+	private static long hash1(String value) {
+		return mix(value.hashCode());
+	}
+
+	// FNV-1a over the chars, independent of String.hashCode
+	private static long hash2(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash | 1;
+	}
+
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,113 @@
+package com.demo.app.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams the records of a reader into the database <code>batchSize</code> records at a
+ * time. Each chunk is written by {@link #write} in one JDBC batch and transaction; a failed
+ * chunk is rolled back and its records rejected, the following chunks are still written.
+ * An import is run once, subclasses hold the state of the running import.
+ */
+public abstract class ChunkedImport<T> {
+
+	private static Logger log = Logger.getLogger(ChunkedImport.class.getName());
+
+	private final String recordName;
+
+	private final int batchSize;
+
+	private final ImportReport report;
+
+	/**
+	 * @param recordName plural name of the records imported, used in the report and the log
+	 * @param batchSize number of records written and committed together
+	 */
+	protected ChunkedImport(String recordName, int batchSize) {
+		this.recordName = recordName;
+		this.batchSize = batchSize;
+		this.report = new ImportReport(recordName);
+	}
+
+	/**
+	 * Imports all the records of the reader, and closes it.
+	 * @param listener notified of the progress, may be null
+	 */
+	public ImportReport run(RecordReader<? extends T> reader, ImportListener listener) throws IOException {
+		List<T> chunk = new ArrayList<T>(batchSize);
+		List<Integer> chunkRecordNumbers = new ArrayList<Integer>(batchSize);
+		try {
+			T record;
+			while ((record = reader.next()) != null) {
+				report.recordRead();
+				String reason = validate(record);
+				if (reason != null) {
+					report.recordRejected(reader.getRecordNumber(), describe(record), reason);
+					continue;
+				}
+				prepare(record);
+				chunk.add(record);
+				chunkRecordNumbers.add(reader.getRecordNumber());
+				if (chunk.size() >= batchSize) {
+					writeChunk(chunk, chunkRecordNumbers, listener);
+				}
+			}
+			if (!chunk.isEmpty()) {
+				writeChunk(chunk, chunkRecordNumbers, listener);
+			}
+		} finally {
+			reader.close();
+			report.finish();
+		}
+		log.info("Import of " + recordName + " finished, " + report);
+		if (listener != null) {
+			listener.progress(report);
+		}
+		return report;
+	}
+
+	/**
+	 * @return why the record cannot be imported, null if it can
+	 */
+	protected abstract String validate(T record);
+
+	/**
+	 * Completes a valid record before it is added to the chunk, does nothing by default.
+	 */
+	protected void prepare(T record) {
+	}
+
+	/**
+	 * Writes and commits the records of a chunk, all of them or none.
+	 */
+	protected abstract void write(List<T> chunk);
+
+	/**
+	 * @return what identifies the record in the rejects, null by default
+	 */
+	protected String describe(T record) {
+		return null;
+	}
+
+	private void writeChunk(List<T> chunk, List<Integer> recordNumbers, ImportListener listener) {
+		try {
+			write(chunk);
+			report.recordImported(chunk.size());
+		}
+		catch (RuntimeException e) {
+			log.log(Level.WARNING, "Could not import " + recordName, e);
+			for (int i = 0; i < chunk.size(); i++) {
+				report.recordRejected(recordNumbers.get(i), describe(chunk.get(i)), "chunk failed: " + e.getMessage());
+			}
+		}
+		chunk.clear();
+		recordNumbers.clear();
+		log.fine("Import of " + recordName + " progress, " + report);
+		if (listener != null) {
+			listener.progress(report);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.demo.app.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads comma separated values one record at a time. The first line names the columns,
+ * fields may be quoted with double quotes, a quote inside a quoted field being
+ * written as two quotes. Blank lines are skipped.
+ */
+public class CsvRecordReader {
+
+	private final BufferedReader reader;
+
+	private List<String> header;
+
+	public CsvRecordReader(Reader reader) {
+		this.reader = new BufferedReader(reader);
+	}
+
+	/**
+	 * @return the fields of the next record keyed by column name, or null at the end of the input
+	 */
+	public Map<String, String> next() throws IOException {
+		if (header == null) {
+			header = readRow();
+			if (header == null) {
+				return null;
+			}
+		}
+		List<String> row;
+		do {
+			row = readRow();
+			if (row == null) {
+				return null;
+			}
+		} while (row.size() == 1 && row.get(0).length() == 0);
+
+		Map<String, String> fields = new HashMap<String, String>();
+		for (int i = 0; i < header.size() && i < row.size(); i++) {
+			fields.put(header.get(i).trim(), row.get(i));
+		}
+		return fields;
+	}
+
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private List<String> readRow() throws IOException {
+		int c = reader.read();
+		if (c == -1) {
+			return null;
+		}
+		List<String> row = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		while (c != -1) {
+			if (quoted) {
+				if (c == '"') {
+					reader.mark(1);
+					int next = reader.read();
+					if (next == '"') {
+						field.append('"');
+					}
+					else {
+						quoted = false;
+						if (next != -1) {
+							reader.reset();
+						}
+					}
+				}
+				else {
+					field.append((char) c);
+				}
+			}
+			else if (c == '"') {
+				quoted = true;
+			}
+			else if (c == ',') {
+				row.add(field.toString());
+				field.setLength(0);
+			}
+			else if (c == '\n') {
+				break;
+			}
+			else if (c != '\r') {
+				field.append((char) c);
+			}
+			c = reader.read();
+		}
+		row.add(field.toString());
+		return row;
+	}
+}
@@ -0,0 +1,12 @@
+package com.demo.app.util;
+
+/**
+ * Notified by {@link ChunkedImport} while an import runs.
+ */
+public interface ImportListener {
+
+	/**
+	 * Called after each chunk of records was written (or rejected) and at the end of the import.
+	 */
+	public void progress(ImportReport report);
+}
@@ -0,0 +1,97 @@
+package com.demo.app.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counters of a running or finished import, and the reasons records were rejected.
+ */
+public class ImportReport {
+
+	// only the first rejects are kept, the count covers all of them
+	private static final int MAX_REJECTS_KEPT = 1000;
+
+	private final String recordName;
+
+	private final long startTime = System.currentTimeMillis();
+
+	private long endTime;
+
+	private int read;
+
+	private int imported;
+
+	private int rejected;
+
+	private final List<String> rejects = new ArrayList<String>();
+
+	/**
+	 * @param recordName plural name of the records imported, used in toString
+	 */
+	ImportReport(String recordName) {
+		this.recordName = recordName;
+	}
+
+	void recordRead() {
+		read++;
+	}
+
+	void recordImported(int count) {
+		imported += count;
+	}
+
+	/**
+	 * @param description identifies the record in the rejects, may be null
+	 */
+	void recordRejected(int recordNumber, String description, String reason) {
+		rejected++;
+		if (rejects.size() < MAX_REJECTS_KEPT) {
+			rejects.add("record " + recordNumber + (description == null ? "" : " (" + description + ")") + ": " + reason);
+		}
+	}
+
+	void finish() {
+		endTime = System.currentTimeMillis();
+	}
+
+	public int getRead() {
+		return read;
+	}
+
+	public int getImported() {
+		return imported;
+	}
+
+	public int getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * @return the first rejected records with the reason
+	 */
+	public List<String> getRejects() {
+		return Collections.unmodifiableList(rejects);
+	}
+
+	public boolean isFinished() {
+		return endTime != 0;
+	}
+
+	public long getElapsedMillis() {
+		return (isFinished() ? endTime : System.currentTimeMillis()) - startTime;
+	}
+
+	/**
+	 * @return records imported per second so far
+	 */
+	public double getThroughput() {
+		long elapsed = getElapsedMillis();
+		return elapsed == 0 ? 0 : imported * 1000.0 / elapsed;
+	}
+
+	public String toString() {
+		return "read: " + read + ", imported: " + imported + ", rejected: " + rejected
+			+ ", elapsed: " + getElapsedMillis() + "ms, throughput: " + Math.round(getThroughput()) + " " + recordName + "/s";
+	}
+}
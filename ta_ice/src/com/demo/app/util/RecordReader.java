@@ -0,0 +1,50 @@
+package com.demo.app.util;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads the records to import one at a time, so that an import never holds more than
+ * one chunk of records in memory. Subclasses read the fields of each record by name
+ * and convert them to the record type.
+ */
+public abstract class RecordReader<T> {
+
+	private int recordNumber = 0;
+
+	/**
+	 * @return the next record, or null at the end of the input
+	 */
+	public T next() throws IOException {
+		Map<String, String> fields = nextRecord();
+		if (fields == null) {
+			return null;
+		}
+		recordNumber++;
+		return toRecord(fields);
+	}
+
+	/**
+	 * @return the position in the input of the last record returned by next(), starting at 1
+	 */
+	public int getRecordNumber() {
+		return recordNumber;
+	}
+
+	public abstract void close() throws IOException;
+
+	/**
+	 * @return the fields of the next record by name, or null at the end of the input
+	 */
+	protected abstract Map<String, String> nextRecord() throws IOException;
+
+	protected abstract T toRecord(Map<String, String> fields);
+
+	protected static String trimToNull(String value) {
+		if (value == null) {
+			return null;
+		}
+		value = value.trim();
+		return value.length() == 0 ? null : value;
+	}
+}
@@ -0,0 +1,145 @@
+package com.demo.app.web;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.faces.model.DataModel;
+import javax.faces.model.DataModelEvent;
+import javax.faces.model.DataModelListener;
+
+/**
+ * DataModel over a table that only holds the page being displayed. Rows are read
+ * from the database a page at a time, when the table asks for a row outside of the
+ * current page. Subclasses read the pages and count the rows.
+ */
+public abstract class LazyDataModel<R> extends DataModel {
+
+	private final int pageSize;
+
+	private int rowCount = -1;
+
+	private int rowIndex = -1;
+
+	private int pageStart = -1;
+
+	private List<R> page = Collections.emptyList();
+
+	protected LazyDataModel(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Discards the current page and the row count.
+	 */
+	public void refresh() {
+		rowCount = -1;
+		discardPage();
+	}
+
+	/**
+	 * @return the rows of the page currently loaded
+	 */
+	public List<R> getPageRows() {
+		return page;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	@Override
+	public int getRowCount() {
+		if (rowCount < 0) {
+			rowCount = countRows();
+		}
+		return rowCount;
+	}
+
+	@Override
+	public boolean isRowAvailable() {
+		if (rowIndex < 0) {
+			return false;
+		}
+		loadPageOf(rowIndex);
+		return rowIndex - pageStart < page.size();
+	}
+
+	@Override
+	public Object getRowData() {
+		if (rowIndex < 0) {
+			return null;
+		}
+		if (!isRowAvailable()) {
+			throw new IllegalArgumentException("No row at index " + rowIndex);
+		}
+		return page.get(rowIndex - pageStart);
+	}
+
+	@Override
+	public int getRowIndex() {
+		return rowIndex;
+	}
+
+	@Override
+	public void setRowIndex(int rowIndex) {
+		if (rowIndex < -1) {
+			throw new IllegalArgumentException("Invalid row index " + rowIndex);
+		}
+		int oldRowIndex = this.rowIndex;
+		this.rowIndex = rowIndex;
+		DataModelListener[] listeners = getDataModelListeners();
+		if (oldRowIndex != rowIndex && listeners.length > 0) {
+			Object rowData = isRowAvailable() ? getRowData() : null;
+			DataModelEvent event = new DataModelEvent(this, rowIndex, rowData);
+			for (DataModelListener listener : listeners) {
+				listener.rowSelected(event);
+			}
+		}
+	}
+
+	@Override
+	public Object getWrappedData() {
+		return page;
+	}
+
+	/**
+	 * Ignored, the rows are always read from the database a page at a time.
+	 */
+	@Override
+	public void setWrappedData(Object data) {
+	}
+
+	/**
+	 * Discards the current page, it is read again on next access.
+	 */
+	protected void discardPage() {
+		page = Collections.emptyList();
+		pageStart = -1;
+	}
+
+	/**
+	 * @return the number of rows of the table
+	 */
+	protected abstract int countRows();
+
+	/**
+	 * Reads the rows of a page.
+	 * @param start index of the first row of the page
+	 * @param previousRow the last row of the preceding page when that page is the one
+	 * loaded and is full, so that the page can be read with a keyset query; null otherwise
+	 */
+	protected abstract List<R> readPage(int start, R previousRow);
+
+	private void loadPageOf(int index) {
+		int start = index - index % pageSize;
+		if (start == pageStart) {
+			return;
+		}
+		R previousRow = null;
+		if (start == pageStart + pageSize && page.size() == pageSize) {
+			previousRow = page.get(page.size() - 1);
+		}
+		page = readPage(start, previousRow);
+		pageStart = start;
+	}
+}
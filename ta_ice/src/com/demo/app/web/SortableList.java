@@ -6,7 +6,7 @@ package com.demo.app.web;
  */
 public abstract class SortableList extends BaseUIBean {
 	
-	protected static String sortColumnName;
+	protected String sortColumnName;
     protected boolean ascending;
     protected String serviceName;
 
@@ -54,8 +54,8 @@ public abstract class SortableList extends BaseUIBean {
      * @param sortColumnName column to sortColumnName
      */
     public void setSortColumnName(String sortColumnName) {
-        oldSort = SortableList.sortColumnName;
-        SortableList.sortColumnName = sortColumnName;
+        oldSort = this.sortColumnName;
+        this.sortColumnName = sortColumnName;
 
     }
 
@@ -5,6 +5,8 @@ import java.util.Date;
 import java.util.List;
 import java.util.logging.Logger;
 
+import javax.faces.model.DataModel;
+
 import com.demo.app.domain.address.Address;
 import com.demo.app.services.WebSecurityException;
 import com.demo.app.services.address.AddressService;
@@ -22,6 +24,8 @@ import com.icesoft.faces.component.ext.RowSelectorEvent;
 public class CreateAddress extends BaseUIBean {
 	
 	private static Logger log = Logger.getLogger(CreateAddress.class.getName());
+
+	private static final int PAGE_SIZE = 10;
 	
 	private AddressService addressService;
 		
@@ -29,7 +33,7 @@ public class CreateAddress extends BaseUIBean {
 	
 	private Address selectedList;
 	
-	private List<Address> currentAddresss = new ArrayList<Address>();
+	private LazyAddressDataModel currentAddresss;
 	
 	private List<Address> adderAddresss = new ArrayList<Address>();
 
@@ -50,7 +54,7 @@ public class CreateAddress extends BaseUIBean {
 	 */
 	private void init (){
 		addressService =(AddressService)getService(ThreatConstants.SERVICE_ADDRESS_REFERENCE);
-		currentAddresss = addressService.getAllAddresss();
+		currentAddresss = new LazyAddressDataModel(addressService, PAGE_SIZE);
 		address = new Address ();
 		adderAddresss = new ArrayList<Address>();
 		selectedList = new Address();
@@ -63,9 +67,8 @@ public class CreateAddress extends BaseUIBean {
 		if ((address != null)){		
 			System.out.println( "adress is not null");
 			address.setEffectiveDate(new Date());
-		    currentAddresss.add(address);
-			
 			addressService.createAddress(address);
+			currentAddresss.refresh();
 			System.out.println( "data is persistant");
 			
 			resetValues();
@@ -81,7 +84,8 @@ public class CreateAddress extends BaseUIBean {
 
 
 public void rowSelectionListener(RowSelectorEvent event) {
-		 selectedList = currentAddresss.get(event.getRow());
+		 currentAddresss.setRowIndex(event.getRow());
+		 selectedList = (Address) currentAddresss.getRowData();
 		
 		System.out.println("The Selected address is as follows " + selectedList.getAddress() + " " + selectedList.getCity() + " " + selectedList.getState() + " " + selectedList.getZip());
 				
@@ -130,14 +134,15 @@ public void rowSelectionListener(RowSelectorEvent event) {
 
 	
 
-	public List<Address> getCurrentAddresss() {
+	/**
+	 * @return the addresses, read from the database a page at a time
+	 */
+	public DataModel getCurrentAddresss() {
 		return currentAddresss;
 	}
 
-
-
-	public void setCurrentAddresss(List<Address> currentAddresss) {
-		this.currentAddresss = currentAddresss;
+	public int getPageSize() {
+		return PAGE_SIZE;
 	}
 
 
@@ -156,7 +161,7 @@ public void rowSelectionListener(RowSelectorEvent event) {
 
 	public void removeAddress(){
 		addressService.removeAllAddress();
-		currentAddresss = addressService.getAllAddresss();
+		currentAddresss.refresh();
 	}
 
 
@@ -0,0 +1,38 @@
+package com.demo.app.web.address;
+
+import java.util.List;
+
+import com.demo.app.domain.address.Address;
+import com.demo.app.services.address.AddressService;
+import com.demo.app.web.LazyDataModel;
+
+/**
+ * DataModel over the ADDRESS table that only holds the page being displayed, in
+ * ADDRESS_SEQ order. Moving forward one page uses a keyset query, jumping between
+ * pages uses a ROWNUM bounded query.
+ */
+public class LazyAddressDataModel extends LazyDataModel<Address> {
+
+	private final AddressService service;
+
+	public LazyAddressDataModel(AddressService service, int pageSize) {
+		super(pageSize);
+		this.service = service;
+	}
+
+	@Override
+	protected int countRows() {
+		return service.getAddressCount();
+	}
+
+	@Override
+	protected List<Address> readPage(int start, Address previousRow) {
+		if (previousRow != null) {
+			return service.getAddressesAfter(previousRow.getAddressID(), getPageSize());
+		} else if (start == 0) {
+			return service.getAddressesAfter(null, getPageSize());
+		} else {
+			return service.getAddressesPage(start, getPageSize());
+		}
+	}
+}
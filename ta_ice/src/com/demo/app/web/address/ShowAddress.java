@@ -6,6 +6,7 @@ import java.util.logging.Logger;
 
 import javax.annotation.PostConstruct;
 import javax.faces.event.ValueChangeEvent;
+import javax.faces.model.DataModel;
 import javax.faces.model.SelectItem;
 
 import com.demo.app.domain.address.Address;
@@ -28,11 +29,13 @@ public class ShowAddress extends BaseUIBean {
 	
 	private static Logger log = Logger.getLogger(ShowAddress.class.getName());
 	
+	private static final int PAGE_SIZE = 10;
+	
 	private AddressService addressService;
 		
 	private Address address;
 	
-	private List<Address> currentAddresss;
+	private LazyAddressDataModel currentAddresss;
   
     public ShowAddress() {
     	init();
@@ -50,7 +53,7 @@ public class ShowAddress extends BaseUIBean {
 	@PostConstruct
 	private void init (){
 		addressService =(AddressService)getService(ThreatConstants.SERVICE_ADDRESS_REFERENCE);
-		currentAddresss = addressService.getAllAddresss();
+		currentAddresss = new LazyAddressDataModel(addressService, PAGE_SIZE);
         address = new Address ();
 		
 		
@@ -58,14 +61,15 @@ public class ShowAddress extends BaseUIBean {
 	
 	
 
-	public List<Address> getCurrentAddresss() {
+	*//**
+	 * @return the addresses, read from the database a page at a time
+	 *//*
+	public DataModel getCurrentAddresss() {
 		return currentAddresss;
 	}
 
-
-
-	public void setCurrentAddresss(List<Address> currentAddresss) {
-		this.currentAddresss = currentAddresss;
+	public int getPageSize() {
+		return PAGE_SIZE;
 	}
 
 
@@ -74,6 +78,7 @@ public class ShowAddress extends BaseUIBean {
 		if ((addressService != null)){
 			
 			addressService.createAddress(address);
+			currentAddresss.refresh();
 			log.fine("after reset. now returning next");			
 			resetValues();
 			super.addInfoMessage("Address  created.");
@@ -76,7 +76,7 @@ public class CreateUser extends BaseUIBean {
         user = new User ();
 		siteAdminService =(SiteAdminService)getService(ThreatConstants.SERVICE_SITEADMIN_REFERENCE);
 		roles = siteAdminService.getAllRoles();
-		allRoles = getAvailableRolesSelectItems();
+		allRoles = siteAdminService.getRoleSelectItems();
 		assignedRoles = new ArrayList<String>();
 	}
 	
@@ -147,28 +147,6 @@ public class CreateUser extends BaseUIBean {
 		}
 	}
 
-	/**
-	 * Gets the available roles select items.
-	 * 
-	 * @return the available roles select items
-	 */
-	private List <SelectItem> getAvailableRolesSelectItems (){
-		List <SelectItem> items = new ArrayList <SelectItem> ();
-		if (roles != null){
-			log.fine("roles is NOT null.");			
-			for (Roles role: roles){
-				SelectItem item = new SelectItem ();
-				item.setValue(role.getRoleName());
-				item.setLabel(role.getRoleDescription());
-				items.add(item);
-			}
-		}
-		else {
-			log.fine("roles is null.");
-		}
-		return items;
-	}
-	
 	/**
 	 * Cancel.
 	 * 
@@ -196,7 +174,7 @@ public class CreateUser extends BaseUIBean {
 		user = new User ();
 		assignedRoles = new ArrayList<String>(); 
 		roles = siteAdminService.getAllRoles();
-		allRoles = getAvailableRolesSelectItems();
+		allRoles = siteAdminService.getRoleSelectItems();
 	}
 	
 	/**
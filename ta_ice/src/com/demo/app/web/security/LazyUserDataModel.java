@@ -0,0 +1,148 @@
+package com.demo.app.web.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.demo.app.domain.security.Roles;
+import com.demo.app.domain.security.User;
+import com.demo.app.services.security.SiteAdminService;
+import com.demo.app.web.LazyDataModel;
+import com.demo.app.web.SelectableRow;
+
+/**
+ * DataModel over the USERS table that only holds the page being displayed.
+ * Rows are read from the database a page at a time, when the table asks for
+ * a row outside of the current page. Moving forward one page in USER_SEQ order
+ * uses a keyset query; any other sort order, or jumping between pages, uses a
+ * ROWNUM bounded query. The assigned roles of the users of a page are read
+ * along with the page, with one query for the whole page.
+ */
+public class LazyUserDataModel extends LazyDataModel<SelectableRow<User>> {
+
+	public static final String KEYSET_SORT_COLUMN = "userID";
+
+	private final SiteAdminService service;
+
+	private String sortColumn;
+
+	private boolean ascending;
+
+	private Map<Long, List<Roles>> pageRoles = Collections.emptyMap();
+
+	private Map<Long, String> pageRoleNames = Collections.emptyMap();
+
+	public LazyUserDataModel(SiteAdminService service, int pageSize, String sortColumn, boolean ascending) {
+		super(pageSize);
+		this.service = service;
+		this.sortColumn = sortColumn;
+		this.ascending = ascending;
+	}
+
+	/**
+	 * Changes the sort order, the current page is read again on next access.
+	 */
+	public void sortBy(String sortColumn, boolean ascending) {
+		this.sortColumn = sortColumn;
+		this.ascending = ascending;
+		discardPage();
+	}
+
+	/**
+	 * Reads again the given users if they are on the current page, keeping the rows
+	 * in place, with one query for the users and one for their roles. Users that are
+	 * not on the page are left alone, they are read when their page is displayed.
+	 */
+	public void reloadRows(Collection<Long> userIDs) {
+		List<Long> onPage = new ArrayList<Long>();
+		for (SelectableRow<User> row : getPageRows()) {
+			if (userIDs.contains(row.getValue().getUserID())) {
+				onPage.add(row.getValue().getUserID());
+			}
+		}
+		if (onPage.isEmpty()) {
+			return;
+		}
+		List<User> users = service.getUsersByID(onPage);
+		Map<Long, User> byID = new HashMap<Long, User>();
+		for (User user : users) {
+			byID.put(user.getUserID(), user);
+		}
+		if (byID.size() < onPage.size()) {
+			// a user is gone, the page no longer holds the right rows
+			refresh();
+			return;
+		}
+		for (SelectableRow<User> row : getPageRows()) {
+			User user = byID.get(row.getValue().getUserID());
+			if (user != null) {
+				row.setValue(user);
+			}
+		}
+		Map<Long, List<Roles>> roles = new HashMap<Long, List<Roles>>(pageRoles);
+		roles.putAll(service.getRolesForUsers(users));
+		setPageRoles(roles);
+	}
+
+	/**
+	 * @return the assigned roles of a user of the current page, null if the user is not on it
+	 */
+	public List<Roles> getRolesOf(User user) {
+		return pageRoles.get(user.getUserID());
+	}
+
+	/**
+	 * @return the comma separated role names of the users of the current page, keyed by user id
+	 */
+	public Map<Long, String> getPageRoleNames() {
+		return pageRoleNames;
+	}
+
+	@Override
+	protected int countRows() {
+		return service.getUserCount();
+	}
+
+	@Override
+	protected List<SelectableRow<User>> readPage(int start, SelectableRow<User> previousRow) {
+		List<User> users;
+		if (KEYSET_SORT_COLUMN.equals(sortColumn) && previousRow != null) {
+			users = service.getUsersAfter(previousRow.getValue().getUserID(), ascending, getPageSize());
+		} else if (KEYSET_SORT_COLUMN.equals(sortColumn) && start == 0) {
+			users = service.getUsersAfter(null, ascending, getPageSize());
+		} else {
+			users = service.getUsersPage(sortColumn, ascending, start, getPageSize());
+		}
+		List<SelectableRow<User>> rows = new ArrayList<SelectableRow<User>>(users.size());
+		for (User user : users) {
+			rows.add(new SelectableRow<User>(user));
+		}
+		setPageRoles(service.getRolesForUsers(users));
+		return rows;
+	}
+
+	@Override
+	protected void discardPage() {
+		super.discardPage();
+		pageRoles = Collections.emptyMap();
+		pageRoleNames = Collections.emptyMap();
+	}
+
+	private void setPageRoles(Map<Long, List<Roles>> roles) {
+		pageRoles = roles;
+		pageRoleNames = new HashMap<Long, String>(pageRoles.size());
+		for (Map.Entry<Long, List<Roles>> entry : pageRoles.entrySet()) {
+			StringBuilder names = new StringBuilder();
+			for (Roles role : entry.getValue()) {
+				if (names.length() > 0) {
+					names.append(", ");
+				}
+				names.append(role.getRoleName());
+			}
+			pageRoleNames.put(entry.getKey(), names.toString());
+		}
+	}
+}
@@ -6,9 +6,13 @@ import java.util.logging.Logger;
 
 import javax.faces.event.ActionEvent;
 import javax.faces.event.ValueChangeEvent;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
 import javax.swing.tree.DefaultTreeModel;
 
 import com.demo.app.domain.security.Roles;
+import com.demo.app.services.security.SiteAdminEvent;
+import com.demo.app.services.security.SiteAdminListener;
 import com.demo.app.services.security.SiteAdminService;
 import com.demo.app.util.ThreatConstants;
 import com.demo.app.web.BaseUIBean;
@@ -17,7 +21,7 @@ import com.demo.app.web.BaseUIBean;
  * @author Kunta L.
  *
  */
-public class ViewRoles extends BaseUIBean {
+public class ViewRoles extends BaseUIBean implements SiteAdminListener, HttpSessionBindingListener {
 
 	private static Logger log = Logger.getLogger(ViewRoles.class.getName());
 	
@@ -32,6 +36,9 @@ public class ViewRoles extends BaseUIBean {
 	private List<Roles> assignedRoles;
 	
 	private DefaultTreeModel model;
+
+	// set by the service thread of the session changing the roles, read on the next request
+	private volatile boolean rolesChanged;
 	
     /**
      * default empty constructor
@@ -50,6 +57,23 @@ public class ViewRoles extends BaseUIBean {
 		service = (SiteAdminService)getService(ThreatConstants.SERVICE_SITEADMIN_REFERENCE);
 		roles = service.getAllRoles();
 		availableRoles = getAvailableRolesSelectItems();
+		service.addSiteAdminListener(this);
+	}
+
+	public void siteAdminChanged(SiteAdminEvent event) {
+		if (event.getType() == SiteAdminEvent.Type.ROLES_CHANGED) {
+			rolesChanged = true;
+		}
+	}
+
+	public void valueBound(HttpSessionBindingEvent event) {
+	}
+
+	/**
+	 * Stops listening to the service once the bean leaves the session.
+	 */
+	public void valueUnbound(HttpSessionBindingEvent event) {
+		service.removeSiteAdminListener(this);
 	}
 	
 	/**
@@ -66,7 +90,15 @@ public class ViewRoles extends BaseUIBean {
 		this.availableRoles = availableRoles;
 	}
 
+	/**
+	 * @return the roles, read again only after a role was changed
+	 */
 	public List<Roles> getRoles() {
+		if (rolesChanged) {
+			rolesChanged = false;
+			roles = service.getAllRoles();
+			availableRoles = getAvailableRolesSelectItems();
+		}
 		return roles;
 	}
 
@@ -1,23 +1,31 @@
 package com.demo.app.web.security;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import javax.faces.component.UIComponent;
 import javax.faces.event.ActionEvent;
 import javax.faces.event.ValueChangeEvent;
+import javax.faces.model.DataModel;
 import javax.faces.model.SelectItem;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
 
 import org.springframework.security.AccessDeniedException;
 //import org.springframework.test.context.ContextConfiguration;
 
 import com.demo.app.domain.security.Roles;
 import com.demo.app.domain.security.User;
+import com.demo.app.services.security.SiteAdminEvent;
+import com.demo.app.services.security.SiteAdminListener;
 import com.demo.app.services.security.SiteAdminService;
 import com.demo.app.util.ThreatConstants;
-import com.demo.app.web.BaseUIBean;
 import com.demo.app.web.SelectableRow;
+import com.demo.app.web.SortableList;
 
 
 import com.icesoft.faces.component.ext.RowSelectorEvent;
@@ -26,19 +34,23 @@ import com.icesoft.faces.component.ext.RowSelectorEvent;
  *
  */
 //@ContextConfiguration
-public class ViewUsers extends BaseUIBean {
+public class ViewUsers extends SortableList implements SiteAdminListener, HttpSessionBindingListener {
 	
 	private static Logger log = Logger.getLogger(ViewUsers.class.getName());
 	
-	private SiteAdminService service;
+	private static final int PAGE_SIZE = 8;
+
+	// past this many updated users the page is read again rather than row by row
+	private static final int MAX_PENDING_USERS = 100;
 	
-	private List<User> currentUsers;
+	private SiteAdminService service;
 	
 	private User selectedUser;
 	
-	private List<SelectableRow<User>> userSearchResult;
-	
-    private User[] userInventory;
+	private LazyUserDataModel userSearchResult;
+
+	// changes published by the service, applied on the next request of this session
+	private final PendingChanges pendingChanges = new PendingChanges();
     
     private String userLookup;
     
@@ -71,6 +83,7 @@ public class ViewUsers extends BaseUIBean {
     private String role;
 
     public ViewUsers() {
+    	super(LazyUserDataModel.KEYSET_SORT_COLUMN);
     	init();
     }
     
@@ -82,12 +95,92 @@ public class ViewUsers extends BaseUIBean {
     	
     	service = (SiteAdminService) getService(ThreatConstants.SERVICE_SITEADMIN_REFERENCE);
     	
-    	currentUsers = service.getAllUsers();
-    	userInventory = (User[]) currentUsers.toArray(new User[currentUsers.size()]);
     	roles = service.getAllRoles();
-    	allRoles = getAllRolesSelectItems();
+    	allRoles = rolesSelectItems = service.getRoleSelectItems();
     	assignedRoles = new ArrayList<String>();    	
-    	userSearchResult = transformToSelectableRow(userInventory);
+    	userSearchResult = new LazyUserDataModel(service, PAGE_SIZE, sortColumnName, ascending);
+    	service.addSiteAdminListener(this);
+    }
+
+    public void siteAdminChanged(SiteAdminEvent event) {
+    	pendingChanges.add(event);
+    }
+
+    public void valueBound(HttpSessionBindingEvent event) {
+    }
+
+    /**
+     * Stops listening to the service once the bean leaves the session.
+     */
+    public void valueUnbound(HttpSessionBindingEvent event) {
+    	service.removeSiteAdminListener(this);
+    }
+
+    /*
+     * Updates only what the pending changes touched: the changed rows of the current page,
+     * the page and the count when users were added, the roles when roles changed.
+     */
+    private void applyPendingChanges() {
+    	PendingChanges changes = pendingChanges.drain();
+    	if (changes.reloadRoles) {
+    		roles = service.getAllRoles();
+    		allRoles = rolesSelectItems = service.getRoleSelectItems();
+    	}
+    	if (changes.reloadPage) {
+    		userSearchResult.refresh();
+    	}
+    	else if (!changes.updatedUsers.isEmpty()) {
+    		userSearchResult.reloadRows(changes.updatedUsers);
+    	}
+    }
+
+    /*
+     * The changes published since the last request, merged as they arrive so that they take
+     * bounded memory however many changes the other sessions make.
+     */
+    private static class PendingChanges {
+
+    	private boolean reloadPage;
+
+    	private boolean reloadRoles;
+
+    	private Set<Long> updatedUsers = new HashSet<Long>();
+
+    	synchronized void add(SiteAdminEvent event) {
+    		switch (event.getType()) {
+    		case USERS_CREATED:
+    			reloadPage = true;
+    			break;
+    		case USERS_UPDATED:
+    			if (updatedUsers.size() + event.getUserIDs().size() > MAX_PENDING_USERS) {
+    				reloadPage = true;
+    			}
+    			else if (!reloadPage) {
+    				updatedUsers.addAll(event.getUserIDs());
+    			}
+    			break;
+    		case ROLES_CHANGED:
+    			reloadRoles = true;
+    			reloadPage = true;
+    			break;
+    		}
+    		if (reloadPage) {
+    			updatedUsers.clear();
+    		}
+    	}
+
+    	/**
+    	 * @return the changes pending so far, this object is cleared
+    	 */
+    	synchronized PendingChanges drain() {
+    		PendingChanges changes = new PendingChanges();
+    		changes.reloadPage = reloadPage;
+    		changes.reloadRoles = reloadRoles;
+    		changes.updatedUsers = updatedUsers;
+    		reloadPage = reloadRoles = false;
+    		updatedUsers = new HashSet<Long>();
+    		return changes;
+    	}
     }
     
     private void refresh() {
@@ -96,13 +189,10 @@ public class ViewUsers extends BaseUIBean {
     	
 		assignedRoles.clear();
 		selectedUser = new User();	
-		currentUsers = new ArrayList<User>();
-		currentUsers = service.getAllUsers();
-    	userInventory = (User[]) currentUsers.toArray(new User[currentUsers.size()]);
     	roles = service.getAllRoles();
-    	allRoles = getAllRolesSelectItems();
+    	allRoles = rolesSelectItems = service.getRoleSelectItems();
     	assignedRoles = new ArrayList<String>();    	
-    	userSearchResult = transformToSelectableRow(userInventory);
+    	userSearchResult.refresh();
 	}
     
     public void handleRowSelection(RowSelectorEvent event) {
@@ -112,13 +202,17 @@ public class ViewUsers extends BaseUIBean {
     	assignedRoles.clear();
     	if (userSearchResult != null) {
     		modifyFlag = Boolean.TRUE;
-    		for(SelectableRow<?> sr : userSearchResult) {
+    		for(SelectableRow<?> sr : userSearchResult.getPageRows()) {
     			if(sr.isSelected()) {
     				selectedUser = (User) sr.getValue();
     				sr.setSelected(Boolean.FALSE);
     			}
     		}
-    		assignedRolesList = service.getRolesForSelectedUser(selectedUser);
+    		// the roles of the page were read along with its users
+    		assignedRolesList = userSearchResult.getRolesOf(selectedUser);
+    		if (assignedRolesList == null) {
+    			assignedRolesList = service.getRolesForSelectedUser(selectedUser);
+    		}
     		if(assignedRoles.isEmpty()){
     			for(Roles role : assignedRolesList) {
     				assignedRoles.add(role.getRoleName());
@@ -209,48 +303,22 @@ public class ViewUsers extends BaseUIBean {
 		}
 	}
 	
+	/*
+	 * Clears the edit form in place, the rows changed by the update are refreshed
+	 * from the change event rather than by reading all the users again.
+	 */
 	private void resetValues() {
 		
 		log.info ("Resetting value of ViewUsers");
-		resetToValue (new ViewUsers());
+		newPassword = confirmPassword = "";
+		resetPassword = updateRoles = Boolean.FALSE;
+		modifyFlag = Boolean.FALSE;
+		selectedUser = new User();
+		assignedRolesList = null;
+		assignedRoles = new ArrayList<String>();
 		log.info ("Successfully reset ViewUsers object.");
 	}
     
-    private List<SelectItem> getAllRolesSelectItems (){
-    	rolesSelectItems = new ArrayList <SelectItem> ();
-		
-		if (roles != null){
-			log.info("rolesSelectItems is NOT null.");
-
-			for (Roles role: roles){
-				SelectItem item = new SelectItem ();
-				item.setValue(role.getRoleName());
-				item.setLabel(role.getRoleDescription());
-				rolesSelectItems.add(item);
-			}
-		}
-		else {
-			log.info("rolesSelectItems is empty.");
-			
-		}
-		return rolesSelectItems;
-	}
-    
-    
-    public List<SelectableRow<User>> transformToSelectableRow(User[] userInventory) {
-    	
-    	List<SelectableRow<User>> selectedRow = new ArrayList<SelectableRow<User>>();
-    	if (userInventory != null) {
-			for (User user : userInventory) {
-				if (user != null) {
-					SelectableRow<User> thisRow = new SelectableRow<User>(user);
-					selectedRow.add(thisRow);
-				}
-			}
-		}
-    	return selectedRow;
-	}
-    
     public void radioChanged(ValueChangeEvent event){		
 		if(event.getNewValue() instanceof String) {
 			String value = (String)event.getNewValue();
@@ -265,12 +333,32 @@ public class ViewUsers extends BaseUIBean {
 	public void setRadioSelectItems(List<SelectItem> radioSelectItems) {
 		this.radioSelectItems = radioSelectItems;
 	}
-	public List<SelectableRow<User>> getUserSearchResult() {
+	/**
+	 * @return the lazily loaded users, sorted on the database when the sort column or order changed
+	 */
+	public DataModel getUserSearchResult() {
+		applyPendingChanges();
+		if (!sortColumnName.equals(oldSort) || ascending != oldAscending) {
+			sort();
+		}
 		return userSearchResult;
 	}
 
-	public void setUserSearchResult(List<SelectableRow<User>> userSearchResult) {
-		this.userSearchResult = userSearchResult;
+	public int getPageSize() {
+		return PAGE_SIZE;
+	}
+
+	/**
+	 * @return the role names of the users on the displayed page, keyed by user id
+	 */
+	public Map<Long, String> getPageRoleNames() {
+		return userSearchResult.getPageRoleNames();
+	}
+
+	protected void sort() {
+		userSearchResult.sortBy(sortColumnName, ascending);
+		oldSort = sortColumnName;
+		oldAscending = ascending;
 	}
 	
 	public Boolean isModifyFlag() {
@@ -291,7 +379,7 @@ public class ViewUsers extends BaseUIBean {
      * @param   sortColumn to sortColumnName by.
      * @return  whether sortColumnName order is ascending or descending.
      */
-    protected Boolean isDefaultAscending(String sortColumn) {
+    protected boolean isDefaultAscending(String sortColumn) {
         return true;
     }
 
@@ -303,14 +391,6 @@ public class ViewUsers extends BaseUIBean {
 		this.service = service;
 	}
 
-	public List<User> getCurrentUsers() {
-		return currentUsers;
-	}
-
-	public void setCurrentUsers(List<User> currentUsers) {
-		this.currentUsers = currentUsers;
-	}
-
 	public User getSelectedUser() {
 		return selectedUser;
 	}
@@ -319,10 +399,6 @@ public class ViewUsers extends BaseUIBean {
 		this.selectedUser = selectedUser;
 	}
 
-	public void setUserInventory(User[] userInventory) {
-		this.userInventory = userInventory;
-	}
-
 	public List<Roles> getRoles() {
 		return roles;
 	}
@@ -393,10 +469,6 @@ public class ViewUsers extends BaseUIBean {
 		this.updateRoles = updateRoles;
 	}
 
-	public User[] getUserInventory() {
-		return userInventory;
-	}
-
 	public UIComponent getSelectManyChkBox() {
 		return selectManyChkBox;
 	}
@@ -0,0 +1,53 @@
+package com.demo.app.dao.db.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.simple.ParameterizedRowMapper;
+
+import com.demo.app.dao.db.jdbc.ColumnIndexRowMapperTest.MockResultSet;
+import com.demo.app.dao.db.jdbc.ColumnIndexRowMapperTest.NameRowMapper;
+import com.demo.app.domain.security.User;
+
+/**
+ * Times the user row mapper reading columns by index against the same mapping reading
+ * columns by name, over the mocked result set of ColumnIndexRowMapperTest. It only reports
+ * the timings, run it with java com.demo.app.dao.db.jdbc.ColumnIndexRowMapperBenchmark.
+ */
+public class ColumnIndexRowMapperBenchmark {
+
+	private static final int ROWS = ColumnIndexRowMapperTest.ROWS;
+
+	private static final int ROUNDS = 20;
+
+	public static void main(String[] args) throws SQLException {
+		MockResultSet rows = new MockResultSet(ROWS);
+		ParameterizedRowMapper<User> byIndex = new SiteAdminDAOImpl.UserRowMapper();
+		ParameterizedRowMapper<User> byName = new NameRowMapper();
+		// warm up
+		time(byName, rows);
+		time(byIndex, rows);
+
+		long byNameNanos = Long.MAX_VALUE;
+		long byIndexNanos = Long.MAX_VALUE;
+		for (int round = 0; round < ROUNDS; round++) {
+			byNameNanos = Math.min(byNameNanos, time(byName, rows));
+			byIndexNanos = Math.min(byIndexNanos, time(byIndex, rows));
+		}
+		System.out.println("User row mapping, " + ROWS + " rows: by name " + byNameNanos / 1000 + "us, by index "
+			+ byIndexNanos / 1000 + "us");
+	}
+
+	/**
+	 * @return the nanoseconds taken to map all the rows
+	 */
+	private static long time(ParameterizedRowMapper<User> mapper, MockResultSet rows) throws SQLException {
+		ResultSet resultSet = rows.proxy();
+		long start = System.nanoTime();
+		for (int row = 0; row < ROWS; row++) {
+			rows.current = row;
+			mapper.mapRow(resultSet, row);
+		}
+		return System.nanoTime() - start;
+	}
+}
@@ -0,0 +1,154 @@
+package com.demo.app.dao.db.jdbc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.simple.ParameterizedRowMapper;
+
+import com.demo.app.domain.security.User;
+
+/**
+ * Checks the user row mapper reading columns by index against the same mapping reading
+ * columns by name, over a mocked result set of the USERS query. The mocked result set
+ * looks up a column name with a case insensitive scan of the column labels, as a driver
+ * does for every getXxx(String) call. ColumnIndexRowMapperBenchmark times both mappings.
+ */
+public class ColumnIndexRowMapperTest {
+
+	private static final String[] COLUMNS = { "USER_SEQ", "FIRSTNAME", "LASTNAME", "USER_MI_NAME", "USERNAME",
+		"USER_TITLE", "USER_SECURE_PH", "USER_COMM_PH", "USER_CELL_PH", "EFFECTIVE_DT", "PASSWORD", "ENABLED",
+		"CHANGE_PASSWORD", "PASSWORD_CH_EFFECTIVE_TS", "ORG_SEQ" };
+
+	static final int ROWS = 2000;
+
+	@Test
+	public void mapsTheSameUsersAsByName() throws SQLException {
+		MockResultSet rows = new MockResultSet(ROWS);
+		ResultSet resultSet = rows.proxy();
+		ParameterizedRowMapper<User> byIndex = new SiteAdminDAOImpl.UserRowMapper();
+		ParameterizedRowMapper<User> byName = new NameRowMapper();
+		for (int row = 0; row < ROWS; row++) {
+			rows.current = row;
+			User expected = byName.mapRow(resultSet, row);
+			User actual = byIndex.mapRow(resultSet, row);
+			assertEquals(expected.getUserID(), actual.getUserID());
+			assertEquals(expected.getFirstName(), actual.getFirstName());
+			assertEquals(expected.getLastName(), actual.getLastName());
+			assertEquals(expected.getUserMidname(), actual.getUserMidname());
+			assertEquals(expected.getUsername(), actual.getUsername());
+			assertEquals(expected.getUserTitle(), actual.getUserTitle());
+			assertEquals(expected.getUserSecurePH(), actual.getUserSecurePH());
+			assertEquals(expected.getUserCommPH(), actual.getUserCommPH());
+			assertEquals(expected.getUserCellPH(), actual.getUserCellPH());
+			assertEquals(expected.getEffectiveDate(), actual.getEffectiveDate());
+			assertEquals(expected.getPassword(), actual.getPassword());
+			assertEquals(expected.getEnabled(), actual.getEnabled());
+			assertEquals(expected.getPasswordExpired(), actual.getPasswordExpired());
+			assertEquals(expected.getPasswordChangedOnDate(), actual.getPasswordChangedOnDate());
+		}
+	}
+
+	/*
+	 * The mapping the DAO used before ColumnIndexRowMapper.
+	 */
+	static class NameRowMapper implements ParameterizedRowMapper<User> {
+
+		public User mapRow(ResultSet resultSet, int row) throws SQLException {
+			User user = new User();
+			user.setUserID(resultSet.getLong("USER_SEQ"));
+			user.setFirstName(resultSet.getString("FIRSTNAME"));
+			user.setLastName(resultSet.getString("LASTNAME"));
+			user.setUserMidname(resultSet.getString("USER_MI_NAME"));
+			user.setUsername(resultSet.getString("USERNAME"));
+			user.setUserTitle(resultSet.getString("USER_TITLE"));
+			user.setUserSecurePH(resultSet.getString("USER_SECURE_PH"));
+			user.setUserCommPH(resultSet.getString("USER_COMM_PH"));
+			user.setUserCellPH(resultSet.getString("USER_CELL_PH"));
+			user.setEffectiveDate(resultSet.getDate("EFFECTIVE_DT"));
+			user.setPassword(resultSet.getString("PASSWORD"));
+			user.setEnabled(resultSet.getBoolean("ENABLED"));
+			user.setChangePassword(resultSet.getBoolean("CHANGE_PASSWORD"));
+			user.setPasswordChangedOnDate(resultSet.getDate("PASSWORD_CH_EFFECTIVE_TS"));
+			return user;
+		}
+	}
+
+	/*
+	 * Rows of the USERS query, the row read is set by the test rather than by next().
+	 */
+	static class MockResultSet implements InvocationHandler {
+
+		private final Object[][] values;
+
+		int current;
+
+		MockResultSet(int rows) {
+			values = new Object[rows][];
+			for (int row = 0; row < rows; row++) {
+				values[row] = new Object[] { Long.valueOf(row), "First" + row, "Last" + row, "M", "user" + row,
+					"Title", "555-0100", "555-0101", "555-0102", new Date(1000L * row), "secret" + row,
+					Boolean.valueOf(row % 2 == 0), Boolean.valueOf(row % 3 == 0), new Date(2000L * row),
+					Long.valueOf(row % 7) };
+			}
+		}
+
+		ResultSet proxy() {
+			return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { ResultSet.class }, this);
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+			String name = method.getName();
+			if ("getMetaData".equals(name)) {
+				return metaData();
+			}
+			if ("findColumn".equals(name)) {
+				return Integer.valueOf(findColumn((String) args[0]));
+			}
+			if (name.startsWith("get") && args != null && args.length == 1) {
+				int column = args[0] instanceof String ? findColumn((String) args[0]) : ((Integer) args[0]).intValue();
+				Object value = values[current][column - 1];
+				if ("getLong".equals(name)) {
+					return value == null ? Long.valueOf(0) : value;
+				}
+				if ("getBoolean".equals(name)) {
+					return value == null ? Boolean.FALSE : value;
+				}
+				return value;
+			}
+			throw new UnsupportedOperationException(name);
+		}
+
+		private int findColumn(String label) throws SQLException {
+			for (int column = 0; column < COLUMNS.length; column++) {
+				if (COLUMNS[column].equalsIgnoreCase(label)) {
+					return column + 1;
+				}
+			}
+			throw new SQLException("Invalid column name " + label);
+		}
+
+		private ResultSetMetaData metaData() {
+			return (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class[] { ResultSetMetaData.class }, new InvocationHandler() {
+
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if ("getColumnCount".equals(method.getName())) {
+							return Integer.valueOf(COLUMNS.length);
+						}
+						if ("getColumnLabel".equals(method.getName()) || "getColumnName".equals(method.getName())) {
+							return COLUMNS[((Integer) args[0]).intValue() - 1];
+						}
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+		}
+	}
+}
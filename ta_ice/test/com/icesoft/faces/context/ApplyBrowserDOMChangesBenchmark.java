@@ -0,0 +1,44 @@
+package com.icesoft.faces.context;
+
+import org.w3c.dom.Document;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Times {@link BridgeFacesContext#applyBrowserDOMChanges(Document, Map, FormElementIndex)}
+ * against the full scan it replaces, for a partial submit on a page with
+ * thousands of form elements, built the same way as in
+ * {@link ApplyBrowserDOMChangesTest}. The timings are only reported, run it with
+ * <code>java com.icesoft.faces.context.ApplyBrowserDOMChangesBenchmark</code>.
+ */
+public class ApplyBrowserDOMChangesBenchmark {
+    private static final int Elements = 5000;
+    private static final int Rounds = 50;
+
+    public static void main(String[] args) throws Exception {
+        //a partial submit sends a handful of values
+        Map parameters = ApplyBrowserDOMChangesTest.randomParameters(new Random(1), 20);
+        Document scanned = ApplyBrowserDOMChangesTest.randomPage(1, Elements);
+        Document indexed = ApplyBrowserDOMChangesTest.randomPage(1, Elements);
+        //the index is built once, when the page is rendered
+        long indexStart = System.nanoTime();
+        FormElementIndex index = new FormElementIndex(indexed);
+        long indexNanos = System.nanoTime() - indexStart;
+
+        long scanNanos = Long.MAX_VALUE;
+        long lookupNanos = Long.MAX_VALUE;
+        for (int round = 0; round < Rounds; round++) {
+            long start = System.nanoTime();
+            ApplyBrowserDOMChangesTest.applyByFullScan(scanned, parameters);
+            scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            BridgeFacesContext.applyBrowserDOMChanges(indexed, parameters, index);
+            lookupNanos = Math.min(lookupNanos, System.nanoTime() - start);
+        }
+        System.out.println("Applying " + parameters.size() + " parameters to " + Elements + " form elements: full scan "
+                + scanNanos / 1000 + "us, index lookup " + lookupNanos / 1000 + "us (index built in "
+                + indexNanos / 1000 + "us)");
+    }
+}
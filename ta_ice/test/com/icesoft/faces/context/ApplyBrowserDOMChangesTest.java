@@ -0,0 +1,188 @@
+package com.icesoft.faces.context;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares {@link BridgeFacesContext#applyBrowserDOMChanges(Document, Map, FormElementIndex)}
+ * with the scan of every form element of the page it replaces: both must leave
+ * the document in the same state. {@link ApplyBrowserDOMChangesBenchmark}
+ * times both on a page with thousands of inputs.
+ */
+public class ApplyBrowserDOMChangesTest {
+    private static final String[] InputTypes = {"text", "checkbox", "radio", "hidden"};
+
+    @Test
+    public void appliesTheSameChangesAsAFullScan() throws Exception {
+        for (long seed = 0; seed < 30; seed++) {
+            Map parameters = randomParameters(new Random(seed * 7), 200);
+            Document scanned = randomPage(seed, 3000);
+            Document indexed = randomPage(seed, 3000);
+
+            applyByFullScan(scanned, parameters);
+            BridgeFacesContext.applyBrowserDOMChanges(indexed, parameters, new FormElementIndex(indexed));
+
+            assertEquals("seed " + seed, serialize(scanned), serialize(indexed));
+        }
+    }
+
+    static Map randomParameters(Random random, int count) {
+        Map parameters = new HashMap();
+        for (int i = 0; i < count; i++) {
+            String name = random.nextBoolean() ? "id" + random.nextInt(2500) : "n" + random.nextInt(60);
+            String[] values = random.nextInt(5) == 0 ?
+                    new String[]{""} :
+                    new String[]{"v" + random.nextInt(5), "v" + random.nextInt(5)};
+            parameters.put(name, values);
+        }
+        return parameters;
+    }
+
+    static Document randomPage(long seed, int elements) throws Exception {
+        Random random = new Random(seed);
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element body = document.createElement("body");
+        document.appendChild(body);
+        for (int i = 0; i < elements; i++) {
+            Element element;
+            int kind = random.nextInt(10);
+            if (kind < 8) {
+                element = document.createElement("input");
+                element.setAttribute("type", InputTypes[random.nextInt(InputTypes.length)]);
+                if (random.nextBoolean()) element.setAttribute("name", "n" + random.nextInt(50));
+                if (random.nextBoolean()) element.setAttribute("value", "v" + random.nextInt(5));
+                if (random.nextBoolean()) element.setAttribute("checked", "checked");
+            } else if (kind == 8) {
+                element = document.createElement("textarea");
+                if (random.nextBoolean()) element.appendChild(document.createTextNode("text"));
+            } else {
+                element = document.createElement("select");
+                for (int j = 0; j < 3; j++) {
+                    Element option = document.createElement("option");
+                    option.setAttribute("value", "v" + j);
+                    if (random.nextBoolean()) option.setAttribute("selected", "selected");
+                    element.appendChild(option);
+                }
+            }
+            //some elements have no id, some share one
+            if (random.nextInt(10) > 0) element.setAttribute("id", "id" + random.nextInt(2500));
+            body.appendChild(element);
+        }
+        return document;
+    }
+
+    private static String serialize(Document document) throws Exception {
+        StringWriter writer = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new StreamResult(writer));
+        return writer.toString();
+    }
+
+    /**
+     * The former implementation, visiting every input, textarea and select of the page.
+     */
+    static void applyByFullScan(Document document, Map parameters) {
+        NodeList inputElements = document.getElementsByTagName("input");
+        int inputElementsLength = inputElements.getLength();
+        for (int i = 0; i < inputElementsLength; i++) {
+            Element inputElement = (Element) inputElements.item(i);
+            String id = inputElement.getAttribute("id");
+            if (!"".equals(id)) {
+                String name = null;
+                if (parameters.containsKey(id)) {
+                    String value = ((String[]) parameters.get(id))[0];
+                    if (!"".equals(value)) {
+                        if (inputElement.hasAttribute("value")) {
+                            inputElement.setAttribute("value", value);
+                        } else if (inputElement.getAttribute("type").equals("checkbox")) {
+                            inputElement.setAttribute("checked", "checked");
+                        }
+                    } else {
+                        inputElement.setAttribute("value", "");
+                    }
+                } else if (!"".equals(name = inputElement.getAttribute("name")) && parameters.containsKey(name)) {
+                    String type = inputElement.getAttribute("type");
+                    if (type != null && type.equals("checkbox") || type.equals("radio")) {
+                        String currValue = inputElement.getAttribute("value");
+                        if (!"".equals(currValue)) {
+                            boolean found = false;
+                            String[] values = (String[]) parameters.get(name);
+                            if (values != null) {
+                                for (int v = 0; v < values.length; v++) {
+                                    if (currValue.equals(values[v])) {
+                                        found = true;
+                                        break;
+                                    }
+                                }
+                            }
+                            if (found) {
+                                if (type.equals("checkbox")) {
+                                    inputElement.setAttribute("checked", "true");
+                                } else if (type.equals("radio")) {
+                                    inputElement.setAttribute("checked", "checked");
+                                }
+                            } else {
+                                inputElement.removeAttribute("checked");
+                            }
+                        }
+                    }
+                } else {
+                    if (inputElement.getAttribute("type").equals("checkbox")) {
+                        inputElement.removeAttribute("checked");
+                    }
+                }
+            }
+        }
+
+        NodeList textareaElements = document.getElementsByTagName("textarea");
+        int textareaElementsLength = textareaElements.getLength();
+        for (int i = 0; i < textareaElementsLength; i++) {
+            Element textareaElement = (Element) textareaElements.item(i);
+            String id = textareaElement.getAttribute("id");
+            if (!"".equals(id) && parameters.containsKey(id)) {
+                String value = ((String[]) parameters.get(id))[0];
+                Node firstChild = textareaElement.getFirstChild();
+                if (null != firstChild) {
+                    firstChild.setNodeValue(value);
+                } else {
+                    textareaElement.appendChild(document.createTextNode(value));
+                }
+            }
+        }
+
+        NodeList selectElements = document.getElementsByTagName("select");
+        int selectElementsLength = selectElements.getLength();
+        for (int i = 0; i < selectElementsLength; i++) {
+            Element selectElement = (Element) selectElements.item(i);
+            String id = selectElement.getAttribute("id");
+            if (!"".equals(id) && parameters.containsKey(id)) {
+                List values = Arrays.asList((String[]) parameters.get(id));
+                NodeList optionElements = selectElement.getElementsByTagName("option");
+                int optionElementsLength = optionElements.getLength();
+                for (int j = 0; j < optionElementsLength; j++) {
+                    Element optionElement = (Element) optionElements.item(j);
+                    if (values.contains(optionElement.getAttribute("value"))) {
+                        optionElement.setAttribute("selected", "selected");
+                    } else {
+                        optionElement.removeAttribute("selected");
+                    }
+                }
+            }
+        }
+    }
+}
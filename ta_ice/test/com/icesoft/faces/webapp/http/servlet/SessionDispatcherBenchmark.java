@@ -0,0 +1,30 @@
+package com.icesoft.faces.webapp.http.servlet;
+
+/**
+ * Measures the throughput of {@link SessionDispatcher#service} with one
+ * thread and with one thread per processor, using the sessions and servers
+ * of {@link SessionDispatcherStressTest}. A dispatcher serializing on its
+ * session registries does not serve more requests with more threads. The
+ * numbers are only reported, run it with
+ * <code>java com.icesoft.faces.webapp.http.servlet.SessionDispatcherBenchmark</code>.
+ */
+public class SessionDispatcherBenchmark {
+    private static final int REQUESTS_PER_THREAD = 20000;
+
+    public static void main(String[] args) throws Exception {
+        SessionDispatcherStressTest fixture = new SessionDispatcherStressTest();
+        fixture.setUp();
+        try {
+            int processors = Runtime.getRuntime().availableProcessors();
+            //warm up
+            fixture.run(processors, REQUESTS_PER_THREAD);
+
+            double single = fixture.run(1, REQUESTS_PER_THREAD);
+            double parallel = fixture.run(processors, REQUESTS_PER_THREAD);
+            System.out.println("SessionDispatcher throughput: 1 thread " + Math.round(single)
+                    + " requests/s, " + processors + " threads " + Math.round(parallel) + " requests/s");
+        } finally {
+            fixture.tearDown();
+        }
+    }
+}
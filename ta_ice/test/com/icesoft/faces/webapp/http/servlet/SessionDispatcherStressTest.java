@@ -0,0 +1,236 @@
+package com.icesoft.faces.webapp.http.servlet;
+
+import com.icesoft.faces.env.Authorization;
+import com.icesoft.faces.webapp.http.common.Configuration;
+import com.icesoft.faces.webapp.http.common.Request;
+import com.icesoft.faces.webapp.http.common.Response;
+import com.icesoft.faces.webapp.http.common.ResponseHandler;
+import com.icesoft.faces.webapp.http.common.Server;
+import com.icesoft.util.MonitorRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionEvent;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Drives {@link SessionDispatcher#service} from several threads over many
+ * sessions, the way the blocking and receive-updates requests of concurrent
+ * users do. Checks that each session still gets exactly one session bound
+ * server. {@link SessionDispatcherBenchmark} uses the same setup to measure
+ * the request throughput for a growing number of threads.
+ */
+public class SessionDispatcherStressTest {
+    private static final int SESSIONS = 64;
+    //CPU work done by each request, so that there is something to run in parallel
+    private static final int WORK_PER_REQUEST = 2000;
+    private static final AtomicInteger TestRuns = new AtomicInteger();
+
+    private final AtomicInteger serversCreated = new AtomicInteger();
+    private final Map contextAttributes = new HashMap();
+    private MonitorRunner monitorRunner;
+    private ServletContext context;
+    private SessionDispatcher dispatcher;
+    private HttpSession[] sessions;
+    private volatile int sink;
+
+    @Before
+    public void setUp() throws Exception {
+        monitorRunner = new MonitorRunner(1000);
+        context = (ServletContext) mock(ServletContext.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                synchronized (contextAttributes) {
+                    if ("setAttribute".equals(name)) {
+                        contextAttributes.put(args[0], args[1]);
+                    } else if ("getAttribute".equals(name)) {
+                        return contextAttributes.get(args[0]);
+                    }
+                }
+                return defaultValue(method);
+            }
+        });
+        dispatcher = new SessionDispatcher(new EmptyConfiguration(), context, monitorRunner) {
+            protected Server newServer(HttpSession session, Monitor sessionMonitor, Authorization authorization) {
+                serversCreated.incrementAndGet();
+                return new WorkingServer();
+            }
+        };
+        //the session monitors are shared by all the dispatchers, keep the ids unique per test
+        String prefix = "stress-" + TestRuns.incrementAndGet() + "-";
+        sessions = new HttpSession[SESSIONS];
+        for (int i = 0; i < sessions.length; i++) {
+            sessions[i] = session(prefix + i);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        SessionDispatcher.Listener listener = new SessionDispatcher.Listener();
+        for (int i = 0; i < sessions.length; i++) {
+            listener.sessionDestroyed(new HttpSessionEvent(sessions[i]));
+        }
+        monitorRunner.stop();
+    }
+
+    @Test
+    public void createsOneServerPerSession() throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        run(threads, 200);
+
+        assertEquals(SESSIONS, serversCreated.get());
+        for (int i = 0; i < sessions.length; i++) {
+            assertNotNull(dispatcher.lookupServer(sessions[i]));
+        }
+    }
+
+    /**
+     * @return the requests served per second
+     */
+    double run(int threads, final int requestsPerThread) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final Throwable[] failure = new Throwable[1];
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            new Thread("dispatcher-stress-" + t) {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < requestsPerThread; i++) {
+                            HttpSession session = sessions[(offset + i) % sessions.length];
+                            dispatcher.service(request(session), null);
+                        }
+                    } catch (Throwable e) {
+                        synchronized (failure) {
+                            failure[0] = e;
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        synchronized (failure) {
+            if (failure[0] != null) {
+                throw new AssertionError(failure[0]);
+            }
+        }
+        return threads * (double) requestsPerThread * 1000000000L / elapsed;
+    }
+
+    private HttpSession session(final String id) {
+        final long created = System.currentTimeMillis();
+        return (HttpSession) mock(HttpSession.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if ("getId".equals(name)) {
+                    return id;
+                } else if ("getLastAccessedTime".equals(name)) {
+                    return new Long(created);
+                } else if ("getMaxInactiveInterval".equals(name)) {
+                    return new Integer(1800);
+                } else if ("getServletContext".equals(name)) {
+                    return context;
+                } else {
+                    return defaultValue(method);
+                }
+            }
+        });
+    }
+
+    private HttpServletRequest request(final HttpSession session) {
+        return (HttpServletRequest) mock(HttpServletRequest.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if ("getSession".equals(name)) {
+                    return session;
+                } else if ("getRequestedSessionId".equals(name)) {
+                    return session.getId();
+                } else if ("getRequestURL".equals(name)) {
+                    return new StringBuffer("http://localhost/block/receive-updates");
+                } else if ("equals".equals(name)) {
+                    return Boolean.valueOf(proxy == args[0]);
+                } else if ("hashCode".equals(name)) {
+                    return new Integer(System.identityHashCode(proxy));
+                } else {
+                    return defaultValue(method);
+                }
+            }
+        });
+    }
+
+    private static Object mock(Class type, InvocationHandler handler) {
+        return Proxy.newProxyInstance(SessionDispatcherStressTest.class.getClassLoader(), new Class[]{type}, handler);
+    }
+
+    private static Object defaultValue(Method method) {
+        Class type = method.getReturnType();
+        if (type == Boolean.TYPE) {
+            return Boolean.FALSE;
+        } else if (type == Integer.TYPE) {
+            return new Integer(0);
+        } else if (type == Long.TYPE) {
+            return new Long(0);
+        } else {
+            return null;
+        }
+    }
+
+    private class WorkingServer implements Server {
+        public void service(Request request) throws Exception {
+            int value = 0;
+            for (int i = 0; i < WORK_PER_REQUEST; i++) {
+                value = value * 31 + i;
+            }
+            sink = value;
+            request.respondWith(new ResponseHandler() {
+                public void respond(Response response) {
+                }
+            });
+        }
+
+        public void shutdown() {
+        }
+    }
+
+    private static class EmptyConfiguration extends Configuration {
+        public String getName() {
+            return "test";
+        }
+
+        public Configuration getChild(String child) {
+            return this;
+        }
+
+        public Configuration[] getChildren(String name) {
+            return new Configuration[0];
+        }
+
+        public String getAttribute(String paramName) {
+            return null;
+        }
+
+        public String getValue() {
+            return null;
+        }
+    }
+}